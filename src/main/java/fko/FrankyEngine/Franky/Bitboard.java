@@ -68,13 +68,353 @@ public class Bitboard {
   public static final long f8DownDiag = 0b00100000_01000000_10000000_00000000_00000000_00000000_00000000_00000000L;
   public static final long g8DownDiag = 0b01000000_10000000_00000000_00000000_00000000_00000000_00000000_00000000L;
   public static final long h8DownDiag = 0b10000000_00000000_00000000_00000000_00000000_00000000_00000000_00000000L;
-  // @formatter:ontboard can't be instantiated
+  // @formatter:on
+
+  // ##########################################################################
+  // Magic bitboards for sliding pieces
+  // ##########################################################################
+
+  // @formatter:off
+  // magic numbers found by trial and error with a fixed seed for random candidates
+  private static final long[] rookMagics = {
+    0x0E80004004108029L, 0x0140012000401002L, 0x4080082000841000L, 0x0080080010008004L,
+    0x4080040080080002L, 0x0100010002080400L, 0x0280008001000200L, 0x0200008409004022L,
+    0x000080048C204002L, 0x4008400040201008L, 0x8203002001004010L, 0x0081000A6103D000L,
+    0x1806002200080490L, 0x0022000890450200L, 0x1411000100241200L, 0x00020000A1004402L,
+    0x082C208000400080L, 0x0010004040002002L, 0x04E0808020001000L, 0x0890004008040042L,
+    0x100C008080080004L, 0x0000080104204010L, 0x0088440002084110L, 0x0102020001208044L,
+    0x4095608080004008L, 0x0010250600408200L, 0x8002200480100180L, 0x0400100080080080L,
+    0x0000080100110004L, 0x1305002300040008L, 0x0020100400321108L, 0x00010A820021450CL,
+    0x4840804002800020L, 0x0200200080804000L, 0x4000802000801000L, 0x0022000842001020L,
+    0xC280080080800400L, 0x00C4810400800200L, 0x000A025004004108L, 0x0022008062001401L,
+    0x1011C0006A808000L, 0x6010002000404008L, 0x1042041020820040L, 0x1140210010010009L,
+    0xA200080100050010L, 0x0002001005020008L, 0x1021001A00050004L, 0x0002040040820021L,
+    0x0480002000400640L, 0x0480400220008180L, 0x4101004020081100L, 0x0618120020084200L,
+    0x8608100800050100L, 0x0809800201040080L, 0x0801011008020400L, 0xA30004009C610200L,
+    0x1080070081106041L, 0x8490810410244005L, 0x8000200010084101L, 0x000900D000201805L,
+    0x0021000210040801L, 0x4001000804000201L, 0x5008108810212204L, 0x0000002404850742L
+  };
+
+  private static final long[] bishopMagics = {
+    0x0810101901040C10L, 0x0284140404003480L, 0x0C180800DC900111L, 0x0421104100000802L,
+    0x2050882086000000L, 0x1100880440000114L, 0x6084420220610040L, 0x2042004420841000L,
+    0x4200404881210A01L, 0x0000100C05004610L, 0x000004011C010200L, 0x0010040400850046L,
+    0x003101104000408CL, 0x1400062820080009L, 0x2235841108084400L, 0x0050010090900810L,
+    0x8008805020110400L, 0x0808202228185481L, 0x9804000208001100L, 0x1028241904010080L,
+    0x1010101202100400L, 0x0A0201014104A000L, 0x004040008848280BL, 0x0000208042221040L,
+    0x0020080021028420L, 0x8210048030040880L, 0x1089040020404400L, 0x0808080000220120L,
+    0x0001010010104008L, 0x3014010040B00610L, 0x010A408004108800L, 0x0001020000308420L,
+    0x09110820000AA000L, 0x8000C82008080200L, 0x0160109202700408L, 0x0003010802010040L,
+    0x0124080200402008L, 0x0218100040888802L, 0x080C2408A48C0682L, 0x2004004200004111L,
+    0x0424044404044120L, 0x0001010821404208L, 0x0000201410012208L, 0x000920201104B808L,
+    0x0830880214010810L, 0x00501003080A00C0L, 0x0464118404041100L, 0x102401241B002220L,
+    0x4140580210100200L, 0x041208411410000CL, 0x0084210080900100L, 0x0020130108480100L,
+    0x2004002002540060L, 0x200050A001C50001L, 0x0920600101011100L, 0x000401422A020000L,
+    0x1007002101084002L, 0x0080008084104200L, 0x0000000084008808L, 0x4004200002840440L,
+    0x0000002006208200L, 0x0440200508104100L, 0x8298042188051100L, 0x0004500400608200L
+  };
+  // @formatter:on
+
+  // relevant occupancy masks (without edges) for each square
+  private static final long[] rookMasks   = new long[64];
+  private static final long[] bishopMasks = new long[64];
+
+  // shifts to get the table index from the magic product
+  private static final int[] rookShifts   = new int[64];
+  private static final int[] bishopShifts = new int[64];
+
+  // offsets into the shared attack tables for each square (fancy magics)
+  private static final int[] rookOffsets   = new int[64];
+  private static final int[] bishopOffsets = new int[64];
+
+  private static final long[] rookAttacks;
+  private static final long[] bishopAttacks;
+
+  static {
+    rookAttacks = initMagics(rookMasks, rookMagics, rookShifts, rookOffsets, true);
+    bishopAttacks = initMagics(bishopMasks, bishopMagics, bishopShifts, bishopOffsets, false);
+  }
+
+  // ##########################################################################
+  // Pre-computed attacks for non sliding pieces
+  // ##########################################################################
+
+  private static final long[]   knightAttacks = new long[64];
+  private static final long[]   kingAttacks   = new long[64];
+  // [color][square] squares attacked by a pawn of the color on the square
+  private static final long[][] pawnAttacks   = new long[2][64];
+
+  static {
+    final int[][] knightSteps = {{2, 1}, {1, 2}, {-1, 2}, {-2, 1},
+                                 {-2, -1}, {-1, -2}, {1, -2}, {2, -1}};
+    final int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1},
+                               {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    for (int sq = 0; sq < 64; sq++) {
+      knightAttacks[sq] = stepAttacks(sq, knightSteps);
+      kingAttacks[sq] = stepAttacks(sq, kingSteps);
+      pawnAttacks[Color.WHITE.ordinal()][sq] = stepAttacks(sq, new int[][]{{1, -1}, {1, 1}});
+      pawnAttacks[Color.BLACK.ordinal()][sq] = stepAttacks(sq, new int[][]{{-1, -1}, {-1, 1}});
+    }
+  }
+
+  // ##########################################################################
+  // Lines and squares between two squares
+  // ##########################################################################
+
+  // [sq1][sq2] squares strictly between two squares on a common rank, file or diagonal
+  private static final long[][] betweenSquares = new long[64][64];
+  // [sq1][sq2] the full rank, file or diagonal through two squares
+  private static final long[][] lineSquares    = new long[64][64];
+
+  static {
+    for (int sq1 = 0; sq1 < 64; sq1++) {
+      for (int sq2 = 0; sq2 < 64; sq2++) {
+        if (sq1 == sq2) continue;
+        final long bb1 = 1L << sq1;
+        final long bb2 = 1L << sq2;
+        if ((getRookAttacks(sq1, 0L) & bb2) != 0) {
+          betweenSquares[sq1][sq2] = getRookAttacks(sq1, bb2) & getRookAttacks(sq2, bb1);
+          lineSquares[sq1][sq2] = (getRookAttacks(sq1, 0L) & getRookAttacks(sq2, 0L)) | bb1 | bb2;
+        }
+        else if ((getBishopAttacks(sq1, 0L) & bb2) != 0) {
+          betweenSquares[sq1][sq2] = getBishopAttacks(sq1, bb2) & getBishopAttacks(sq2, bb1);
+          lineSquares[sq1][sq2] =
+            (getBishopAttacks(sq1, 0L) & getBishopAttacks(sq2, 0L)) | bb1 | bb2;
+        }
+      }
+    }
+  }
+
+  // ##########################################################################
+  // Pawn structure masks
+  // ##########################################################################
+
+  // [file] all squares of a file
+  private static final long[]   fileMasks          = new long[8];
+  // [file] all squares of the neighbouring files
+  private static final long[]   adjacentFilesMasks = new long[8];
+  // [color][square] squares in front of a pawn on its own and the neighbouring files
+  private static final long[][] passedPawnMasks    = new long[2][64];
+
+  static {
+    for (int file = 0; file < 8; file++) {
+      fileMasks[file] = 0x0101010101010101L << file;
+    }
+    for (int file = 0; file < 8; file++) {
+      if (file > 0) adjacentFilesMasks[file] |= fileMasks[file - 1];
+      if (file < 7) adjacentFilesMasks[file] |= fileMasks[file + 1];
+    }
+    for (int sq = 0; sq < 64; sq++) {
+      final long files = fileMasks[sq % 8] | adjacentFilesMasks[sq % 8];
+      final int rank = sq / 8;
+      // ranks above (white) or below (black) the square's rank
+      final long ranksAbove = rank == 7 ? 0L : -1L << ((rank + 1) * 8);
+      final long ranksBelow = rank == 0 ? 0L : -1L >>> ((8 - rank) * 8);
+      passedPawnMasks[Color.WHITE.ordinal()][sq] = files & ranksAbove;
+      passedPawnMasks[Color.BLACK.ordinal()][sq] = files & ranksBelow;
+    }
+  }
 
   /**
    * Bitboard can't be instantiated
    */
   private Bitboard() {}
 
+  /**
+   * Returns the squares attacked by a rook on the given square using magic bitboards.
+   *
+   * @param index64  the square index (a1=0, h8=63)
+   * @param occupied bitboard of all occupied squares
+   * @return bitboard of all attacked squares including the first blocker in each direction
+   */
+  public static long getRookAttacks(int index64, long occupied) {
+    return rookAttacks[rookOffsets[index64] + (int) (
+      ((occupied & rookMasks[index64]) * rookMagics[index64]) >>> rookShifts[index64])];
+  }
+
+  /**
+   * Returns the squares attacked by a bishop on the given square using magic bitboards.
+   *
+   * @param index64  the square index (a1=0, h8=63)
+   * @param occupied bitboard of all occupied squares
+   * @return bitboard of all attacked squares including the first blocker in each direction
+   */
+  public static long getBishopAttacks(int index64, long occupied) {
+    return bishopAttacks[bishopOffsets[index64] + (int) (
+      ((occupied & bishopMasks[index64]) * bishopMagics[index64]) >>> bishopShifts[index64])];
+  }
+
+  /**
+   * Returns the squares attacked by a queen on the given square using magic bitboards.
+   *
+   * @param index64  the square index (a1=0, h8=63)
+   * @param occupied bitboard of all occupied squares
+   * @return bitboard of all attacked squares including the first blocker in each direction
+   */
+  public static long getQueenAttacks(int index64, long occupied) {
+    return getRookAttacks(index64, occupied) | getBishopAttacks(index64, occupied);
+  }
+
+  /**
+   * @param index64 the square index (a1=0, h8=63)
+   * @return bitboard of all squares attacked by a knight on the given square
+   */
+  public static long getKnightAttacks(int index64) {
+    return knightAttacks[index64];
+  }
+
+  /**
+   * @param index64 the square index (a1=0, h8=63)
+   * @return bitboard of all squares attacked by a king on the given square
+   */
+  public static long getKingAttacks(int index64) {
+    return kingAttacks[index64];
+  }
+
+  /**
+   * @param color   the color of the pawn
+   * @param index64 the square index (a1=0, h8=63)
+   * @return bitboard of all squares attacked by a pawn of the given color on the given square
+   */
+  public static long getPawnAttacks(Color color, int index64) {
+    return pawnAttacks[color.ordinal()][index64];
+  }
+
+  /**
+   * @param index1 the first square index (a1=0, h8=63)
+   * @param index2 the second square index (a1=0, h8=63)
+   * @return bitboard of the squares between the two squares if they are on a common rank, file
+   * or diagonal - otherwise 0
+   */
+  public static long getBetween(int index1, int index2) {
+    return betweenSquares[index1][index2];
+  }
+
+  /**
+   * @param index1 the first square index (a1=0, h8=63)
+   * @param index2 the second square index (a1=0, h8=63)
+   * @return bitboard of the full rank, file or diagonal through both squares if they are on a
+   * common line - otherwise 0
+   */
+  public static long getLine(int index1, int index2) {
+    return lineSquares[index1][index2];
+  }
+
+  /**
+   * @param file the file index (a=0, h=7)
+   * @return bitboard of all squares of the file
+   */
+  public static long getFileMask(int file) {
+    return fileMasks[file];
+  }
+
+  /**
+   * @param file the file index (a=0, h=7)
+   * @return bitboard of all squares of the neighbouring files
+   */
+  public static long getAdjacentFilesMask(int file) {
+    return adjacentFilesMasks[file];
+  }
+
+  /**
+   * A pawn is passed if there are no opponent pawns on these squares.
+   *
+   * @param color   the color of the pawn
+   * @param index64 the square index of the pawn (a1=0, h8=63)
+   * @return bitboard of all squares in front of the pawn on its own and the neighbouring files
+   */
+  public static long getPassedPawnMask(Color color, int index64) {
+    return passedPawnMasks[color.ordinal()][index64];
+  }
+
+  /**
+   * Computes the attacks of a non sliding piece from its rank and file steps.
+   */
+  private static long stepAttacks(int index64, int[][] steps) {
+    long attacks = 0L;
+    for (int[] step : steps) {
+      final int rank = index64 / 8 + step[0];
+      final int file = index64 % 8 + step[1];
+      if (rank >= 0 && rank <= 7 && file >= 0 && file <= 7) {
+        attacks |= 1L << (rank * 8 + file);
+      }
+    }
+    return attacks;
+  }
+
+  /**
+   * Computes the attacks of a sliding piece by walking the rays square by square. Used to
+   * fill the magic tables and to verify them in tests.
+   *
+   * @param index64  the square index (a1=0, h8=63)
+   * @param occupied bitboard of all occupied squares
+   * @param rook     true for rook directions, false for bishop directions
+   * @return bitboard of all attacked squares including the first blocker in each direction
+   */
+  static long slidingAttacks(int index64, long occupied, boolean rook) {
+    final int[][] directions = rook
+                               ? new int[][]{{1, 0}, {-1, 0}, {0, 1}, {0, -1}}
+                               : new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    long attacks = 0L;
+    for (int[] d : directions) {
+      int rank = index64 / 8 + d[0];
+      int file = index64 % 8 + d[1];
+      while (rank >= 0 && rank <= 7 && file >= 0 && file <= 7) {
+        final long bit = 1L << (rank * 8 + file);
+        attacks |= bit;
+        if ((occupied & bit) != 0) break; // blocker
+        rank += d[0];
+        file += d[1];
+      }
+    }
+    return attacks;
+  }
+
+  /**
+   * Fills masks, shifts and offsets and computes the shared attack table for all occupancy
+   * subsets of each square.
+   *
+   * @return the attack table
+   */
+  private static long[] initMagics(long[] masks, long[] magics, int[] shifts, int[] offsets,
+                                   boolean rook) {
+    final long edgeRanks = Square.Rank.r1.bitBoard | Square.Rank.r8.bitBoard;
+    final long edgeFiles = Square.File.a.bitBoard | Square.File.h.bitBoard;
+
+    int size = 0;
+    for (int sq = 0; sq < 64; sq++) {
+      // edges of a ray do not matter as there is no square behind them
+      final long rankBB = Square.Rank.values[sq / 8].bitBoard;
+      final long fileBB = Square.File.values[sq % 8].bitBoard;
+      final long empty = slidingAttacks(sq, 0L, rook);
+      masks[sq] = rook
+                  ? (empty & rankBB & ~edgeFiles) | (empty & fileBB & ~edgeRanks)
+                  : empty & ~(edgeRanks | edgeFiles);
+      final int bits = Long.bitCount(masks[sq]);
+      shifts[sq] = 64 - bits;
+      offsets[sq] = size;
+      size += 1 << bits;
+    }
+
+    final long[] table = new long[size];
+    for (int sq = 0; sq < 64; sq++) {
+      // enumerate all subsets of the mask (Carry-Rippler)
+      long subset = 0L;
+      do {
+        final int index = offsets[sq] + (int) ((subset * magics[sq]) >>> shifts[sq]);
+        final long attacks = slidingAttacks(sq, subset, rook);
+        if (table[index] != 0 && table[index] != attacks) {
+          final String msg = "Invalid magic number for square " + sq;
+          LOG.error(msg);
+          throw new IllegalStateException(msg);
+        }
+        table[index] = attacks;
+        subset = (subset - masks[sq]) & masks[sq];
+      } while (subset != 0);
+    }
+    return table;
+  }
+
     /**
    * Returns a string representing a bitboard in a 8 by 8 matrix
    * @param bitboard
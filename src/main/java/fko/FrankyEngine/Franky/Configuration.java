@@ -91,6 +91,11 @@ public class Configuration {
    */
   public boolean USE_TRANSPOSITION_TABLE = true;
 
+  /**
+   * Number of entries per bucket in the Transposition Table (1 = one entry per index)
+   */
+  public int TT_BUCKET_SIZE = 4;
+
   /**
    * Uses TT to determine best move of previous searches and also start depth
    */
@@ -112,6 +117,11 @@ public class Configuration {
   public boolean USE_KILLER_MOVES = true;
   public int     NO_KILLER_MOVES  = 2;
 
+  /**
+   * History heuristic, counter moves and continuation history for sorting non capturing moves
+   */
+  public boolean USE_HISTORY_HEURISTIC = true;
+
   /**
    * NTDf Search for Debugging
    * https://www.chessprogramming.org/Debugging
@@ -205,11 +215,29 @@ public class Configuration {
   public int     LMR_MIN_MOVES = 3;
   public int     LMR_REDUCTION = 1;
 
-  /*
-   * Use LAZY SMP - not sofisticated multithreading to fill up the TT quicker
+  /**
+   * Lazy evaluation - evaluation returns material and piece square values without the
+   * expensive terms if these are more than LAZY_EVAL_MARGIN outside of the alpha beta window
+   */
+  public boolean USE_LAZY_EVAL    = true;
+  public int     LAZY_EVAL_MARGIN = 300;
+
+  /**
+   * Cache for evaluation values of positions (size in MB) - each search thread has its own
+   */
+  public boolean USE_EVAL_CACHE  = true;
+  public int     EVAL_CACHE_SIZE = 4;
+
+  /**
+   * Use LAZY SMP - not sofisticated multithreading to fill up the TT quicker.
+   * SMP_THREADS is the total number of search threads - the main search plus
+   * SMP_THREADS-1 helper searches which share the transposition table.
+   * Each helper allocates its own evaluation cache (EVAL_CACHE_SIZE MB), pawn and
+   * material hash tables and history tables (about 4 MB) which do not count
+   * towards HASH_SIZE.
    */
-  //  public boolean USE_LAZY_SMP = true;
-  //  public int SMP_CPUS = 4;
+  public boolean USE_LAZY_SMP = true;
+  public int     SMP_THREADS  = 1;
 
   /**
    * Experimental extra sorting of moves in move generation.
@@ -235,9 +263,10 @@ public class Configuration {
            + ", DEBUG=" + DEBUG + ", UCI_ShowCurrLine=" + UCI_ShowCurrLine + ", USE_BOOK="
            + USE_BOOK + ", OB_FolderPath='" + OB_FolderPath + '\'' + ", OB_fileNamePlain='"
            + OB_fileNamePlain + '\'' + ", OB_Mode=" + OB_Mode + ", USE_TRANSPOSITION_TABLE="
-           + USE_TRANSPOSITION_TABLE + ", USE_TT_ROOT=" + USE_TT_ROOT + ", USE_QUIESCENCE="
+           + USE_TRANSPOSITION_TABLE + ", TT_BUCKET_SIZE=" + TT_BUCKET_SIZE + ", USE_TT_ROOT=" + USE_TT_ROOT + ", USE_QUIESCENCE="
            + USE_QUIESCENCE + ", USE_ALPHABETA_PRUNING=" + USE_ALPHABETA_PRUNING
            + ", USE_KILLER_MOVES=" + USE_KILLER_MOVES + ", NO_KILLER_MOVES=" + NO_KILLER_MOVES
+           + ", USE_HISTORY_HEURISTIC=" + USE_HISTORY_HEURISTIC
            + ", USE_MTDf=" + USE_MTDf + ", MTDf_START_DEPTH=" + MTDf_START_DEPTH + ", USE_PVS="
            + USE_PVS + ", USE_PVS_ORDERING=" + USE_PVS_ORDERING + ", USE_ASPIRATION_WINDOW="
            + USE_ASPIRATION_WINDOW + ", ASPIRATION_START_DEPTH=" + ASPIRATION_START_DEPTH
@@ -252,7 +281,10 @@ public class Configuration {
            + ", USE_QFUTILITY_PRUNING=" + USE_QFUTILITY_PRUNING + ", USE_LMP=" + USE_LMP
            + ", LMP_MIN_DEPTH=" + LMP_MIN_DEPTH + ", LMP_MIN_MOVES=" + LMP_MIN_MOVES + ", USE_LMR="
            + USE_LMR + ", LMR_MIN_DEPTH=" + LMR_MIN_DEPTH + ", LMR_MIN_MOVES=" + LMR_MIN_MOVES
-           + ", LMR_REDUCTION=" + LMR_REDUCTION + ", USE_SORT_ALL_MOVES=" + USE_SORT_ALL_MOVES
+           + ", LMR_REDUCTION=" + LMR_REDUCTION + ", USE_LAZY_EVAL=" + USE_LAZY_EVAL
+           + ", LAZY_EVAL_MARGIN=" + LAZY_EVAL_MARGIN + ", USE_EVAL_CACHE=" + USE_EVAL_CACHE
+           + ", EVAL_CACHE_SIZE=" + EVAL_CACHE_SIZE + ", USE_LAZY_SMP=" + USE_LAZY_SMP
+           + ", SMP_THREADS=" + SMP_THREADS + ", USE_SORT_ALL_MOVES=" + USE_SORT_ALL_MOVES
            + '}';
   }
 }
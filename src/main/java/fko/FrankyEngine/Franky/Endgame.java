@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+/**
+ * Enumeration of material configurations with a specialized endgame evaluation or scaling.
+ * The strong side is the side with the named extra material (e.g. the side with the pawn in
+ * KPK).
+ * <p>
+ * See <code>EndgameEvaluation</code> and <code>MaterialHashTable</code>
+ */
+public enum Endgame {
+
+  NONE,             // general evaluation
+  KPK,              // king and pawn against king
+  KBNK,             // king, bishop and knight against king
+  KRKP,             // king and rook against king and pawn
+  KQKR,             // king and queen against king and rook
+  OPPOSITE_BISHOPS; // one bishop each and pawns - scaled if bishops are on opposite colors
+
+  static final Endgame[] values = Endgame.values();
+}
@@ -0,0 +1,204 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import static fko.FrankyEngine.Franky.PieceType.*;
+
+/**
+ * Specialized evaluations of endgames with known material configurations. These replace the
+ * general evaluation and return values which lead the strong side to the win or which
+ * recognize drawn positions.
+ * <p>
+ * All values are from the view of the strong side. A value of <code>Evaluation.NOVALUE</code>
+ * means that the position is not recognized and the general evaluation has to be used.
+ * <p>
+ * https://www.chessprogramming.org/Endgame
+ */
+final class EndgameEvaluation {
+
+  private EndgameEvaluation() {}
+
+  /**
+   * @param endgame    the material configuration of the position
+   * @param position   the position to evaluate
+   * @param strongSide the side with the extra material
+   * @return value from the strong side's view or <code>Evaluation.NOVALUE</code>
+   */
+  static int evaluate(Endgame endgame, Position position, Color strongSide) {
+    switch (endgame) {
+      case KPK:
+        return kpk(position, strongSide);
+      case KBNK:
+        return kbnk(position, strongSide);
+      case KRKP:
+        return krkp(position, strongSide);
+      case KQKR:
+        return kqkr(position, strongSide);
+      default:
+        return Evaluation.NOVALUE;
+    }
+  }
+
+  /**
+   * KPK - a pawn the weak king can't catch (rule of the square) is a win and a rook pawn with
+   * the weak king in front of it is a draw. Other positions are not recognized.
+   */
+  private static int kpk(Position position, Color strongSide) {
+    final Color weakSide = strongSide.getInverseColor();
+    final int pawn = index(position, strongSide, PAWN);
+    final int strongKing = position.getKingSquares()[strongSide.ordinal()].index64;
+    final int weakKing = position.getKingSquares()[weakSide.ordinal()].index64;
+    final int relativeRank = relativeRank(strongSide, pawn);
+    final int queeningSquare = (pawn & 7) + (strongSide.isWhite() ? 56 : 0);
+    final long frontFile = frontFile(strongSide, pawn);
+
+    // rook pawn with the weak king in front of it
+    if (((pawn & 7) == 0 || (pawn & 7) == 7) && (frontFile & (1L << weakKing)) != 0) {
+      return Evaluation.DRAW;
+    }
+
+    // rule of the square - the weak king can't catch the pawn if it is not blocked by its king
+    if ((frontFile & (1L << strongKing)) == 0) {
+      final int movesToPromote = Math.min(5, 7 - relativeRank);
+      final int tempo = position.getNextPlayer() == weakSide ? 1 : 0;
+      if (distance(weakKing, queeningSquare) - tempo > movesToPromote) {
+        return ROOK.getValue() + 40 * relativeRank;
+      }
+    }
+
+    return Evaluation.NOVALUE;
+  }
+
+  /**
+   * KBNK - the weak king has to be driven to a corner of the bishop's square color.
+   */
+  private static int kbnk(Position position, Color strongSide) {
+    final Color weakSide = strongSide.getInverseColor();
+    final int bishop = index(position, strongSide, BISHOP);
+    final int strongKing = position.getKingSquares()[strongSide.ordinal()].index64;
+    final int weakKing = position.getKingSquares()[weakSide.ordinal()].index64;
+
+    // a1 and h8 are dark squares
+    final boolean darkBishop = (((bishop >>> 3) + (bishop & 7)) & 1) == 0;
+    final int cornerDistance = darkBishop
+                               ? Math.min(distance(weakKing, 0), distance(weakKing, 63))
+                               : Math.min(distance(weakKing, 7), distance(weakKing, 56));
+
+    return BISHOP.getValue() + KNIGHT.getValue() + 20 * (7 - cornerDistance)
+           + pushToEdge(weakKing) + pushClose(strongKing, weakKing);
+  }
+
+  /**
+   * KQKR - generally a win. The weak king is driven to the edge.
+   */
+  private static int kqkr(Position position, Color strongSide) {
+    final Color weakSide = strongSide.getInverseColor();
+    final int strongKing = position.getKingSquares()[strongSide.ordinal()].index64;
+    final int weakKing = position.getKingSquares()[weakSide.ordinal()].index64;
+
+    return QUEEN.getValue() - ROOK.getValue() + pushToEdge(weakKing)
+           + pushClose(strongKing, weakKing);
+  }
+
+  /**
+   * KRKP - a win if the strong king is in front of the pawn or if the weak king is too far
+   * away from the pawn. Drawish if the pawn is far advanced and supported by its king.
+   */
+  private static int krkp(Position position, Color strongSide) {
+    final Color weakSide = strongSide.getInverseColor();
+    final int strongKing = position.getKingSquares()[strongSide.ordinal()].index64;
+    final int weakKing = position.getKingSquares()[weakSide.ordinal()].index64;
+    final int rook = index(position, strongSide, ROOK);
+    final int pawn = index(position, weakSide, PAWN);
+    final int queeningSquare = (pawn & 7) + (weakSide.isWhite() ? 56 : 0);
+    final int stopSquare = weakSide.isWhite() ? pawn + 8 : pawn - 8;
+    final boolean strongToMove = position.getNextPlayer() == strongSide;
+
+    // strong king in front of the pawn
+    if ((frontFile(weakSide, pawn) & (1L << strongKing)) != 0) {
+      return ROOK.getValue() - distance(strongKing, pawn);
+    }
+    // weak king too far away from the pawn and the rook
+    if (distance(weakKing, pawn) >= 3 + (strongToMove ? 0 : 1)
+        && distance(weakKing, rook) >= 3) {
+      return ROOK.getValue() - distance(strongKing, pawn);
+    }
+    // pawn far advanced and supported by the weak king, the strong king is too far away
+    if (relativeRank(strongSide, weakKing) <= 2
+        && distance(weakKing, pawn) == 1
+        && relativeRank(strongSide, strongKing) >= 3
+        && distance(strongKing, pawn) > 2 + (strongToMove ? 1 : 0)) {
+      return 80 - 8 * distance(strongKing, pawn);
+    }
+    return 200 - 8 * (distance(strongKing, stopSquare) - distance(weakKing, stopSquare)
+                      - distance(pawn, queeningSquare));
+  }
+
+  /**
+   * @return the 64 square index of the first piece of the given type and color
+   */
+  private static int index(Position position, Color color, PieceType type) {
+    return Long.numberOfTrailingZeros(position.getPiecesBitboards(color, type));
+  }
+
+  /**
+   * @return the rank of the square from the view of the given color (0-7)
+   */
+  private static int relativeRank(Color color, int square) {
+    return color.isWhite() ? square >>> 3 : 7 - (square >>> 3);
+  }
+
+  /**
+   * @return bitboard of the squares in front of a pawn of the given color on its file
+   */
+  private static long frontFile(Color color, int square) {
+    return Bitboard.getPassedPawnMask(color, square) & Bitboard.getFileMask(square & 7);
+  }
+
+  /**
+   * @return number of king moves between the two squares
+   */
+  static int distance(int square1, int square2) {
+    return Math.max(Math.abs((square1 >>> 3) - (square2 >>> 3)),
+                    Math.abs((square1 & 7) - (square2 & 7)));
+  }
+
+  /**
+   * @return bonus for a king on the edge (0 in the center and 60 in a corner)
+   */
+  private static int pushToEdge(int square) {
+    final int file = square & 7;
+    final int rank = square >>> 3;
+    return 10 * (Math.max(3 - file, file - 4) + Math.max(3 - rank, rank - 4));
+  }
+
+  /**
+   * @return bonus for kings close to each other (0 for distance 7 and 60 for distance 1)
+   */
+  private static int pushClose(int square1, int square2) {
+    return 10 * (7 - distance(square1, square2));
+  }
+}
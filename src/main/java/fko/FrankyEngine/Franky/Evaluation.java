@@ -41,19 +41,21 @@ import static fko.FrankyEngine.Franky.Square.*;
  * <p>
  * Features/Ideas:
  * DONE: Material
- * DONE: Mobility
+ * DONE: Mobility (with bitboard attack maps)
  * DONE: Game Phase
  * TODO: Development (http://archive.gamedev.net/archive/reference/articles/article1208.html)
  * DONE: Piece Tables (http://www.chessbin.com/post/Chess-Board-Evaluation)
  * DONE: Tapered Eval (https://www.chessprogramming.org/Tapered_Eval)
- * TODO: Lazy Evaluation
+ * DONE: Lazy Evaluation
  * DONE: Bishop Pair
  * TODO: Bishop vs. Knight
  * TODO: Center Control
  * TODO: Center Distance
  * TODO: Square Control
  * TODO: King Protection
- * TODO: Pawn Structure
+ * DONE: Pawn Structure (with pawn hash table)
+ * DONE: Threats and hanging pieces
+ * DONE: Endgame scale factors and known endgames (with material hash table)
  * TODO: King Safety
  * TODO: Board control
  */
@@ -72,25 +74,47 @@ public class Evaluation {
   public static final int CHECKMATE           = MAX;
   public static final int CHECKMATE_THRESHOLD = CHECKMATE - Byte.MAX_VALUE;
 
+  // size of a swap list buffer for see() - there are never more captures on a square than pieces
+  public static final int SEE_GAIN_SIZE = 32;
+
   // Convenience constants
   private static final int WHITE = Color.WHITE.ordinal();
   private static final int BLACK = Color.BLACK.ordinal();
 
   // Evaluation Results
-  private int value                = 0;
-  private int special              = 0;
-  private int material             = 0;
-  private int piecePosition        = 0;
-  private int mobility             = 0;
-  private int kingSafety           = 0;
-  private int midGameMaterial      = 0;
-  private int endGameMaterial      = 0;
-  private int midGamePiecePosition = 0;
-  private int endGamePiecePosition = 0;
-  private int midGameMobility      = 0;
-  private int endGameMobility      = 0;
-  private int midGameKingSafety    = 0;
-  private int endGameKingSafety    = 0;
+  private int value   = 0;
+  private int special = 0;
+
+  // Evaluation Results as packed mid and end game values (see Score)
+  private int materialScore      = Score.ZERO;
+  private int piecePositionScore = Score.ZERO;
+  private int mobilityScore      = Score.ZERO;
+  private int kingSafetyScore    = Score.ZERO;
+  private int pawnStructureScore = Score.ZERO;
+  private int threatsScore       = Score.ZERO;
+
+  // game phase of the evaluated position for tapering the scores
+  private int gamePhase = 0;
+
+  // passed pawns of both colors from the pawn hash table
+  private final long[] passedPawns = new long[2];
+
+  // cache for pawn structure evaluations
+  private final PawnHashTable pawnHashTable;
+
+  // cache for material configurations - end game scale factors and endgame evaluations
+  private final MaterialHashTable materialHashTable;
+
+  // end game scale factors for both colors as stronger side from the material hash table
+  private final int[] scaleFactor = new int[2];
+
+  // squares attacked by each color and piece type and by all pieces of a color - built once
+  // per evaluation in buildAttackMaps()
+  private final long[][] attacks    = new long[2][PieceType.values.length];
+  private final long[]   allAttacks = new long[2];
+
+  // last evaluation returned early (lazy evaluation)
+  private boolean lazy = false;
 
   // Convenience fields - improve readability
   private Position     position;
@@ -107,6 +131,8 @@ public class Evaluation {
    * Creates an instance of the Evaluator
    */
   public Evaluation() {
+    pawnHashTable = new PawnHashTable(PAWN_HASH_SIZE);
+    materialHashTable = new MaterialHashTable(MATERIAL_HASH_SIZE);
   }
 
   /**
@@ -143,11 +169,39 @@ public class Evaluation {
    */
   public int evaluate(Position position) {
     setPosition(position);
-    final int evaluation = evaluate();
+    final int evaluation = evaluate(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    if (DEBUG) printEvaluation();
+    return evaluation;
+  }
+
+  /**
+   * Lazy evaluation of the position. Material and piece square tables are evaluated first. If
+   * this value is more than <code>margin</code> below alpha or above beta it is returned
+   * without evaluating mobility, king safety and threats. Otherwise the full evaluation is
+   * returned.
+   * <p>
+   * <code>wasLazy()</code> tells if the last evaluation returned early.
+   *
+   * @param position
+   * @param alpha
+   * @param beta
+   * @param margin maximal expected value of the skipped evaluation terms
+   * @return value of the position from active player's view.
+   */
+  public int evaluate(Position position, int alpha, int beta, int margin) {
+    setPosition(position);
+    final int evaluation = evaluate(alpha - margin, beta + margin);
     if (DEBUG) printEvaluation();
     return evaluation;
   }
 
+  /**
+   * @return true if the last evaluation returned early without mobility, king safety and threats
+   */
+  public boolean wasLazy() {
+    return lazy;
+  }
+
   private void printEvaluation() {
     LOG.debug("========================================================"
               + "==================================");
@@ -155,18 +209,21 @@ public class Evaluation {
     LOG.debug(String.format("%n%s", position.toBoardString()));
     LOG.debug(String.format("Position has check? %s", position.hasCheck()));
     LOG.debug(String.format("Next Move: %s", position.getNextPlayer().toString()));
-    LOG.debug(String.format("Gamephase:                 %5d (%,.2f)", position.getGamePhaseValue(),
-                            position.getGamePhaseFactor()));
+    LOG.debug(String.format("Gamephase:                 %5d (%,.2f)", gamePhase,
+                            (float) gamePhase / Position.GAME_PHASE_MAX));
     LOG.debug("-----------------------------------------------");
-    LOG.debug(String.format("Material:                  %5d (%5d, %5d)", material, midGameMaterial,
-                            endGameMaterial));
-    LOG.debug(String.format("Piece Position             %5d (%5d, %5d)", piecePosition,
-                            midGamePiecePosition, endGamePiecePosition));
-    LOG.debug(String.format("Mobility:                  %5d (%5d, %5d)", mobility, midGameMobility,
-                            endGameMobility));
-    LOG.debug(
-      String.format("King Safety:               %5d (%5d, %5d)", kingSafety, midGameKingSafety,
-                    endGameKingSafety));
+    LOG.debug(String.format("Material:                  %5d %s", taper(materialScore),
+                            Score.toString(materialScore)));
+    LOG.debug(String.format("Piece Position             %5d %s", taper(piecePositionScore),
+                            Score.toString(piecePositionScore)));
+    LOG.debug(String.format("Mobility:                  %5d %s", taper(mobilityScore),
+                            Score.toString(mobilityScore)));
+    LOG.debug(String.format("King Safety:               %5d %s", taper(kingSafetyScore),
+                            Score.toString(kingSafetyScore)));
+    LOG.debug(String.format("Pawn Structure:            %5d %s", taper(pawnStructureScore),
+                            Score.toString(pawnStructureScore)));
+    LOG.debug(String.format("Threats:                   %5d %s", taper(threatsScore),
+                            Score.toString(threatsScore)));
     LOG.debug(String.format("Special:                   %5d ", special));
     LOG.debug("-----------------------------------------------");
     LOG.debug(String.format("Evaluation                 %5d ", value));
@@ -175,10 +232,11 @@ public class Evaluation {
   /**
    * Evaluates the position.
    *
+   * @param lowerBound lazy evaluation returns early if the material and position value is below
+   * @param upperBound lazy evaluation returns early if the material and position value is above
    * @return value of the position from active player's view.
    */
-
-  private int evaluate() {
+  private int evaluate(int lowerBound, int upperBound) {
 
     // protect against null position
     if (position == null) {
@@ -188,13 +246,18 @@ public class Evaluation {
     }
 
     // if not enough material on the board for a win then it is a draw
+    lazy = false;
     if (position.checkInsufficientMaterial()) return Evaluation.DRAW;
 
     // Clear all evaluation values
     clearValues();
 
-    final float phaseFactorMid = position.getGamePhaseFactor();
-    final float phaseFactorEnd = 1f - phaseFactorMid;
+    // known endgames have a specialized evaluation
+    final int endgameValue = materialConfigurationEvaluation();
+    if (endgameValue != NOVALUE) {
+      value = endgameValue;
+      return limitValue(value);
+    }
 
     /*
      * Ideally evaluate in 3 Stages to avoid doing certain loop multiple times
@@ -206,62 +269,215 @@ public class Evaluation {
     // Stage 1
     staticEvaluations();
 
-    material = (int) (midGameMaterial * phaseFactorMid + endGameMaterial * phaseFactorEnd);
-
-    // Stage 2
-    iterateOverPieces();
+    pieceSquareEvaluation();
 
-    piecePosition =
-      (int) (midGamePiecePosition * phaseFactorMid + endGamePiecePosition * phaseFactorEnd);
+    pawnStructureEvaluation();
 
-    mobility = (int) (midGameMobility * phaseFactorMid + endGameMobility * phaseFactorEnd);
+    // Lazy evaluation - skip the expensive evaluations if we are far outside the window
+    // @formatter:off
+    int score = materialScore      * MATERIAL_WEIGHT +
+                piecePositionScore * POSITION_WEIGHT +
+                pawnStructureScore * PAWN_STRUCTURE_WEIGHT;
+    // @formatter:on
+    value = taperScaled(score) + special;
+    if (value < lowerBound || value > upperBound) {
+      lazy = true;
+      return limitValue(value);
+    }
 
-    kingSafety = (int) (midGameKingSafety * phaseFactorMid + endGameKingSafety * phaseFactorEnd);
+    // Stage 2
+    iterateOverPieces();
 
     // Stage 3
     iterateOverSquares();
 
     // ######################################
-    // Sum up
+    // Sum up - all scores are summed up with their weights and tapered once
     // @formatter:off
-    value = material      * MATERIAL_WEIGHT +
-            piecePosition * POSITION_WEIGHT +
-            mobility      * MOBILITY_WEIGHT +
-            kingSafety    * KING_SAFETY_WEIGHT +
-            special;
+    score = materialScore      * MATERIAL_WEIGHT +
+            piecePositionScore * POSITION_WEIGHT +
+            pawnStructureScore * PAWN_STRUCTURE_WEIGHT +
+            mobilityScore      * MOBILITY_WEIGHT +
+            kingSafetyScore    * KING_SAFETY_WEIGHT +
+            threatsScore       * THREATS_WEIGHT;
     // @formatter:on
+    value = taperScaled(score) + special;
     // Sum up per game phase
     // ######################################
 
-    // In very rare cases evaluation can be below or above the MIN or MAX.
-    // Mostly in artificial cases with many queens - some test cases do this.
-    // Therefore we limit the value to MIN+1 or MAX-1.
-    if (value <= -Evaluation.CHECKMATE_THRESHOLD) value = -Evaluation.CHECKMATE_THRESHOLD + 1;
-    else if (value >= Evaluation.CHECKMATE_THRESHOLD) value = Evaluation.CHECKMATE_THRESHOLD - 1;
+    return limitValue(value);
+  }
+
+  /**
+   * @param score packed mid and end game score
+   * @return the score tapered with the game phase of the evaluated position
+   */
+  private int taper(int score) {
+    return Score.taper(score, gamePhase);
+  }
+
+  /**
+   * The end game value is scaled with the scale factor of the side it favors.
+   *
+   * @param score packed mid and end game score
+   * @return the scaled score tapered with the game phase of the evaluated position
+   */
+  private int taperScaled(int score) {
+    final int endGame = Score.endGame(score);
+    final int scale = scaleFactor[endGame > 0 ? nextToMove : opponent];
+    if (scale == MaterialHashTable.SCALE_NORMAL) return Score.taper(score, gamePhase);
+    return Score.taper(
+      Score.make(Score.midGame(score), endGame * scale / MaterialHashTable.SCALE_NORMAL),
+      gamePhase);
+  }
 
+  /**
+   * In very rare cases evaluation can be below or above the MIN or MAX.
+   * Mostly in artificial cases with many queens - some test cases do this.
+   * Therefore we limit the value to MIN+1 or MAX-1.
+   */
+  private static int limitValue(int value) {
+    if (value <= -Evaluation.CHECKMATE_THRESHOLD) return -Evaluation.CHECKMATE_THRESHOLD + 1;
+    else if (value >= Evaluation.CHECKMATE_THRESHOLD) return Evaluation.CHECKMATE_THRESHOLD - 1;
     return value;
   }
 
   private void clearValues() {
     value = 0;
-
     special = 0;
-    material = 0;
-    piecePosition = 0;
-    mobility = 0;
-    kingSafety = 0;
 
-    midGameMaterial = 0;
-    endGameMaterial = 0;
+    materialScore = Score.ZERO;
+    piecePositionScore = Score.ZERO;
+    mobilityScore = Score.ZERO;
+    kingSafetyScore = Score.ZERO;
+    pawnStructureScore = Score.ZERO;
+    threatsScore = Score.ZERO;
 
-    midGamePiecePosition = 0;
-    endGamePiecePosition = 0;
+    gamePhase = position.getGamePhaseValue();
+  }
 
-    midGameMobility = 0;
-    endGameMobility = 0;
+  /**
+   * The material configuration comes from the material hash table and is only analysed if it
+   * is not in the table. Sets the end game scale factors.
+   *
+   * @return value of a specialized endgame evaluation from the next player's view or
+   * <code>NOVALUE</code> if the general evaluation has to be used
+   */
+  private int materialConfigurationEvaluation() {
+    final long materialKey = position.getMaterialKey();
+    int index = materialHashTable.find(materialKey);
+    if (index < 0) index = evaluateMaterialConfiguration(materialKey);
+
+    scaleFactor[WHITE] = materialHashTable.getScaleFactor(index, Color.WHITE);
+    scaleFactor[BLACK] = materialHashTable.getScaleFactor(index, Color.BLACK);
+
+    final Endgame endgame = materialHashTable.getEndgame(index);
+    switch (endgame) {
+      case NONE:
+        return NOVALUE;
+      case OPPOSITE_BISHOPS:
+        // square color is the parity of file + rank
+        final int whiteBishop = bishopSquares[WHITE].get(0).index64;
+        final int blackBishop = bishopSquares[BLACK].get(0).index64;
+        if ((((whiteBishop >>> 3) + (whiteBishop & 7)) & 1)
+            != (((blackBishop >>> 3) + (blackBishop & 7)) & 1)) {
+          scaleFactor[WHITE] = Math.min(scaleFactor[WHITE], OPPOSITE_BISHOPS_SCALE);
+          scaleFactor[BLACK] = Math.min(scaleFactor[BLACK], OPPOSITE_BISHOPS_SCALE);
+        }
+        return NOVALUE;
+      default:
+        final Color strongSide = materialHashTable.getStrongSide(index);
+        final int endgameValue = EndgameEvaluation.evaluate(endgame, position, strongSide);
+        if (endgameValue == NOVALUE) return NOVALUE;
+        return strongSide.ordinal() == nextToMove ? endgameValue : -endgameValue;
+    }
+  }
+
+  /**
+   * Analyses the material configuration for scale factors and known endgames and stores it in
+   * the material hash table. A side without pawns needs more than a minor piece advantage to
+   * win.
+   *
+   * @param materialKey material key of the position
+   * @return index of the new material hash table entry
+   */
+  private int evaluateMaterialConfiguration(long materialKey) {
+    final int[] pawns = new int[2];
+    final int[] knights = new int[2];
+    final int[] bishops = new int[2];
+    final int[] rooks = new int[2];
+    final int[] queens = new int[2];
+    final int[] nonPawnMaterial = new int[2];
+    for (int color = WHITE; color <= BLACK; color++) {
+      final Color c = Color.values[color];
+      pawns[color] = count(materialKey, Piece.getPiece(PieceType.PAWN, c));
+      knights[color] = count(materialKey, Piece.getPiece(PieceType.KNIGHT, c));
+      bishops[color] = count(materialKey, Piece.getPiece(PieceType.BISHOP, c));
+      rooks[color] = count(materialKey, Piece.getPiece(PieceType.ROOK, c));
+      queens[color] = count(materialKey, Piece.getPiece(PieceType.QUEEN, c));
+      nonPawnMaterial[color] = knights[color] * PieceType.KNIGHT.getValue()
+                               + bishops[color] * PieceType.BISHOP.getValue()
+                               + rooks[color] * PieceType.ROOK.getValue()
+                               + queens[color] * PieceType.QUEEN.getValue();
+    }
 
-    midGameKingSafety = 0;
-    endGameKingSafety = 0;
+    // end game scale factors
+    final int[] scale = new int[2];
+    for (int strong = WHITE; strong <= BLACK; strong++) {
+      final int weak = 1 - strong;
+      final int advantage = nonPawnMaterial[strong] - nonPawnMaterial[weak];
+      scale[strong] = MaterialHashTable.SCALE_NORMAL;
+      if (pawns[strong] == 0 && advantage <= PieceType.BISHOP.getValue()) {
+        scale[strong] = nonPawnMaterial[strong] < PieceType.ROOK.getValue()
+                        ? MaterialHashTable.SCALE_DRAW
+                        : nonPawnMaterial[weak] <= PieceType.BISHOP.getValue()
+                          ? NO_PAWNS_SCALE_MINOR
+                          : NO_PAWNS_SCALE;
+      }
+      else if (pawns[strong] == 1 && advantage <= PieceType.BISHOP.getValue()) {
+        scale[strong] = ONE_PAWN_SCALE;
+      }
+    }
+
+    // known endgames
+    Endgame endgame = Endgame.NONE;
+    Color strongSide = Color.WHITE;
+    for (int strong = WHITE; strong <= BLACK; strong++) {
+      final int weak = 1 - strong;
+      final int strongPieces = knights[strong] + bishops[strong] + rooks[strong] + queens[strong];
+      final boolean weakBare = nonPawnMaterial[weak] == 0 && pawns[weak] == 0;
+      Endgame e = Endgame.NONE;
+      if (weakBare && pawns[strong] == 1 && strongPieces == 0) e = Endgame.KPK;
+      else if (weakBare && pawns[strong] == 0 && strongPieces == 2 && knights[strong] == 1
+               && bishops[strong] == 1) {
+        e = Endgame.KBNK;
+      }
+      else if (pawns[strong] == 0 && strongPieces == 1 && rooks[strong] == 1
+               && nonPawnMaterial[weak] == 0 && pawns[weak] == 1) {
+        e = Endgame.KRKP;
+      }
+      else if (pawns[strong] == 0 && strongPieces == 1 && queens[strong] == 1
+               && pawns[weak] == 0 && nonPawnMaterial[weak] == PieceType.ROOK.getValue()
+               && rooks[weak] == 1) {
+        e = Endgame.KQKR;
+      }
+      if (e != Endgame.NONE) {
+        endgame = e;
+        strongSide = Color.values[strong];
+      }
+    }
+    if (endgame == Endgame.NONE
+        && bishops[WHITE] == 1 && bishops[BLACK] == 1
+        && nonPawnMaterial[WHITE] == PieceType.BISHOP.getValue()
+        && nonPawnMaterial[BLACK] == PieceType.BISHOP.getValue()) {
+      endgame = Endgame.OPPOSITE_BISHOPS;
+    }
+
+    return materialHashTable.put(materialKey, scale[WHITE], scale[BLACK], endgame, strongSide);
+  }
+
+  private static int count(long materialKey, Piece piece) {
+    return (int) (materialKey >>> (Position.MATERIAL_KEY_BITS * piece.ordinal())) & 0xF;
   }
 
   private void staticEvaluations() {
@@ -273,7 +489,7 @@ public class Evaluation {
       position.isAttacked(position.getOpponent(), kingSquares[nextToMove]) ? CHECK_VALUE : 0;
 
     // TEMPO Bonus
-    special += TEMPO * position.getGamePhaseFactor();
+    special += TEMPO * gamePhase / Position.GAME_PHASE_MAX;
 
     materialEvaluation();
 
@@ -281,62 +497,159 @@ public class Evaluation {
 
   private void materialEvaluation() {
 
-    // midGameMaterial is incrementally counted in Position
-    midGameMaterial = position.getNextPlayer().direction * (position.getMaterial(Color.WHITE)
-                                                            - position.getMaterial(Color.BLACK));
+    // material is incrementally counted in Position
+    int material = position.getNextPlayer().direction * (position.getMaterial(Color.WHITE)
+                                                         - position.getMaterial(Color.BLACK));
 
     // bonus/malus for bishop pair
-    if (bishopSquares[nextToMove].size() >= 2) midGameMaterial += BISHOP_PAIR;
-    if (bishopSquares[opponent].size() >= 2) midGameMaterial -= BISHOP_PAIR;
+    if (bishopSquares[nextToMove].size() >= 2) material += BISHOP_PAIR;
+    if (bishopSquares[opponent].size() >= 2) material -= BISHOP_PAIR;
 
     // bonus/malus for knight pair
-    if (knightSquares[nextToMove].size() >= 2) midGameMaterial += KNIGHT_PAIR;
-    if (knightSquares[opponent].size() >= 2) midGameMaterial -= KNIGHT_PAIR;
+    if (knightSquares[nextToMove].size() >= 2) material += KNIGHT_PAIR;
+    if (knightSquares[opponent].size() >= 2) material -= KNIGHT_PAIR;
 
     // bonus/malus for rook pair
-    if (rookSquares[nextToMove].size() >= 2) midGameMaterial += ROOK_PAIR;
-    if (rookSquares[opponent].size() >= 2) midGameMaterial -= ROOK_PAIR;
+    if (rookSquares[nextToMove].size() >= 2) material += ROOK_PAIR;
+    if (rookSquares[opponent].size() >= 2) material -= ROOK_PAIR;
 
-    // for now they are always the same
-    // TODO: e.g. should reflect that in endgames certain combinations are
-    //  draws or mostly draws
-    endGameMaterial = midGameMaterial;
+    // for now mid and end game are always the same - drawish material combinations are
+    // handled with the end game scale factors from the material hash table
+    materialScore = Score.make(material, material);
   }
 
   /**
    * Iterates over all pieces for both colors and does all evaluations
-   * for this piece.
+   * for this piece. The attack maps are built first and are used by all
+   * later evaluations.
    */
   private void iterateOverPieces() {
 
-    evalPawns();
-    evalKnights();
-    evalBishops();
-    evalRooks();
-    evalQueens();
+    buildAttackMaps();
     evalKings();
+    evalThreats();
+
+  }
+
+  /**
+   * Piece square values are updated incrementally in the position and only the difference
+   * between both colors is needed here.
+   */
+  private void pieceSquareEvaluation() {
+    final Color next = position.getNextPlayer();
+    piecePositionScore +=
+      position.getPieceSquareScore(next) - position.getPieceSquareScore(next.getInverseColor());
+  }
+
+  /**
+   * Pawn structure values and passed pawns come from the pawn hash table and are only
+   * evaluated if the pawn structure is not in the table. The bonus for passed pawns with an
+   * empty stop square depends on other pieces and is added afterwards.
+   */
+  private void pawnStructureEvaluation() {
+    final long pawnKey = position.getPawnZobristKey();
+    int index = pawnHashTable.find(pawnKey);
+    if (index < 0) index = evaluatePawnStructure(pawnKey);
+
+    // table values are from white's view
+    final int sign = nextToMove == WHITE ? 1 : -1;
+    pawnStructureScore = sign * pawnHashTable.getScore(index);
+    passedPawns[WHITE] = pawnHashTable.getPassedPawns(index, Color.WHITE);
+    passedPawns[BLACK] = pawnHashTable.getPassedPawns(index, Color.BLACK);
+
+    final long occupied = position.getAllOccupiedBitboard();
+    for (int color = WHITE; color <= BLACK; color++) {
+      final int colorSign = color == nextToMove ? 1 : -1;
+      long passed = passedPawns[color];
+      while (passed != 0) {
+        final int square = Long.numberOfTrailingZeros(passed);
+        passed &= passed - 1;
+        final int stopSquare = color == WHITE ? square + 8 : square - 8;
+        if ((occupied & (1L << stopSquare)) == 0) {
+          final int relativeRank = color == WHITE ? square >>> 3 : 7 - (square >>> 3);
+          pawnStructureScore += colorSign * PAWN_PASSED_FREE[relativeRank];
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluates the pawn structure of both colors and stores it in the pawn hash table.
+   *
+   * @param pawnKey pawn zobrist key of the position
+   * @return index of the new pawn hash table entry
+   */
+  private int evaluatePawnStructure(long pawnKey) {
+    pawnStructureScore = Score.ZERO;
+    final long passedWhite = evaluatePawns(Color.WHITE, 1);
+    final long passedBlack = evaluatePawns(Color.BLACK, -1);
+    return pawnHashTable.put(pawnKey, pawnStructureScore, passedWhite, passedBlack);
+  }
+
+  /**
+   * Adds doubled, isolated, backward and passed pawn values of one color to the pawn
+   * structure values.
+   *
+   * @param color
+   * @param sign  1 for white and -1 for black as pawn structure values are from white's view
+   * @return bitboard of the passed pawns of the color
+   */
+  private long evaluatePawns(Color color, int sign) {
+    final long ownPawns = position.getPiecesBitboards(color, PAWN);
+    final long opponentPawns =
+      position.getPiecesBitboards(color.getInverseColor(), PAWN);
+    long passed = 0L;
+
+    long pawns = ownPawns;
+    while (pawns != 0) {
+      final int square = Long.numberOfTrailingZeros(pawns);
+      pawns &= pawns - 1;
+      final int file = square & 7;
+      final int relativeRank = color.isWhite() ? square >>> 3 : 7 - (square >>> 3);
+      final long frontSpan = Bitboard.getPassedPawnMask(color, square);
+      final long adjacentFiles = Bitboard.getAdjacentFilesMask(file);
+
+      // doubled - only the rear pawn is penalized and can't be passed
+      final boolean doubled = (ownPawns & frontSpan & Bitboard.getFileMask(file)) != 0;
+      if (doubled) {
+        pawnStructureScore += sign * PAWN_DOUBLED;
+      }
 
-    // for now they are always the same
-    // TODO: different mobility for mid and end game
-    endGameMobility = midGameMobility;
+      // isolated - no own pawns on the neighbouring files
+      if ((ownPawns & adjacentFiles) == 0) {
+        pawnStructureScore += sign * PAWN_ISOLATED;
+      }
+      // backward - no own pawns beside or behind on the neighbouring files and the stop
+      // square is attacked by an opponent pawn
+      else if ((ownPawns & adjacentFiles & ~frontSpan) == 0) {
+        final int stopSquare = color.isWhite() ? square + 8 : square - 8;
+        if ((Bitboard.getPawnAttacks(color, stopSquare) & opponentPawns) != 0) {
+          pawnStructureScore += sign * PAWN_BACKWARD;
+        }
+      }
 
+      // passed - no opponent pawns in front on the own or the neighbouring files
+      if (!doubled && (opponentPawns & frontSpan) == 0) {
+        pawnStructureScore += sign * PAWN_PASSED[relativeRank];
+        passed |= 1L << square;
+      }
+    }
+    return passed;
   }
 
   private void evalKings() {
+
+    // king zone - squares around the king attacked by opponent pieces other than the king
+    kingSafetyScore +=
+      KING_ZONE_ATTACK * (kingZoneAttacks(nextToMove) - kingZoneAttacks(opponent));
+
     { // ME
       Square nextToMoveKingSquare = kingSquares[nextToMove];
-      final int index = nextToMoveKingSquare.ordinal();
       assert (position.getPiece(nextToMoveKingSquare).getType() == PieceType.KING);
       assert (position.getPiece(nextToMoveKingSquare).getColor().ordinal() == nextToMove);
 
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += kingMidGame[tableIndex];
-      this.endGamePiecePosition += kingEndGame[tableIndex];
-
       // king safety - skip in endgame
-      if (position.getGamePhaseFactor() >= 0.5) {
+      if (gamePhase >= Position.GAME_PHASE_MAX / 2) {
 
         // king safety WHITE
         if (nextToMove == WHITE && kingSquares[nextToMove].getRank() == r1) {
@@ -344,43 +657,46 @@ public class Evaluation {
           // king side castle
           if (kingSquares[nextToMove].getFile().get() > f.get()) {
             // rook in the corner penalty
-            if (position.getPiece(h1) == WHITE_ROOK) {
-              midGamePiecePosition += CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(h1) == WHITE_ROOK.code) {
+              piecePositionScore += CORNERED_ROOK_PENALTY;
             }
             // pawns in front
-            if (position.getPiece(f2) == WHITE_PAWN) {
-              midGameKingSafety += 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(f2) == WHITE_PAWN.code) {
+              kingSafetyScore += 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(g2) == WHITE_PAWN || position.getPiece(g3) == WHITE_PAWN) {
-              midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(g2) == WHITE_PAWN.code
+                || position.getPieceCode(g3) == WHITE_PAWN.code) {
+              kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(h2) == WHITE_PAWN || position.getPiece(h3) == WHITE_PAWN) {
-              midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(h2) == WHITE_PAWN.code
+                || position.getPieceCode(h3) == WHITE_PAWN.code) {
+              kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
           }
           // queen side castle
           else if (kingSquares[nextToMove].getFile().get() < d.get()) {
             // queen side castle is weaker as king is more exposed
-            this.midGameKingSafety += -KING_SAFETY_PAWNSHIELD;
+            this.kingSafetyScore += -KING_SAFETY_PAWNSHIELD;
             // rook in the corner penalty
-            if (position.getPiece(a1) == WHITE_ROOK || position.getPiece(b1) == WHITE_ROOK) {
-              midGamePiecePosition += EvaluationConfig.CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(a1) == WHITE_ROOK.code
+                || position.getPieceCode(b1) == WHITE_ROOK.code) {
+              piecePositionScore += EvaluationConfig.CORNERED_ROOK_PENALTY;
             }
             // extra bonus for queen side castle and king on b or a file
             if (kingSquares[nextToMove].getFile().get() < c.get()) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
             // pawns in front
-            if (position.getPiece(c2).getType() == PAWN) {
-              this.midGameKingSafety += 2 * KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(c2)) == PAWN.ordinal()) {
+              this.kingSafetyScore += 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(b2).getType() == PAWN
-                || position.getPiece(b3).getType() == PAWN) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(b2)) == PAWN.ordinal()
+                || Piece.getTypeOrdinal(position.getPieceCode(b3)) == PAWN.ordinal()) {
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(a2).getType() == PAWN
-                || position.getPiece(a3).getType() == PAWN) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(a2)) == PAWN.ordinal()
+                || Piece.getTypeOrdinal(position.getPieceCode(a3)) == PAWN.ordinal()) {
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
           }
         }
@@ -389,41 +705,46 @@ public class Evaluation {
           // king side castle
           if (kingSquares[nextToMove].getFile().get() > e.get()) {
             // rook in the corner penalty
-            if (position.getPiece(h8) == BLACK_ROOK) {
-              midGamePiecePosition += CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(h8) == BLACK_ROOK.code) {
+              piecePositionScore += CORNERED_ROOK_PENALTY;
             }
             // pawns in front
-            if (position.getPiece(f7) == BLACK_PAWN) {
-              midGameKingSafety += 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(f7) == BLACK_PAWN.code) {
+              kingSafetyScore += 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(g7) == BLACK_PAWN || position.getPiece(g6) == BLACK_PAWN) {
-              midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(g7) == BLACK_PAWN.code
+                || position.getPieceCode(g6) == BLACK_PAWN.code) {
+              kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(h7) == BLACK_PAWN || position.getPiece(h6) == BLACK_PAWN) {
-              midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(h7) == BLACK_PAWN.code
+                || position.getPieceCode(h6) == BLACK_PAWN.code) {
+              kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
           }
           // queen side castle
           else if (kingSquares[nextToMove].getFile().get() < d.get()) {
             // queen side castle is weaker as king is more exposed
-            this.midGameKingSafety += -KING_SAFETY_PAWNSHIELD;
+            this.kingSafetyScore += -KING_SAFETY_PAWNSHIELD;
             // rook in the corner penalty
-            if (position.getPiece(a8) == BLACK_ROOK || position.getPiece(b8) == BLACK_ROOK) {
-              midGamePiecePosition += EvaluationConfig.CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(a8) == BLACK_ROOK.code
+                || position.getPieceCode(b8) == BLACK_ROOK.code) {
+              piecePositionScore += EvaluationConfig.CORNERED_ROOK_PENALTY;
             }
             // extra bonus for queen side castle and king on b or a file
             if (kingSquares[nextToMove].getFile().get() < c.get()) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
             // pawns in front
-            if (position.getPiece(c7) == BLACK_PAWN) {
-              this.midGameKingSafety += 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(c7) == BLACK_PAWN.code) {
+              this.kingSafetyScore += 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(b7) == BLACK_PAWN || position.getPiece(b6) == BLACK_PAWN) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(b7) == BLACK_PAWN.code
+                || position.getPieceCode(b6) == BLACK_PAWN.code) {
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(a7) == BLACK_PAWN || position.getPiece(a6) == BLACK_PAWN) {
-              this.midGameKingSafety += KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(a7) == BLACK_PAWN.code
+                || position.getPieceCode(a6) == BLACK_PAWN.code) {
+              this.kingSafetyScore += KING_SAFETY_PAWNSHIELD;
             }
           }
         }
@@ -432,18 +753,11 @@ public class Evaluation {
 
     { // OPPONENT
       Square opponentKingSquare = kingSquares[opponent];
-      final int index = opponentKingSquare.ordinal();
       assert (position.getPiece(opponentKingSquare).getType() == PieceType.KING);
       assert (position.getPiece(opponentKingSquare).getColor().ordinal() == opponent);
 
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= kingMidGame[tableIndex];
-      this.endGamePiecePosition -= kingEndGame[tableIndex];
-
       // king safety - skip in endgame
-      if (position.getGamePhaseFactor() >= 0.5) {
+      if (gamePhase >= Position.GAME_PHASE_MAX / 2) {
 
         // king safety WHITE
         if (opponent == WHITE && kingSquares[opponent].getRank() == r1) {
@@ -451,43 +765,46 @@ public class Evaluation {
           // king side castle
           if (kingSquares[opponent].getFile().get() > e.get()) {
             // rook in the corner penalty
-            if (position.getPiece(h1) == WHITE_ROOK) {
-              midGamePiecePosition -= CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(h1) == WHITE_ROOK.code) {
+              piecePositionScore -= CORNERED_ROOK_PENALTY;
             }
             // pawns in front
-            if (position.getPiece(f2) == WHITE_PAWN) {
-              midGameKingSafety -= 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(f2) == WHITE_PAWN.code) {
+              kingSafetyScore -= 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(g2) == WHITE_PAWN || position.getPiece(g3) == WHITE_PAWN) {
-              midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(g2) == WHITE_PAWN.code
+                || position.getPieceCode(g3) == WHITE_PAWN.code) {
+              kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(h2) == WHITE_PAWN || position.getPiece(h3) == WHITE_PAWN) {
-              midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(h2) == WHITE_PAWN.code
+                || position.getPieceCode(h3) == WHITE_PAWN.code) {
+              kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
           }
           // queen side castle
           else if (kingSquares[opponent].getFile().get() < e.get()) {
             // queen side castle is weaker as king is more exposed
-            this.midGameKingSafety += -KING_SAFETY_PAWNSHIELD;
+            this.kingSafetyScore += -KING_SAFETY_PAWNSHIELD;
             // rook in the corner penalty
-            if (position.getPiece(a1) == WHITE_ROOK || position.getPiece(b1) == WHITE_ROOK) {
-              midGamePiecePosition -= EvaluationConfig.CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(a1) == WHITE_ROOK.code
+                || position.getPieceCode(b1) == WHITE_ROOK.code) {
+              piecePositionScore -= EvaluationConfig.CORNERED_ROOK_PENALTY;
             }
             // extra bonus for queen side castle and king on b or a file
             if (kingSquares[opponent].getFile().get() < c.get()) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
             // pawns in front
-            if (position.getPiece(c2).getType() == PAWN) {
-              this.midGameKingSafety -= 2 * KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(c2)) == PAWN.ordinal()) {
+              this.kingSafetyScore -= 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(b2).getType() == PAWN
-                || position.getPiece(b3).getType() == PAWN) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(b2)) == PAWN.ordinal()
+                || Piece.getTypeOrdinal(position.getPieceCode(b3)) == PAWN.ordinal()) {
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(a2).getType() == PAWN
-                || position.getPiece(a3).getType() == PAWN) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (Piece.getTypeOrdinal(position.getPieceCode(a2)) == PAWN.ordinal()
+                || Piece.getTypeOrdinal(position.getPieceCode(a3)) == PAWN.ordinal()) {
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
           }
         }
@@ -497,41 +814,46 @@ public class Evaluation {
           // king side castle
           if (kingSquares[opponent].getFile().get() > e.get()) {
             // rook in the corner penalty
-            if (position.getPiece(h8) == BLACK_ROOK) {
-              midGamePiecePosition -= CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(h8) == BLACK_ROOK.code) {
+              piecePositionScore -= CORNERED_ROOK_PENALTY;
             }
             // pawns in front
-            if (position.getPiece(f7) == BLACK_PAWN) {
-              midGameKingSafety -= 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(f7) == BLACK_PAWN.code) {
+              kingSafetyScore -= 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(g7) == BLACK_PAWN || position.getPiece(g6) == BLACK_PAWN) {
-              midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(g7) == BLACK_PAWN.code
+                || position.getPieceCode(g6) == BLACK_PAWN.code) {
+              kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(h7) == BLACK_PAWN || position.getPiece(h6) == BLACK_PAWN) {
-              midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(h7) == BLACK_PAWN.code
+                || position.getPieceCode(h6) == BLACK_PAWN.code) {
+              kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
           }
           // queen side castle
           else if (kingSquares[opponent].getFile().get() < d.get()) {
             // queen side castle is weaker as king is more exposed
-            this.midGameKingSafety -= -KING_SAFETY_PAWNSHIELD;
+            this.kingSafetyScore -= -KING_SAFETY_PAWNSHIELD;
             // rook in the corner penalty
-            if (position.getPiece(a8) == BLACK_ROOK || position.getPiece(b8) == BLACK_ROOK) {
-              midGamePiecePosition -= EvaluationConfig.CORNERED_ROOK_PENALTY;
+            if (position.getPieceCode(a8) == BLACK_ROOK.code
+                || position.getPieceCode(b8) == BLACK_ROOK.code) {
+              piecePositionScore -= EvaluationConfig.CORNERED_ROOK_PENALTY;
             }
             // extra bonus for queen side castle and king on b or a file
             if (kingSquares[opponent].getFile().get() < c.get()) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
             // pawns in front
-            if (position.getPiece(c7) == BLACK_PAWN) {
-              this.midGameKingSafety -= 2 * KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(c7) == BLACK_PAWN.code) {
+              this.kingSafetyScore -= 2 * KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(b7) == BLACK_PAWN || position.getPiece(b6) == BLACK_PAWN) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(b7) == BLACK_PAWN.code
+                || position.getPieceCode(b6) == BLACK_PAWN.code) {
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
-            if (position.getPiece(a7) == BLACK_PAWN || position.getPiece(a6) == BLACK_PAWN) {
-              this.midGameKingSafety -= KING_SAFETY_PAWNSHIELD;
+            if (position.getPieceCode(a7) == BLACK_PAWN.code
+                || position.getPieceCode(a6) == BLACK_PAWN.code) {
+              this.kingSafetyScore -= KING_SAFETY_PAWNSHIELD;
             }
           }
         }
@@ -539,212 +861,98 @@ public class Evaluation {
     }
   }
 
-  private void evalQueens() {
-    for (int i = 0; i < queenSquares[nextToMove].size(); i++) {
-      Square square = queenSquares[nextToMove].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.QUEEN);
-      assert (position.getPiece(square).getColor().ordinal() == nextToMove);
-
-      // midGameMobility
-      midGameMobility +=
-        QUEEN_MOBILITY_FACTOR * mobilityForPiece(PieceType.QUEEN, square, queenDirections);
-
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += queenMidGame[tableIndex];
-      this.endGamePiecePosition += queenEndGame[tableIndex];
-    }
-    for (int i = 0; i < queenSquares[opponent].size(); i++) {
-      Square square = queenSquares[opponent].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.QUEEN);
-      assert (position.getPiece(square).getColor().ordinal() == opponent);
-
-      // midGameMobility
-      midGameMobility -=
-        QUEEN_MOBILITY_FACTOR * mobilityForPiece(PieceType.QUEEN, square, queenDirections);
-
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= queenMidGame[tableIndex];
-      this.endGamePiecePosition -= queenEndGame[tableIndex];
-    }
-  }
-
-  private void evalRooks() {
-    for (int i = 0; i < rookSquares[nextToMove].size(); i++) {
-      Square square = rookSquares[nextToMove].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.ROOK);
-      assert (position.getPiece(square).getColor().ordinal() == nextToMove);
-
-      // midGameMobility
-      midGameMobility +=
-        ROOK_MOBILITY_FACTOR * mobilityForPiece(PieceType.ROOK, square, rookDirections);
-
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += rookMidGame[tableIndex];
-      this.endGamePiecePosition += rookEndGame[tableIndex];
-    }
-    for (int i = 0; i < rookSquares[opponent].size(); i++) {
-      Square square = rookSquares[opponent].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.ROOK);
-      assert (position.getPiece(square).getColor().ordinal() == opponent);
-
-      // midGameMobility
-      midGameMobility -=
-        ROOK_MOBILITY_FACTOR * mobilityForPiece(PieceType.ROOK, square, rookDirections);
-
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= rookMidGame[tableIndex];
-      this.endGamePiecePosition -= rookEndGame[tableIndex];
-    }
+  /**
+   * @param color
+   * @return number of squares around the king of the color attacked by opponent pieces
+   */
+  private int kingZoneAttacks(int color) {
+    final int other = 1 - color;
+    return Long.bitCount(Bitboard.getKingAttacks(kingSquares[color].index64)
+                         & allAttacks[other] & ~attacks[other][PieceType.KING.ordinal()]);
   }
 
-  private void evalBishops() {
-    for (int i = 0; i < bishopSquares[nextToMove].size(); i++) {
-      Square square = bishopSquares[nextToMove].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.BISHOP);
-      assert (position.getPiece(square).getColor().ordinal() == nextToMove);
-
-      // midGameMobility
-      midGameMobility +=
-        BISHOP_MOBILITY_FACTOR * mobilityForPiece(PieceType.BISHOP, square, bishopDirections);
-
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += bishopMidGame[tableIndex];
-      this.endGamePiecePosition += bishopEndGame[tableIndex];
-
-    }
-    for (int i = 0; i < bishopSquares[opponent].size(); i++) {
-      Square square = bishopSquares[opponent].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.BISHOP);
-      assert (position.getPiece(square).getColor().ordinal() == opponent);
-
-      // midGameMobility
-      midGameMobility -=
-        BISHOP_MOBILITY_FACTOR * mobilityForPiece(PieceType.BISHOP, square, bishopDirections);
-
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= bishopMidGame[tableIndex];
-      this.endGamePiecePosition -= bishopEndGame[tableIndex];
-    }
-  }
+  /**
+   * Builds the attack maps of both colors with bitboard attacks and evaluates mobility as the
+   * number of attacked squares not occupied by own pieces.
+   */
+  private void buildAttackMaps() {
+    final long occupied = position.getAllOccupiedBitboard();
+    for (int color = WHITE; color <= BLACK; color++) {
+      final Color c = Color.values[color];
+      final long[] pieces = position.getPiecesBitboards(c);
+      final long[] attacked = attacks[color];
+      final long notOwn = ~position.getOccupiedBitboards(c);
+      int mobility = Score.ZERO;
+
+      long pawnAttacks = 0L;
+      for (long bb = pieces[PAWN.ordinal()]; bb != 0; bb &= bb - 1) {
+        pawnAttacks |= Bitboard.getPawnAttacks(c, Long.numberOfTrailingZeros(bb));
+      }
+      attacked[PAWN.ordinal()] = pawnAttacks;
 
-  private void evalKnights() {
-    for (int i = 0; i < knightSquares[nextToMove].size(); i++) {
-      Square square = knightSquares[nextToMove].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.KNIGHT);
-      assert (position.getPiece(square).getColor().ordinal() == nextToMove);
+      long knightAttacks = 0L;
+      for (long bb = pieces[PieceType.KNIGHT.ordinal()]; bb != 0; bb &= bb - 1) {
+        final long a = Bitboard.getKnightAttacks(Long.numberOfTrailingZeros(bb));
+        knightAttacks |= a;
+        mobility += KNIGHTS_MOBILITY_FACTOR * Long.bitCount(a & notOwn);
+      }
+      attacked[PieceType.KNIGHT.ordinal()] = knightAttacks;
 
-      // midGameMobility
-      midGameMobility +=
-        KNIGHTS_MOBILITY_FACTOR * mobilityForPiece(PieceType.KNIGHT, square, knightDirections);
+      long bishopAttacks = 0L;
+      for (long bb = pieces[PieceType.BISHOP.ordinal()]; bb != 0; bb &= bb - 1) {
+        final long a = Bitboard.getBishopAttacks(Long.numberOfTrailingZeros(bb), occupied);
+        bishopAttacks |= a;
+        mobility += BISHOP_MOBILITY_FACTOR * Long.bitCount(a & notOwn);
+      }
+      attacked[PieceType.BISHOP.ordinal()] = bishopAttacks;
 
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += knightMidGame[tableIndex];
-      this.endGamePiecePosition += knightEndGame[tableIndex];
+      long rookAttacks = 0L;
+      for (long bb = pieces[PieceType.ROOK.ordinal()]; bb != 0; bb &= bb - 1) {
+        final long a = Bitboard.getRookAttacks(Long.numberOfTrailingZeros(bb), occupied);
+        rookAttacks |= a;
+        mobility += ROOK_MOBILITY_FACTOR * Long.bitCount(a & notOwn);
+      }
+      attacked[PieceType.ROOK.ordinal()] = rookAttacks;
 
-    }
-    for (int i = 0; i < knightSquares[opponent].size(); i++) {
-      Square square = knightSquares[opponent].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PieceType.KNIGHT);
-      assert (position.getPiece(square).getColor().ordinal() == opponent);
-
-      // midGameMobility
-      midGameMobility -=
-        KNIGHTS_MOBILITY_FACTOR * mobilityForPiece(PieceType.KNIGHT, square, knightDirections);
-
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= knightMidGame[tableIndex];
-      this.endGamePiecePosition -= knightEndGame[tableIndex];
-    }
-  }
+      long queenAttacks = 0L;
+      for (long bb = pieces[PieceType.QUEEN.ordinal()]; bb != 0; bb &= bb - 1) {
+        final long a = Bitboard.getQueenAttacks(Long.numberOfTrailingZeros(bb), occupied);
+        queenAttacks |= a;
+        mobility += QUEEN_MOBILITY_FACTOR * Long.bitCount(a & notOwn);
+      }
+      attacked[PieceType.QUEEN.ordinal()] = queenAttacks;
 
-  private void evalPawns() {
-    for (int i = 0; i < pawnSquares[nextToMove].size(); i++) {
-      Square square = pawnSquares[nextToMove].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PAWN);
-      assert (position.getPiece(square).getColor().ordinal() == nextToMove);
+      attacked[PieceType.KING.ordinal()] = Bitboard.getKingAttacks(kingSquares[color].index64);
 
-      // position
-      final int tableIndex =
-        nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition += pawnsMidGame[tableIndex];
-      this.endGamePiecePosition += pawnsEndGame[tableIndex];
+      allAttacks[color] = pawnAttacks | knightAttacks | bishopAttacks | rookAttacks | queenAttacks
+                          | attacked[PieceType.KING.ordinal()];
 
-    }
-    for (int i = 0; i < pawnSquares[opponent].size(); i++) {
-      Square square = pawnSquares[opponent].get(i);
-      final int index = square.ordinal();
-      assert (position.getPiece(square).getType() == PAWN);
-      assert (position.getPiece(square).getColor().ordinal() == opponent);
-
-      // position
-      final int tableIndex =
-        opponent == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-      this.midGamePiecePosition -= pawnsMidGame[tableIndex];
-      this.endGamePiecePosition -= pawnsEndGame[tableIndex];
+      mobilityScore += color == nextToMove ? mobility : -mobility;
     }
   }
 
   /**
-   * @param type
-   * @param square
-   * @param pieceDirections
+   * Threats against pieces - pieces attacked by pawns, rooks and queens attacked by minor
+   * pieces and pieces which are attacked but not defended (hanging).
    */
-  private int mobilityForPiece(PieceType type, Square square, int[] pieceDirections) {
-
-    int numberOfMoves = 0;
-    for (int d : pieceDirections) {
-      int to = square.ordinal() + d;
-      while ((to & 0x88) == 0) { // slide while valid square
-        final Piece target = position.getPiece(Square.getSquare(to));
-        // free square - no capture
-        if (target == NOPIECE) {
-          numberOfMoves++;
-        }
-        // occupied square - capture if opponent and stop sliding
-        else {
-          /*
-           * Either only count moves which capture an opponent's piece or also
-           * count moves which defend one of our own piece
-           */
-          //if (target.getColor() == color.getInverseColor())
-          numberOfMoves++;
-          break; // stop sliding;
-        }
-
-        if (type.isSliding()) {
-          to += d; // next sliding field in this direction
-        }
-        else {
-          break; // no sliding piece type
-        }
-      }
+  private void evalThreats() {
+    for (int color = WHITE; color <= BLACK; color++) {
+      final int other = 1 - color;
+      final long[] ownAttacks = attacks[color];
+      final long[] pieces = position.getPiecesBitboards(Color.values[other]);
+      final long nonPawns = position.getOccupiedBitboards(Color.values[other])
+                            & ~pieces[PAWN.ordinal()] & ~pieces[PieceType.KING.ordinal()];
+      final long majors = pieces[PieceType.ROOK.ordinal()] | pieces[PieceType.QUEEN.ordinal()];
+      final long minorAttacks =
+        ownAttacks[PieceType.KNIGHT.ordinal()] | ownAttacks[PieceType.BISHOP.ordinal()];
+
+      int threats = THREAT_BY_PAWN * Long.bitCount(ownAttacks[PAWN.ordinal()] & nonPawns);
+      threats += THREAT_BY_MINOR * Long.bitCount(minorAttacks & majors);
+      threats += HANGING_PIECE * Long.bitCount((nonPawns | pieces[PAWN.ordinal()])
+                                               & allAttacks[color] & ~allAttacks[other]);
+
+      threatsScore += color == nextToMove ? threats : -threats;
     }
-    return numberOfMoves;
   }
 
   /**
@@ -761,7 +969,7 @@ public class Evaluation {
   public int material(Position position) {
     // clear old values
     evaluate(position);
-    return material;
+    return taper(materialScore);
   }
 
   /**
@@ -770,25 +978,55 @@ public class Evaluation {
   public int position(Position position) {
     // piece position is done in the piece iteration
     evaluate(position);
-    return piecePosition;
+    return taper(piecePositionScore);
   }
 
   /**
    * @return number of pseudo legal moves for the next player
    */
   public int mobility(Position position) {
-    // midGameMobility is done in the squares iteration
+    // mobility is done in the pieces iteration
     evaluate(position);
-    return mobility;
+    return taper(mobilityScore);
   }
 
   /**
    * @return number of pseudo legal moves for the next player
    */
   public int kingSafety(Position position) {
-    // midGameMobility is done in the squares iteration
+    // mobility is done in the pieces iteration
     evaluate(position);
-    return kingSafety;
+    return taper(kingSafetyScore);
+  }
+
+  /**
+   * @return pawn structure value from the next player's view
+   */
+  public int pawnStructure(Position position) {
+    evaluate(position);
+    return taper(pawnStructureScore);
+  }
+
+  /**
+   * @return threats value from the next player's view
+   */
+  public int threats(Position position) {
+    evaluate(position);
+    return taper(threatsScore);
+  }
+
+  /**
+   * @return the pawn hash table of this evaluation
+   */
+  public PawnHashTable getPawnHashTable() {
+    return pawnHashTable;
+  }
+
+  /**
+   * @return the material hash table of this evaluation
+   */
+  public MaterialHashTable getMaterialHashTable() {
+    return materialHashTable;
   }
 
   @Override
@@ -796,64 +1034,146 @@ public class Evaluation {
     // @formatter:off
     return "Evaluation{" +
            "value=" + value +
-           ", gamePhaseFactor=" + position.getGamePhaseFactor() +
+           ", gamePhase=" + gamePhase +
            ", special=" + special +
-           ", material=" + material +
-           ", midGameMaterial=" + midGameMaterial +
-           ", endGameMaterial=" + endGameMaterial +
-           ", piecePosition=" + piecePosition +
-           ", midGamePiecePosition=" + midGamePiecePosition +
-           ", endGamePiecePosition=" + endGamePiecePosition +
-           ", mobility=" + mobility +
-           ", midGameMobility=" + midGameMobility +
-           ", endGameMobility=" + endGameMobility + '}';
+           ", material=" + Score.toString(materialScore) +
+           ", piecePosition=" + Score.toString(piecePositionScore) +
+           ", pawnStructure=" + Score.toString(pawnStructureScore) +
+           ", mobility=" + Score.toString(mobilityScore) +
+           ", kingSafety=" + Score.toString(kingSafetyScore) +
+           ", threats=" + Score.toString(threatsScore) + '}';
     // @formatter:on
   }
 
   public static int getPositionValue(Position position, int move) {
+    return Score.taper(getPieceSquareScore(Move.getPiece(move), Move.getEnd(move)),
+                       position.getGamePhaseValue());
+  }
 
-    final int nextToMove = position.getNextPlayer().ordinal();
-
-    final int index = Move.getEnd(move).ordinal();
-    final int tableIndex =
-      nextToMove == WHITE ? getWhiteTableIndex(index) : getBlackTableIndex(index);
-
-    final int midGame;
-    final int endGame;
-
-    switch (Move.getPiece(move).getType()) {
-      case PAWN:
-        midGame = pawnsMidGame[tableIndex];
-        endGame = pawnsEndGame[tableIndex];
-        break;
-      case KNIGHT:
-        midGame = knightMidGame[tableIndex];
-        endGame = knightEndGame[tableIndex];
-        break;
-      case BISHOP:
-        midGame = bishopMidGame[tableIndex];
-        endGame = bishopEndGame[tableIndex];
-        break;
-      case ROOK:
-        midGame = rookMidGame[tableIndex];
-        endGame = rookEndGame[tableIndex];
-        break;
-      case QUEEN:
-        midGame = queenMidGame[tableIndex];
-        endGame = queenEndGame[tableIndex];
-        break;
-      case KING:
-        midGame = kingMidGame[tableIndex];
-        endGame = kingEndGame[tableIndex];
-        break;
-      default:
-        midGame = 0;
-        endGame = 0;
-        break;
+
+  /**
+   * Static Exchange Evaluation of a capturing move. Calculates the material balance of the
+   * sequence of captures on the target square of the move where both sides always recapture with
+   * the least valuable piece and can stop capturing if this is better for them. X-ray attackers
+   * behind captured pieces are included.
+   * <p>
+   * https://www.chessprogramming.org/Static_Exchange_Evaluation
+   *
+   * @param position position before the move
+   * @param move     a capturing move
+   * @return material gain of the exchange from the view of the moving side
+   */
+  public static int see(Position position, int move) {
+    return see(position, move, new int[SEE_GAIN_SIZE]);
+  }
+
+  /**
+   * Static Exchange Evaluation of a capturing move using the given swap list buffer. Callers in
+   * the search hold their own buffer so no array is created during the search.
+   *
+   * @param position position before the move
+   * @param move     a capturing move
+   * @param gain     swap list buffer of at least <code>SEE_GAIN_SIZE</code> entries
+   * @return material gain of the exchange from the view of the moving side
+   */
+  public static int see(Position position, int move, int[] gain) {
+    final Square toSquare = Move.getEnd(move);
+    final Square fromSquare = Move.getStart(move);
+    final int promotionCode = Move.getPromotionCode(move);
+
+    int d = 0;
+    gain[0] = Move.getTarget(move).getType().getValue();
+    // the piece which is on the target square after the capture
+    int onSquareValue = Move.getPiece(move).getType().getValue();
+    if (promotionCode != Piece.NO_CODE) {
+      onSquareValue = PieceType.values[Piece.getTypeOrdinal(promotionCode)].getValue();
+      gain[0] += onSquareValue - PieceType.PAWN.getValue();
+    }
+
+    long occupied = position.getAllOccupiedBitboard() ^ fromSquare.bitBoard;
+    if (Move.getMoveType(move) == MoveType.ENPASSANT) {
+      occupied ^= position.getNextPlayer().isWhite()
+                  ? toSquare.getSouth().bitBoard
+                  : toSquare.getNorth().bitBoard;
     }
 
-    return (int) (midGame * position.getGamePhaseFactor() + endGame * (1f
-                                                                       - position.getGamePhaseFactor()));
+    Color side = position.getOpponent();
+    long attackers = position.attackersTo(toSquare, occupied);
+
+    while (true) {
+      final long sideAttackers = attackers & position.getOccupiedBitboards(side);
+      if (sideAttackers == 0) break;
+
+      // least valuable attacker
+      PieceType attackerType = PieceType.PAWN;
+      long attackerBitboard = 0L;
+      for (int t = PieceType.PAWN.ordinal(); t <= PieceType.KING.ordinal(); t++) {
+        attackerBitboard = sideAttackers & position.getPiecesBitboards(side)[t];
+        if (attackerBitboard != 0) {
+          attackerType = PieceType.values[t];
+          break;
+        }
+      }
+      attackerBitboard &= -attackerBitboard; // lowest bit only
+
+      // the king can't capture if the square is still defended
+      final long otherSide = position.getOccupiedBitboards(side.getInverseColor());
+      if (attackerType == PieceType.KING && (attackers & otherSide) != 0) break;
+
+      // gain[d] is the balance for the side capturing if the sequence stops here
+      d++;
+      gain[d] = onSquareValue - gain[d - 1];
+
+      occupied ^= attackerBitboard;
+      attackers = position.attackersTo(toSquare, occupied);
+      onSquareValue = attackerType.getValue();
+      side = side.getInverseColor();
+    }
 
+    // each side can choose to not capture if this is better
+    for (; d > 0; d--) {
+      gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+    }
+    return gain[0];
+  }
+
+  /**
+   * Checks if the Static Exchange Evaluation of a capturing move is at least the given threshold.
+   * Faster than <code>see</code> when the result is obvious.
+   *
+   * @param position position before the move
+   * @param move     a capturing move
+   * @param threshold
+   * @return true if <code>see(position, move) >= threshold</code>
+   */
+  public static boolean seeGE(Position position, int move, int threshold) {
+    return seeGE(position, move, threshold, null);
+  }
+
+  /**
+   * Checks if the Static Exchange Evaluation of a capturing move is at least the given threshold
+   * using the given swap list buffer if the full <code>see</code> is needed.
+   *
+   * @param position position before the move
+   * @param move     a capturing move
+   * @param threshold
+   * @param buffer   swap list buffer of at least <code>SEE_GAIN_SIZE</code> entries or null
+   * @return true if <code>see(position, move) >= threshold</code>
+   */
+  public static boolean seeGE(Position position, int move, int threshold, int[] buffer) {
+    // the opponent can at most win the capturing piece
+    final int promotionCode = Move.getPromotionCode(move);
+    final int gain = Move.getTarget(move).getType().getValue()
+                     + (promotionCode == Piece.NO_CODE
+                        ? 0
+                        : PieceType.values[Piece.getTypeOrdinal(promotionCode)].getValue()
+                          - PieceType.PAWN.getValue());
+    final int risk = promotionCode == Piece.NO_CODE
+                     ? Move.getPiece(move).getType().getValue()
+                     : PieceType.values[Piece.getTypeOrdinal(promotionCode)].getValue();
+    if (gain - risk >= threshold) return true;
+    // we can at most win the target
+    if (gain < threshold) return false;
+    return (buffer == null ? see(position, move) : see(position, move, buffer)) >= threshold;
   }
 }
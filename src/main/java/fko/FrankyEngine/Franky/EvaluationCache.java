@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * A small cache for evaluation values of positions.
+ * <p>
+ * Implementation uses a flat array of primitive longs with one long per entry. The upper 32
+ * bits of the zobrist key are stored in the upper half of the entry and the evaluation value
+ * in the lower half. The index is calculated from the lower bits of the key so the stored
+ * key bits are independent of the index. Entries are always replaced.
+ * <p>
+ * Only full (not lazy) evaluations should be stored as lazy values depend on the search
+ * window.
+ * <p>
+ * Not thread safe - each search thread has its own instance.
+ */
+public class EvaluationCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EvaluationCache.class);
+
+  private static final int KB = 1024;
+  private static final int MB = KB * KB;
+
+  private static final long KEY_MASK   = 0xFFFFFFFF00000000L;
+  private static final long VALUE_MASK = 0x00000000FFFFFFFFL;
+
+  // empty entry - an entry for a key with all upper bits zero and value 0 equals this and is
+  // treated as a miss
+  private static final long EMPTY = 0L;
+
+  private final long[] entries;
+  private final int    indexMask;
+
+  /**
+   * Creates an evaluation cache with the largest power of two number of entries which fits
+   * into the given size.
+   *
+   * @param size in MB (1024B^2)
+   */
+  public EvaluationCache(int size) {
+    if (size < 1) {
+      final String msg = "Evaluation cache must a least be 1 MB in size";
+      IllegalArgumentException e = new IllegalArgumentException(msg);
+      LOG.error(msg, e);
+      throw e;
+    }
+    final long maxEntries = (long) size * MB / Long.BYTES;
+    final int numberOfEntries = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 30));
+    entries = new long[numberOfEntries];
+    indexMask = numberOfEntries - 1;
+    LOG.debug("{}", String.format("Evaluation Cache Size: %,dMB %,d entries", size,
+                                 numberOfEntries));
+  }
+
+  /**
+   * Stores an evaluation value for the position with the given key.
+   *
+   * @param key   zobrist key of the position
+   * @param value evaluation value of the position
+   */
+  public void put(long key, int value) {
+    entries[(int) key & indexMask] = (key & KEY_MASK) | (value & VALUE_MASK);
+  }
+
+  /**
+   * @param key zobrist key of the position
+   * @return the stored evaluation value of the position or <code>Evaluation.NOVALUE</code>
+   */
+  public int get(long key) {
+    final long entry = entries[(int) key & indexMask];
+    if (entry == EMPTY || (entry & KEY_MASK) != (key & KEY_MASK)) return Evaluation.NOVALUE;
+    return (int) entry;
+  }
+
+  /**
+   * Clears all entries
+   */
+  public void clear() {
+    Arrays.fill(entries, EMPTY);
+  }
+
+  /**
+   * @return number of entries of the cache
+   */
+  public int getMaxEntries() {
+    return entries.length;
+  }
+
+  @Override
+  public String toString() {
+    return "EvaluationCache{" + "entries=" + entries.length + '}';
+  }
+}
@@ -27,6 +27,9 @@ package fko.FrankyEngine.Franky;
 
 /**
  * Predefined values for Evaluation of positions.
+ * <p>
+ * Values which differ between mid game and end game are packed Scores
+ * (see <code>Score</code>).
  */
 class EvaluationConfig {
 
@@ -37,18 +40,60 @@ class EvaluationConfig {
   static final int KNIGHT_PAIR = 10;
   static final int ROOK_PAIR   = 15;
 
-  static final int KNIGHTS_MOBILITY_FACTOR = 2;
-  static final int BISHOP_MOBILITY_FACTOR  = 2;
-  static final int ROOK_MOBILITY_FACTOR    = 2;
-  static final int QUEEN_MOBILITY_FACTOR   = 1;
+  // Scores
+  static final int KNIGHTS_MOBILITY_FACTOR = Score.make(2, 2);
+  static final int BISHOP_MOBILITY_FACTOR  = Score.make(2, 2);
+  static final int ROOK_MOBILITY_FACTOR    = Score.make(2, 2);
+  static final int QUEEN_MOBILITY_FACTOR   = Score.make(1, 1);
 
   static final int MATERIAL_WEIGHT    = 1;
   static final int POSITION_WEIGHT    = 1;
   static final int MOBILITY_WEIGHT    = 2;
   static final int KING_SAFETY_WEIGHT = 1;
+  static final int THREATS_WEIGHT     = 1;
 
-  static final int KING_SAFETY_PAWNSHIELD = 10;
-  static final int CORNERED_ROOK_PENALTY  = -50;
+  // Scores - mid game only
+  static final int KING_SAFETY_PAWNSHIELD = Score.make(10, 0);
+  static final int CORNERED_ROOK_PENALTY  = Score.make(-50, 0);
+
+  // Scores - per square around the king attacked by the opponent
+  static final int KING_ZONE_ATTACK = Score.make(-8, 0);
+
+  // Scores - threats per attacked piece
+  static final int THREAT_BY_PAWN  = Score.make(40, 30); // non pawn piece attacked by a pawn
+  static final int THREAT_BY_MINOR = Score.make(20, 20); // rook or queen attacked by a minor
+  static final int HANGING_PIECE   = Score.make(20, 10); // attacked and not defended
+
+  static final int PAWN_STRUCTURE_WEIGHT = 1;
+
+  static final int PAWN_HASH_SIZE = 1; // MB
+
+  static final int MATERIAL_HASH_SIZE = 1; // MB
+
+  // end game scale factors (MaterialHashTable.SCALE_NORMAL is no scaling) for a side which is
+  // at most a bishop ahead
+  static final int NO_PAWNS_SCALE_MINOR   = 4;  // no pawns and opponent has at most a minor
+  static final int NO_PAWNS_SCALE         = 14; // no pawns
+  static final int ONE_PAWN_SCALE         = 48; // one pawn
+  static final int OPPOSITE_BISHOPS_SCALE = 32; // only bishops on opposite colors and pawns
+
+  // Scores
+  static final int PAWN_DOUBLED  = Score.make(-10, -20);
+  static final int PAWN_ISOLATED = Score.make(-10, -15);
+  static final int PAWN_BACKWARD = Score.make(-8, -10);
+
+  // @formatter:off
+  // Scores - passed pawn bonus by rank from the pawn's view - free passed pawns have an empty
+  // stop square
+  static final int[] PAWN_PASSED = {
+    Score.make(0, 0), Score.make(5, 10), Score.make(10, 15), Score.make(15, 20),
+    Score.make(20, 30), Score.make(30, 50), Score.make(45, 80), Score.make(0, 0)
+  };
+  static final int[] PAWN_PASSED_FREE = {
+    Score.make(0, 0), Score.make(0, 0), Score.make(0, 5), Score.make(0, 10),
+    Score.make(0, 15), Score.make(0, 25), Score.make(0, 40), Score.make(0, 0)
+  };
+  // @formatter:on
 
   public static int CONTEMPT_FACTOR = 2; // will be multiplied with game phase factor
 
@@ -181,6 +226,26 @@ class EvaluationConfig {
   };
   // @formatter:on
 
+  /**
+   * @param piece
+   * @param square
+   * @return packed mid and end game piece square table values of the piece on the square
+   */
+  static int getPieceSquareScore(final Piece piece, final Square square) {
+    final int index = piece.getColor().isWhite()
+                      ? getWhiteTableIndex(square.ordinal())
+                      : getBlackTableIndex(square.ordinal());
+    switch (piece.getType()) {
+      case PAWN: return Score.make(pawnsMidGame[index], pawnsEndGame[index]);
+      case KNIGHT: return Score.make(knightMidGame[index], knightEndGame[index]);
+      case BISHOP: return Score.make(bishopMidGame[index], bishopEndGame[index]);
+      case ROOK: return Score.make(rookMidGame[index], rookEndGame[index]);
+      case QUEEN: return Score.make(queenMidGame[index], queenEndGame[index]);
+      case KING: return Score.make(kingMidGame[index], kingEndGame[index]);
+      default: return Score.ZERO;
+    }
+  }
+
   static int getWhiteTableIndex(final int index) {
     return 56 - (8 * (index / 16)) + (index % 16);
   }
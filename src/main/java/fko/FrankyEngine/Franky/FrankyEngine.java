@@ -128,6 +128,7 @@ public class FrankyEngine implements IUCIEngine {
     // @formatter:off
     option("Hash", UCIOptionType.spin, "" + config.HASH_SIZE, "1", "4096", "");
     option("Clear Hash", UCIOptionType.button, "", "", "", "");
+    option("Threads", UCIOptionType.spin, Integer.toString(config.SMP_THREADS), "1", "64", "");
     option("Ponder", UCIOptionType.check, Boolean.toString(config.PONDER), "", "", "");
     option("OwnBook", UCIOptionType.check, Boolean.toString(config.USE_BOOK), "", "", "");
     option("UCI_ShowCurrLine", UCIOptionType.check, Boolean.toString(config.UCI_ShowCurrLine), "", "", "");
@@ -136,6 +137,7 @@ public class FrankyEngine implements IUCIEngine {
     option("Use_AlphaBeta_Pruning", UCIOptionType.check, Boolean.toString(config.USE_ALPHABETA_PRUNING), "", "", "");
     option("Use_Killer_Moves", UCIOptionType.check, Boolean.toString(config.USE_KILLER_MOVES), "", "", "");
     option("Number_Killer_Moves", UCIOptionType.spin, Integer.toString(config.NO_KILLER_MOVES), "0", "10", "");
+    option("Use_History_Heuristic", UCIOptionType.check, Boolean.toString(config.USE_HISTORY_HEURISTIC), "", "", "");
     option("Use_PVS", UCIOptionType.check, Boolean.toString(config.USE_PVS), "", "", "");
     option("Use_PVS_Move_Ordering", UCIOptionType.check, Boolean.toString(config.USE_PVS_ORDERING), "", "", "");
     option("Use_Aspiration_Window_Search", UCIOptionType.check, Boolean.toString(config.USE_ASPIRATION_WINDOW), "", "", "");
@@ -165,6 +167,10 @@ public class FrankyEngine implements IUCIEngine {
     option("LMR_Depth", UCIOptionType.spin, Integer.toString(config.LMR_MIN_DEPTH), "2", "10", "");
     option("LMR_Min_Moves", UCIOptionType.spin, Integer.toString(config.LMR_MIN_MOVES), "1", "15", "");
     option("LMR_Reduction", UCIOptionType.spin, Integer.toString(config.LMR_REDUCTION), "0", "5", "");
+    option("Use_Lazy_Eval", UCIOptionType.check, Boolean.toString(config.USE_LAZY_EVAL), "", "", "");
+    option("Lazy_Eval_Margin", UCIOptionType.spin, Integer.toString(config.LAZY_EVAL_MARGIN), "0", "1800", "");
+    option("Use_Eval_Cache", UCIOptionType.check, Boolean.toString(config.USE_EVAL_CACHE), "", "", "");
+    option("Eval_Cache_Size", UCIOptionType.spin, Integer.toString(config.EVAL_CACHE_SIZE), "1", "256", "");
     // @formatter:on
   }
 
@@ -201,6 +207,12 @@ public class FrankyEngine implements IUCIEngine {
         LOG.info(msg);
         uciProtocolHandler.sendInfoStringToUCI(msg);
         break;
+      case "Threads":
+        config.SMP_THREADS = Integer.valueOf(value);
+        msg = "Search Threads set to " + config.SMP_THREADS;
+        LOG.info(msg);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
       case "UCI_ShowCurrLine":
         config.UCI_ShowCurrLine = Boolean.valueOf(value);
         msg = "Engine UCI_ShowCurrLine set to " + (config.UCI_ShowCurrLine ? "On" : "Off");
@@ -249,6 +261,12 @@ public class FrankyEngine implements IUCIEngine {
         LOG.info(msg);
         uciProtocolHandler.sendInfoStringToUCI(msg);
         break;
+      case "Use_History_Heuristic":
+        config.USE_HISTORY_HEURISTIC = Boolean.valueOf(value);
+        msg = "Use History Heuristic set to " + (config.USE_HISTORY_HEURISTIC ? "On" : "Off");
+        LOG.info(msg);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
       case "Use_PVS":
         config.USE_PVS = Boolean.valueOf(value);
         msg = "Use PVSearch set to " + (config.USE_PVS ? "On" : "Off");
@@ -426,6 +444,31 @@ public class FrankyEngine implements IUCIEngine {
         LOG.info(msg);
         uciProtocolHandler.sendInfoStringToUCI(msg);
         break;
+      case "Use_Lazy_Eval":
+        config.USE_LAZY_EVAL = Boolean.valueOf(value);
+        msg = "Use Lazy Evaluation set to " + (config.USE_LAZY_EVAL ? "On" : "Off");
+        LOG.info(msg);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
+      case "Lazy_Eval_Margin":
+        config.LAZY_EVAL_MARGIN = Integer.valueOf(value);
+        msg = "Lazy Evaluation Margin set to " + config.LAZY_EVAL_MARGIN;
+        LOG.info(msg);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
+      case "Use_Eval_Cache":
+        config.USE_EVAL_CACHE = Boolean.valueOf(value);
+        msg = "Use Evaluation Cache set to " + (config.USE_EVAL_CACHE ? "On" : "Off");
+        LOG.info(msg);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
+      case "Eval_Cache_Size":
+        config.EVAL_CACHE_SIZE = Integer.valueOf(value);
+        msg = "Evaluation Cache Size set to " + config.EVAL_CACHE_SIZE;
+        LOG.info(msg);
+        search.setEvalCacheSize(config.EVAL_CACHE_SIZE);
+        uciProtocolHandler.sendInfoStringToUCI(msg);
+        break;
       default:
         LOG.error("Unknown option: {}", name);
         break;
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache for material configurations keyed by the material key of a position.
+ * <p>
+ * For each material configuration it stores the end game scale factor for each color and
+ * the specialized endgame evaluation (if any) with the strong side it applies to. The
+ * number of different material configurations in a game is small so nearly all lookups are
+ * hits and the analysis of the material is done very rarely.
+ * <p>
+ * Implementation uses a flat array of primitive longs. Each entry uses two longs - the
+ * material key and the packed data. Entries are always replaced.
+ * <p>
+ * Not thread safe - each evaluation has its own instance.
+ */
+public class MaterialHashTable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MaterialHashTable.class);
+
+  private static final int KB = 1024;
+  private static final int MB = KB * KB;
+
+  /**
+   * Scale factor for the end game value if it is not scaled
+   */
+  public static final int SCALE_NORMAL = 64;
+
+  /**
+   * Scale factor for the end game value if the side can't win
+   */
+  public static final int SCALE_DRAW = 0;
+
+  /** size of an entry in bytes - key and data */
+  static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+  // material keys always contain the two kings and are never zero
+  private static final long EMPTY = 0L;
+
+  // data layout
+  private static final int  SCALE_BLACK_SHIFT = 8;
+  private static final int  ENDGAME_SHIFT     = 16;
+  private static final int  STRONG_SIDE_SHIFT = 24;
+  private static final long BYTE_MASK         = 0xFFL;
+
+  private final long[] entries;
+  private final int    indexMask;
+  private final int    indexShift;
+
+  private long numberOfHits   = 0;
+  private long numberOfMisses = 0;
+
+  /**
+   * Creates a material hash table with the largest power of two number of entries which fits
+   * into the given size.
+   *
+   * @param size in MB (1024B^2)
+   */
+  public MaterialHashTable(int size) {
+    if (size < 1) {
+      final String msg = "Material hash table must a least be 1 MB in size";
+      IllegalArgumentException e = new IllegalArgumentException(msg);
+      LOG.error(msg, e);
+      throw e;
+    }
+    final long maxEntries = (long) size * MB / ENTRY_SIZE;
+    final int numberOfEntries = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 28));
+    entries = new long[numberOfEntries * 2];
+    indexMask = numberOfEntries - 1;
+    indexShift = Long.SIZE - Integer.numberOfTrailingZeros(numberOfEntries);
+    clear();
+  }
+
+  /**
+   * Looks up the entry for the given material key.
+   *
+   * @param key material key of the position
+   * @return the index of the entry to be used with the getters or -1 if there is no entry
+   */
+  public int find(long key) {
+    final int index = getIndex(key);
+    if (entries[index] == key) {
+      numberOfHits++;
+      return index;
+    }
+    numberOfMisses++;
+    return -1;
+  }
+
+  /**
+   * Stores the analysis of a material configuration
+   *
+   * @param key        material key of the position
+   * @param scaleWhite end game scale factor if white is the stronger side
+   * @param scaleBlack end game scale factor if black is the stronger side
+   * @param endgame    specialized endgame evaluation or <code>Endgame.NONE</code>
+   * @param strongSide the side the endgame evaluation applies to
+   * @return the index of the new entry to be used with the getters
+   */
+  public int put(long key, int scaleWhite, int scaleBlack, Endgame endgame, Color strongSide) {
+    final int index = getIndex(key);
+    entries[index] = key;
+    entries[index + 1] = scaleWhite
+                         | ((long) scaleBlack << SCALE_BLACK_SHIFT)
+                         | ((long) endgame.ordinal() << ENDGAME_SHIFT)
+                         | ((long) strongSide.ordinal() << STRONG_SIDE_SHIFT);
+    return index;
+  }
+
+  /**
+   * @param index index of an entry from <code>find()</code> or <code>put()</code>
+   * @param color the stronger side
+   * @return the scale factor for the end game value if the given color is the stronger side
+   */
+  public int getScaleFactor(int index, Color color) {
+    return (int) ((entries[index + 1] >>> (color.ordinal() * SCALE_BLACK_SHIFT)) & BYTE_MASK);
+  }
+
+  /**
+   * @param index index of an entry from <code>find()</code> or <code>put()</code>
+   * @return the specialized endgame evaluation or <code>Endgame.NONE</code>
+   */
+  public Endgame getEndgame(int index) {
+    return Endgame.values[(int) ((entries[index + 1] >>> ENDGAME_SHIFT) & BYTE_MASK)];
+  }
+
+  /**
+   * @param index index of an entry from <code>find()</code> or <code>put()</code>
+   * @return the side the endgame evaluation applies to
+   */
+  public Color getStrongSide(int index) {
+    return Color.values[(int) ((entries[index + 1] >>> STRONG_SIDE_SHIFT) & BYTE_MASK)];
+  }
+
+  /**
+   * Clears all entries
+   */
+  public void clear() {
+    for (int i = 0; i < entries.length; i += 2) entries[i] = EMPTY;
+  }
+
+  /**
+   * @return number of entries of the table
+   */
+  public int getMaxEntries() {
+    return indexMask + 1;
+  }
+
+  /**
+   * @return memory used by the table in bytes
+   */
+  public long getSizeInBytes() {
+    return (long) entries.length * Long.BYTES;
+  }
+
+  /**
+   * @return number of successful lookups
+   */
+  public long getNumberOfHits() {
+    return numberOfHits;
+  }
+
+  /**
+   * @return number of failed lookups
+   */
+  public long getNumberOfMisses() {
+    return numberOfMisses;
+  }
+
+  /*
+   * Material keys are counters and not random - the key is multiplied with a large odd
+   * number to spread the keys over the table.
+   */
+  private int getIndex(long key) {
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> indexShift) << 1;
+  }
+
+  @Override
+  public String toString() {
+    final long probes = numberOfHits + numberOfMisses;
+    return String.format("MaterialHashTable{entries=%,d hits=%,d misses=%,d hitRate=%.1f%%}",
+                         getMaxEntries(), numberOfHits, numberOfMisses,
+                         probes == 0 ? 0f : 100f * numberOfHits / probes);
+  }
+}
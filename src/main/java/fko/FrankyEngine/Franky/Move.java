@@ -99,11 +99,11 @@ public class Move {
     // Encode end
     move |= end.ordinal() << END_SQUARE_SHIFT;
     // Encode piece
-    move |= piece.ordinal() << PIECE_SHIFT;
+    move |= piece.code << PIECE_SHIFT;
     // Encode target
-    move |= target.ordinal() << TARGET_SHIFT;
+    move |= target.code << TARGET_SHIFT;
     // Encode promotion
-    move |= promotion.ordinal() << PROMOTION_SHIFT;
+    move |= promotion.code << PROMOTION_SHIFT;
     // Encode move
     move |= movetype.ordinal() << MOVETYPE_SHIFT;
     return move;
@@ -144,7 +144,7 @@ public class Move {
   public static Piece getPiece(int move) {
     assert move != NOMOVE;
     int chessman = (move & PIECE_MASK) >>> PIECE_SHIFT;
-    return Piece.values[chessman];
+    return Piece.fromCode(chessman);
   }
 
   /**
@@ -156,7 +156,7 @@ public class Move {
   public static Piece getTarget(int move) {
     if (move == NOMOVE) return Piece.NOPIECE;
     int piece = (move & TARGET_MASK) >>> TARGET_SHIFT;
-    return Piece.values[piece];
+    return Piece.fromCode(piece);
   }
 
   /**
@@ -168,7 +168,62 @@ public class Move {
   public static Piece getPromotion(int move) {
     assert move != NOMOVE;
     int promotion = ((move & PROMOTION_MASK) >>> PROMOTION_SHIFT);
-    return Piece.values[promotion];
+    return Piece.fromCode(promotion);
+  }
+
+  /**
+   * Get the x88 index of the start square from the move
+   *
+   * @param move the move.
+   * @return x88 index of the start square
+   */
+  public static int getStartIndex(int move) {
+    assert move != NOMOVE;
+    return (move & START_SQUARE_MASK) >>> START_SQUARE_SHIFT;
+  }
+
+  /**
+   * Get the x88 index of the end square from the move
+   *
+   * @param move the move.
+   * @return x88 index of the end square
+   */
+  public static int getEndIndex(int move) {
+    assert move != NOMOVE;
+    return (move & END_SQUARE_MASK) >>> END_SQUARE_SHIFT;
+  }
+
+  /**
+   * Get the primitive code of the moved piece (see <code>Piece.code</code>)
+   *
+   * @param move the move.
+   * @return the piece code
+   */
+  public static int getPieceCode(int move) {
+    assert move != NOMOVE;
+    return (move & PIECE_MASK) >>> PIECE_SHIFT;
+  }
+
+  /**
+   * Get the primitive code of the captured piece (see <code>Piece.code</code>)
+   *
+   * @param move the move.
+   * @return the target piece code - Piece.NO_CODE if not capturing
+   */
+  public static int getTargetCode(int move) {
+    if (move == NOMOVE) return Piece.NO_CODE;
+    return (move & TARGET_MASK) >>> TARGET_SHIFT;
+  }
+
+  /**
+   * Get the primitive code of the promotion piece (see <code>Piece.code</code>)
+   *
+   * @param move the move.
+   * @return the promotion piece code - Piece.NO_CODE if not a promotion
+   */
+  public static int getPromotionCode(int move) {
+    assert move != NOMOVE;
+    return (move & PROMOTION_MASK) >>> PROMOTION_SHIFT;
   }
 
   /**
@@ -190,8 +245,7 @@ public class Move {
    */
   public static boolean isCapturing(final int move) {
     if (move == NOMOVE) return false;
-    final int piece = (move & TARGET_MASK) >>> TARGET_SHIFT;
-    return !Piece.values[piece].equals(Piece.NOPIECE);
+    return (move & TARGET_MASK) != 0;
   }
 
   /**
@@ -70,22 +70,52 @@ public class MoveGenerator {
   private final MoveList nonCapturingMoves = new MoveList(); // only non capturing moves
   // special list for qsearch
   private       MoveList qSearchMoves      = new MoveList();
+  private final MoveList qSearchLegalMoves = new MoveList();
 
   // These fields control the on demand generation of moves.
+  // The stages are processed in order and each generates and sorts its moves lazily.
   private              OnDemandState generationCycleState = OnDemandState.NEW;
   private static final int           GEN_CAPTURES         = 1;
   private static final int           GEN_NONCAPTURES      = 2;
   private static final int           GEN_ALL              = 3;
   private              int           genMode              = GEN_ALL;
 
-  private enum OnDemandState {NEW, CAPTURING, NON_CAPTURING, ALL}
+  private enum OnDemandState {
+    NEW, GENERATE_CAPTURES, GOOD_CAPTURES, KILLERS, COUNTER_MOVE, GENERATE_QUIETS, QUIETS,
+    BAD_CAPTURES, ALL
+  }
+
+  // sort values of bad captures are offset by this so they sort after all non capturing moves
+  private static final int BAD_CAPTURE_VALUE = 20000;
+
+  // cursors into capturingMoves and nonCapturingMoves for the on demand generation and
+  // the sort values for these moves. Moves before the cursor have already been returned.
+  private int   captureIndex   = 0;
+  private int   quietIndex     = 0;
+  private int   killerIndex    = 0;
+  private int[] captureValues  = new int[SimpleIntList.DEFAULT_MAX_ENTRIES];
+  private int[] quietValues    = new int[SimpleIntList.DEFAULT_MAX_ENTRIES];
+  // reused by moveListSort
+  private int[] sortValues     = new int[SimpleIntList.DEFAULT_MAX_ENTRIES];
 
-  private MoveList onDemandMoveList = new MoveList();
+  // swap list buffer for the static exchange evaluation
+  private final int[] seeGain = new int[Evaluation.SEE_GAIN_SIZE];
 
   // these field influence the move sorting as pv and killer moves are typically searched early
   private MoveList killerMoves = new MoveList(0);
   private int      pvMove      = Move.NOMOVE;
 
+  // history tables for sorting non capturing moves - kept when setting a new position
+  private MoveHistory moveHistory = null;
+  private int         counterMove = Move.NOMOVE;
+
+  // pinned pieces and check evasion mask for legality tests without making the move
+  // computed once per position when first needed
+  private boolean legalityInfoValid = false;
+  private int     kingIndex64;
+  private long    pinnedPieces;
+  private long    checkMask;
+
   // Comparator for move most value victim least value attacker (incl. promotion)
   // @formatter:off
   private static final SimpleIntList.IntComparator mvvlvaComparator = (move1, move2) ->
@@ -123,9 +153,16 @@ public class MoveGenerator {
     this.position = position;
     this.activePlayer = position.getNextPlayer();
     this.generationCycleState = OnDemandState.NEW;
+    this.captureIndex = 0;
+    this.quietIndex = 0;
+    this.killerIndex = 0;
     this.pvMove = Move.NOMOVE;
     this.genMode = GEN_ALL;
     this.killerMoves.clear();
+    this.counterMove = moveHistory == null
+                       ? Move.NOMOVE
+                       : moveHistory.getCounterMove(position.getLastMove());
+    this.legalityInfoValid = false;
     clearLists();
   }
 
@@ -133,8 +170,8 @@ public class MoveGenerator {
    * Sets the PV move so it will be returned first. Need to be set after each call
    * <code>setPosition</code> as this reset the killer moves.
    * <p>
-   * <b>Attention:</b> needs to be a valid move in the current position otherwise will break!
-   * This can be the case when TT Collision happend.
+   * The on demand generation only returns the move if it is pseudo legal in the current position
+   * (see <code>isPseudoLegal</code>) so moves from a TT collision are ignored.
    *
    * @param move
    */
@@ -142,6 +179,17 @@ public class MoveGenerator {
     this.pvMove = move;
   }
 
+  /**
+   * Sets the history tables used to sort non capturing moves and to find the counter move to the
+   * last move of the position. Other than killers and PV move this is kept when setting a new
+   * position.
+   *
+   * @param moveHistory history tables or null to not use any history
+   */
+  public void setMoveHistory(MoveHistory moveHistory) {
+    this.moveHistory = moveHistory;
+  }
+
   /**
    * Sets killer moves which will be inserted after capturing moves. Need to be set after each call
    * to <code>setPosition</code> as this reset the killer moves.
@@ -158,9 +206,18 @@ public class MoveGenerator {
 
   /**
    * Returns the next move of the current generation cycle.<br>
-   * This method uses an on-demand generation of moves starting with potentially high value moves
-   * first to improve cut off rates in AlphaBeta pruning and therefore avoiding the cost of
-   * generating all possible moves.
+   * This method uses a staged on-demand generation of moves starting with potentially high value
+   * moves first to improve cut off rates in AlphaBeta pruning and therefore avoiding the cost of
+   * generating and sorting all possible moves.
+   * <p>
+   * Stages:<br>
+   * 1. PV move (returned before any move generation)<br>
+   * 2. good captures (MVV-LVA)<br>
+   * 3. killer moves<br>
+   * 4. non capturing moves<br>
+   * 5. bad captures<br>
+   * Within a stage the next move is picked by a selection of the best remaining move instead of
+   * a full sort of the stage's list.
    * <p>
    * The generation cycle starts new with each new call to <code>setPosition</code>.
    *
@@ -172,77 +229,268 @@ public class MoveGenerator {
       throw new IllegalStateException("Position not set. Set position before calling this");
     }
 
-    /*
-     * If the list is currently empty and we have not generated all moves yet
-     * generate the next batch until we have new moves or all moves are generated
-     * and there are no more moves to generate
-     */
-    while (onDemandMoveList.empty() && generationCycleState != OnDemandState.ALL) {
-
+    int move;
+    while (true) {
       switch (generationCycleState) {
         case NEW:
-          generationCycleState = OnDemandState.CAPTURING;
-          // fall through
-
-        case CAPTURING:
+          generationCycleState = OnDemandState.GENERATE_CAPTURES;
+          // the pv move is returned without generating any moves
+          if (pvMove != Move.NOMOVE
+              && (!capturingOnly || Move.isCapturing(pvMove))
+              && isPseudoLegal(position, pvMove)) {
+            return pvMove;
+          }
+          break;
 
+        case GENERATE_CAPTURES:
           genMode = GEN_CAPTURES;
           generateCapturingMoves();
+          captureValues = rateMoves(capturingMoves, captureValues, 0);
+          generationCycleState = OnDemandState.GOOD_CAPTURES;
+          break;
 
-          if (SORT_CAPTURING_MOVES) {
-            capturingMoves.sort(mvvlvaComparator);
+        case GOOD_CAPTURES:
+          // pick the best capture as long as it is not a bad capture
+          while (captureIndex < capturingMoves.size()) {
+            pickBest(capturingMoves, captureValues, captureIndex);
+            if (captureValues[captureIndex] >= BAD_CAPTURE_VALUE) break;
+            move = capturingMoves.get(captureIndex++);
+            if (move != pvMove) return move;
           }
+          if (capturingOnly) generationCycleState = OnDemandState.BAD_CAPTURES;
+          else generationCycleState = OnDemandState.KILLERS;
+          break;
 
-          // Setting pv move
-          // setting all pv moves for capturing and non capturing move
-          // !!! must be valid move on the current position
-          // can't check/assert as this would be too expensive
-          if (pvMove != Move.NOMOVE) {
-            // pvMove is capturing
-            if (Move.isCapturing(pvMove)) {
-              if (!capturingMoves.pushToHeadStable(pvMove)) {
-                LOG.warn("pvMove was not a valid capturing move");
-              }
-            }
-            // pvMove is non capturing
-            else {
-              // only add it if we do want non capturing moves
-              // Move does need to be removed from non capturing moves later
-              // to not have it twice.
-              if (!capturingOnly) onDemandMoveList.add(pvMove);
+        case KILLERS:
+          // killers are tried before generating non capturing moves
+          // and only returned if they are valid non capturing moves in this position
+          while (killerIndex < killerMoves.size()) {
+            move = killerMoves.get(killerIndex++);
+            if (move != pvMove && !Move.isCapturing(move) && isPseudoLegal(position, move)) {
+              return move;
             }
           }
+          generationCycleState = OnDemandState.COUNTER_MOVE;
+          break;
 
-          // fill onDemand list
-          onDemandMoveList.add(capturingMoves);
+        case COUNTER_MOVE:
+          // the counter move to the last move is tried after the killers
+          generationCycleState = OnDemandState.GENERATE_QUIETS;
+          if (counterMove != Move.NOMOVE
+              && counterMove != pvMove
+              && !killerMoves.contains(counterMove)
+              && !Move.isCapturing(counterMove)
+              && isPseudoLegal(position, counterMove)) {
+            return counterMove;
+          }
+          break;
 
-          // all capturing moves are generated
-          if (capturingOnly) generationCycleState = OnDemandState.ALL;
-          else generationCycleState = OnDemandState.NON_CAPTURING;
+        case GENERATE_QUIETS:
+          genMode = GEN_NONCAPTURES;
+          generateNonCapturingMoves();
+          quietValues = rateMoves(nonCapturingMoves, quietValues, 0);
+          generationCycleState = OnDemandState.QUIETS;
           break;
 
-        case NON_CAPTURING:
-          assert !capturingOnly;
+        case QUIETS:
+          while (quietIndex < nonCapturingMoves.size()) {
+            pickBest(nonCapturingMoves, quietValues, quietIndex);
+            move = nonCapturingMoves.get(quietIndex++);
+            // pv, killers and counter move have already been returned
+            if (move != pvMove && move != counterMove && !killerMoves.contains(move)) return move;
+          }
+          generationCycleState = OnDemandState.BAD_CAPTURES;
+          break;
 
-          generateNonCapturingMoves();
+        case BAD_CAPTURES:
+          while (captureIndex < capturingMoves.size()) {
+            pickBest(capturingMoves, captureValues, captureIndex);
+            move = capturingMoves.get(captureIndex++);
+            if (move != pvMove) return move;
+          }
+          generationCycleState = OnDemandState.ALL;
+          break;
+
+        case ALL:
+          return Move.NOMOVE;
+      }
+    }
+  }
+
+  /**
+   * Returns the next legal move of the current generation cycle.<br>
+   * Same as <code>getNextPseudoLegalMove</code> but moves which would leave the king in check are
+   * skipped. Legality is tested with the pinned pieces and the check evasion mask which are
+   * computed once for the position so no make/undo of moves is needed.
+   *
+   * @param capturingOnly
+   * @return int representing the next legal Move. Returns Move.NOMOVE if none available
+   */
+  public int getNextLegalMove(boolean capturingOnly) {
+    int move;
+    while ((move = getNextPseudoLegalMove(capturingOnly)) != Move.NOMOVE) {
+      if (isLegalMove(move)) return move;
+    }
+    return Move.NOMOVE;
+  }
 
-          // full sort of non-capturing moves
-          moveListSort(nonCapturingMoves);
+  /**
+   * Fast check if the given move is pseudo legal in the given position without generating
+   * moves. A pseudo legal move is a move the move generation would generate for the position.
+   * It might still leave the king in check.
+   * <p>
+   * This is used to validate moves from the transposition table or killer moves which might have
+   * been stored for a different position (e.g. TT collisions).
+   *
+   * @param position
+   * @param move     any int - not necessarily a valid move encoding
+   * @return true if the move is pseudo legal in the position
+   */
+  public static boolean isPseudoLegal(Position position, int move) {
+    if (move == Move.NOMOVE || !Move.isValid(move)) return false;
+
+    final Color activePlayer = position.getNextPlayer();
+    final int start = Move.getStartIndex(move);
+    final int end = Move.getEndIndex(move);
+    final int pieceCode = Move.getPieceCode(move);
+    final int targetCode = Move.getTargetCode(move);
+    final int promotionCode = Move.getPromotionCode(move);
+
+    // our piece needs to be on the start square
+    if (position.getPieceCode(start) != pieceCode
+        || Piece.getColorOrdinal(pieceCode) != activePlayer.ordinal()) {
+      return false;
+    }
 
-          // fill onDemand list
-          onDemandMoveList.add(nonCapturingMoves);
+    final int pieceType = Piece.getTypeOrdinal(pieceCode);
+    final Square startSquare = Square.getSquare(start);
+    final Square endSquare = Square.getSquare(end);
+    final MoveType moveType = Move.getMoveType(move);
+
+    // special moves
+    switch (moveType) {
+      case CASTLING:
+        return pieceType == PieceType.KING.ordinal()
+               && targetCode == Piece.NO_CODE
+               && promotionCode == Piece.NO_CODE
+               && isPseudoLegalCastling(position, activePlayer, startSquare, endSquare);
+      case ENPASSANT:
+        return pieceType == PieceType.PAWN.ordinal()
+               && endSquare == position.getEnPassantSquare()
+               && targetCode == Piece.getPiece(PieceType.PAWN, activePlayer.getInverseColor()).code
+               && promotionCode == Piece.NO_CODE
+               && (Bitboard.getPawnAttacks(activePlayer, startSquare.index64)
+                   & endSquare.bitBoard) != 0;
+      default:
+        break;
+    }
 
-          // removing pv move as this has been handled in CAPTURING phase.
-          if (pvMove != Move.NOMOVE && !Move.isCapturing(pvMove)) onDemandMoveList.remove(pvMove);
+    // target needs to be the piece on the end square - empty or an opponent's piece but no king
+    if (position.getPieceCode(end) != targetCode) return false;
+    if (targetCode != Piece.NO_CODE
+        && (Piece.getColorOrdinal(targetCode) == activePlayer.ordinal()
+            || Piece.getTypeOrdinal(targetCode) == PieceType.KING.ordinal())) {
+      return false;
+    }
 
-          generationCycleState = OnDemandState.ALL;
-          break;
+    // pawns
+    if (pieceType == PieceType.PAWN.ordinal()) {
+      // promotion if and only if the pawn reaches the last rank
+      final boolean lastRank = activePlayer.isWhite() ? end > 111 : end < 8;
+      if (lastRank != (moveType == MoveType.PROMOTION)) return false;
+      if (lastRank) {
+        final int promotionType = Piece.getTypeOrdinal(promotionCode);
+        if (promotionCode == Piece.NO_CODE
+            || Piece.getColorOrdinal(promotionCode) != activePlayer.ordinal()
+            || promotionType == PieceType.PAWN.ordinal()
+            || promotionType == PieceType.KING.ordinal()) {
+          return false;
+        }
+      }
+      else if (promotionCode != Piece.NO_CODE) return false;
+
+      final int forward = Square.N * activePlayer.direction;
+      if (moveType == MoveType.PAWNDOUBLE) {
+        return targetCode == Piece.NO_CODE
+               && (activePlayer.isWhite()
+                   ? startSquare.isWhitePawnBaseRow()
+                   : startSquare.isBlackPawnBaseRow())
+               && end == start + 2 * forward
+               && position.getPieceCode(start + forward) == Piece.NO_CODE;
       }
+      if (targetCode == Piece.NO_CODE) return end == start + forward;
+      return (Bitboard.getPawnAttacks(activePlayer, startSquare.index64) & endSquare.bitBoard)
+             != 0;
     }
 
-    // return a move and delete it form the list
-    if (onDemandMoveList.empty()) return Move.NOMOVE;
-    else return onDemandMoveList.removeFirst();
+    // all other pieces only have normal moves
+    if (moveType != MoveType.NORMAL || promotionCode != Piece.NO_CODE) return false;
+
+    final long occupied = position.getAllOccupiedBitboard();
+    final long attacks;
+    switch (PieceType.values[pieceType]) {
+      case KNIGHT:
+        attacks = Bitboard.getKnightAttacks(startSquare.index64);
+        break;
+      case BISHOP:
+        attacks = Bitboard.getBishopAttacks(startSquare.index64, occupied);
+        break;
+      case ROOK:
+        attacks = Bitboard.getRookAttacks(startSquare.index64, occupied);
+        break;
+      case QUEEN:
+        attacks = Bitboard.getQueenAttacks(startSquare.index64, occupied);
+        break;
+      case KING:
+        attacks = Bitboard.getKingAttacks(startSquare.index64);
+        break;
+      default:
+        return false;
+    }
+    return (attacks & endSquare.bitBoard) != 0;
+  }
+
+  /**
+   * Checks castling with the same rules as <code>generateCastlingMoves</code>.
+   */
+  private static boolean isPseudoLegalCastling(Position position, Color activePlayer,
+                                               Square start, Square end) {
+    // no castling if we are in check
+    if (position.hasCheck()) return false;
+
+    final boolean castlingRight;
+    final Square passing;
+    final Square rookSquare;
+    switch (end) {
+      case g1:
+        castlingRight = activePlayer.isWhite() && position.isCastlingWK();
+        passing = Square.f1;
+        rookSquare = Square.h1;
+        break;
+      case c1:
+        castlingRight = activePlayer.isWhite() && position.isCastlingWQ();
+        passing = Square.d1;
+        rookSquare = Square.a1;
+        break;
+      case g8:
+        castlingRight = activePlayer.isBlack() && position.isCastlingBK();
+        passing = Square.f8;
+        rookSquare = Square.h8;
+        break;
+      case c8:
+        castlingRight = activePlayer.isBlack() && position.isCastlingBQ();
+        passing = Square.d8;
+        rookSquare = Square.a8;
+        break;
+      default:
+        return false;
+    }
+    if (!castlingRight || start != (activePlayer.isWhite() ? Square.e1 : Square.e8)) return false;
+
+    // all squares between king and rook free and passing square not attacked
+    return (Bitboard.getBetween(start.index64, rookSquare.index64)
+            & position.getAllOccupiedBitboard()) == 0
+           && !position.isAttacked(activePlayer.getInverseColor(), passing);
   }
 
   /**
@@ -426,40 +674,55 @@ public class MoveGenerator {
     }
 
     // lower amount of captures searched in quiescence search by only looking at "good" captures
-    // TODO: is this good?? better implementing SEE?
+    // Captures losing material in the static exchange evaluation are never searched. Even
+    // exchanges are only searched for pawn captures and recaptures.
+    final int lastMove = position.getLastMove();
     qSearchMoves.clear();
     for (int m = 0; m < capturingMoves.size(); m++) {
-      int move = capturingMoves.get(m);
-      // all pawn captures - they never loose material
-      if (Move.getPiece(move).getType() == PieceType.PAWN) {
+      final int move = capturingMoves.get(m);
+      // winning captures
+      if (Evaluation.seeGE(position, move, 1, seeGain)) {
         qSearchMoves.add(move);
       }
-      // recaptures @// @formatter:off
-      else if (position.getLastMove() != Move.NOMOVE
-               && Move.getEnd(position.getLastMove()) == Move.getEnd(move)
-               && Move.getTarget(position.getLastMove()) != Piece.NOPIECE) {
-        qSearchMoves.add(move);
-      }
-      // Lower value piece captures higher value piece
-      // With a margin to also look at Bishop x Knight
-      else if (Move.getPiece(move).getType().getValue() + 50
-               <= Move.getTarget(move).getType().getValue()) {
+      // even exchanges by pawns or recaptures @formatter:off
+      else if (Evaluation.seeGE(position, move, 0, seeGain)
+               && (Piece.getTypeOrdinal(Move.getPieceCode(move)) == PieceType.PAWN.ordinal()
+                   || (lastMove != Move.NOMOVE
+                       && Move.getEndIndex(lastMove) == Move.getEndIndex(move)
+                       && Move.isCapturing(lastMove)))) {
         qSearchMoves.add(move);
       }
       // @formatter:on
-      // undefended pieces captures are good
-      // If the defender is "behind" the attacker this will not be recognized here
-      // This is not too bad as it only adds a move to qsearch which we could otherwise ignore
-      else if (!position.isAttacked(position.getOpponent(), Move.getEnd(move))) {
-        qSearchMoves.add(move);
-      }
       // ignore all other captures
     }
+    // most valuable victim / least valuable attacker first
+    moveListSort(qSearchMoves);
 
     // return a clone of the list as we will continue to reuse
     return qSearchMoves;
   }
 
+  /**
+   * Generates legal moves for a position during quiescence search.<br>
+   * Same as <code>getPseudoLegalQSearchMoves</code> but moves which would leave the king in check
+   * are filtered out.
+   *
+   * <b>Attention:</b> returns a reference to the list of moves which will change after calling
+   * this again.<br>
+   * Make a clone if this is not desired.
+   *
+   * @return a reference to the list of legal moves
+   */
+  public MoveList getLegalQSearchMoves() {
+    final MoveList moves = getPseudoLegalQSearchMoves();
+    qSearchLegalMoves.clear();
+    for (int m = 0; m < moves.size(); m++) {
+      final int move = moves.get(m);
+      if (isLegalMove(move)) qSearchLegalMoves.add(move);
+    }
+    return qSearchLegalMoves;
+  }
+
   /**
    * Generates all pseudo legal moves from the given position.
    */
@@ -567,13 +830,23 @@ public class MoveGenerator {
   }
 
   /**
-   * Sort value for all moves. Smaller values heapsort first
+   * Sort value for all moves. Smaller values sort first
    */
   private int getSortValue(int move) {
     // capturing moves including capturing promotions
-    if (Move.getTarget(move) != Piece.NOPIECE) {
-      return Move.getPiece(move).getType().getValue() - Move.getPromotion(move).getType().getValue()
-             - Move.getTarget(move).getType().getValue();
+    if (Move.isCapturing(move)) {
+      final int pieceValue = PieceType.values[Piece.getTypeOrdinal(Move.getPieceCode(move))]
+        .getValue();
+      final int gain = PieceType.values[Piece.getTypeOrdinal(Move.getTargetCode(move))].getValue()
+                       + PieceType.values[Piece.getTypeOrdinal(Move.getPromotionCode(move))]
+                         .getValue();
+      // captures losing material in the static exchange evaluation are bad captures
+      // only possible if a higher value piece captures a lower value piece
+      if (pieceValue > gain) {
+        final int see = Evaluation.see(position, move, seeGain);
+        if (see < 0) return BAD_CAPTURE_VALUE - see;
+      }
+      return pieceValue - gain;
     }
     // non capturing
     else {
@@ -582,6 +855,10 @@ public class MoveGenerator {
       if (idx >= 0) {
         return 8000 + idx;
       }
+      // counter move
+      if (move == counterMove) {
+        return 8500;
+      }
       // promotions
       final PieceType pieceType = Move.getPromotion(move).getType();
       if (pieceType != PieceType.NOTYPE) {
@@ -591,18 +868,70 @@ public class MoveGenerator {
           case KNIGHT:
             return 9100;
           case ROOK:
-            return 10900;
+            return 18900;
           case BISHOP:
-            return 10900;
+            return 18900;
         }
       }
       // castling
       else if (Move.getMoveType(move) == MoveType.CASTLING) {
         return 9200;
       }
-      // all other moves
-      return 10000 - Evaluation.getPositionValue(position, move);
+      // all other moves by history and positional value
+      final int historyScore = moveHistory == null
+                               ? 0
+                               : moveHistory.getScore(move, position.getLastMove());
+      return 14000 - (historyScore >> 3) - Evaluation.getPositionValue(position, move);
+    }
+  }
+
+  /**
+   * Calculates the sort values for the moves of the given list starting at index
+   * <code>from</code>.
+   *
+   * @param moveList
+   * @param values   array for the sort values - will be replaced if too small
+   * @param from
+   * @return the array containing the sort values at the same index as the moves
+   */
+  private int[] rateMoves(MoveList moveList, int[] values, int from) {
+    final int size = moveList.size();
+    if (values.length < size) values = new int[size];
+    for (int i = from; i < size; i++) {
+      values[i] = getSortValue(moveList.get(i));
+    }
+    return values;
+  }
+
+  /**
+   * Selects the move with the smallest sort value at or after <code>index</code> and moves it to
+   * <code>index</code>. Moves in between keep their order so the selection is stable.
+   *
+   * @param moveList
+   * @param values
+   * @param index
+   */
+  private static void pickBest(MoveList moveList, int[] values, int index) {
+    int best = index;
+    for (int i = index + 1; i < moveList.size(); i++) {
+      if (values[i] < values[best]) best = i;
     }
+    if (best != index) moveToIndex(moveList, values, best, index);
+  }
+
+  /**
+   * Moves the entry at <code>from</code> to the lower index <code>to</code> and shifts the
+   * entries in between up by one. Values are moved accordingly if not null.
+   */
+  private static void moveToIndex(MoveList moveList, int[] values, int from, int to) {
+    final int move = moveList.get(from);
+    final int value = values == null ? 0 : values[from];
+    for (int i = from; i > to; i--) {
+      moveList.set(i, moveList.get(i - 1));
+      if (values != null) values[i] = values[i - 1];
+    }
+    moveList.set(to, move);
+    if (values != null) values[to] = value;
   }
 
   /**
@@ -614,27 +943,19 @@ public class MoveGenerator {
   private void moveListSort(MoveList moveList) {
     // create index array - this is faster then to call getSortValue() every
     // time a compare takes place
-    int[] sortIdx = new int[moveList.size()];
-    for (int i = 0; i < moveList.size(); i++) {
-      sortIdx[i] = getSortValue(moveList.get(i));
-    }
+    sortValues = rateMoves(moveList, sortValues, 0);
     // insertion sort
     int ts;
     for (int i = 0; i < moveList.size(); i++) {
       for (int j = i; j > 0; j--) {
-        if (sortIdx[j] - sortIdx[j - 1] < 0) {
+        if (sortValues[j] - sortValues[j - 1] < 0) {
           moveList.swap(j - 1, j);
-          ts = sortIdx[j];
-          sortIdx[j] = sortIdx[j - 1];
-          sortIdx[j - 1] = ts;
+          ts = sortValues[j];
+          sortValues[j] = sortValues[j - 1];
+          sortValues[j - 1] = ts;
         }
       }
     }
-    // DEBUG
-    //    for (int i = 0; i < moveList.size(); i++) {
-    //      System.out.printf("%-20s (%d)%n", Move.toString(moveList.get(i)), sortIdx[i]);
-    //    }
-    //    System.out.println();
   }
 
   /**
@@ -676,14 +997,15 @@ public class MoveGenerator {
           final Square fromSquare = Square.getSquare(square.ordinal());
           final Square toSquare = Square.getSquare(to);
           final Piece piece = Piece.getPiece(PieceType.PAWN, activePlayer);
-          final Piece target = position.getPiece(to);
+          final int targetCode = position.getPieceCode(to);
           final Piece promotion = Piece.NOPIECE;
 
           // capture
           if (d != Square.N) { // not straight
             if ((genMode & GEN_CAPTURES) > 0) {  // generating captures?
-              if (target != Piece.NOPIECE // not empty
-                  && (target.getColor() == activePlayer.getInverseColor())) { // opponents color
+              if (targetCode != Piece.NO_CODE // not empty
+                  && Piece.getColorOrdinal(targetCode) != activePlayer.ordinal()) { // opponent
+                final Piece target = Piece.fromCode(targetCode);
                 assert target.getType() != PieceType.KING; // did we miss a check?
                 // capture & promotion
                 if (to > 111) { // rank 8
@@ -737,7 +1059,8 @@ public class MoveGenerator {
           // no capture
           else { // straight
             if ((genMode & GEN_NONCAPTURES) > 0 // generate non captures
-                && target == Piece.NOPIECE) { // way needs to be free
+                && targetCode == Piece.NO_CODE) { // way needs to be free
+              final Piece target = Piece.NOPIECE;
               // promotion
               if (to > 111) { // rank 8
                 assert activePlayer.isWhite(); // checking for color is probably redundant
@@ -772,16 +1095,16 @@ public class MoveGenerator {
               else {
                 // pawndouble
                 if (activePlayer.isWhite() && fromSquare.isWhitePawnBaseRow()
-                    && (position.getPiece(fromSquare.ordinal() + (2 * Square.N)))
-                       == Piece.NOPIECE) {
+                    && position.getPieceCode(fromSquare.ordinal() + (2 * Square.N))
+                       == Piece.NO_CODE) {
                   // on rank 2 && rank 4 is free(rank 3 already checked via target)
                   nonCapturingMoves.add(
                     Move.createMove(MoveType.PAWNDOUBLE, fromSquare, toSquare.getNorth(), piece,
                                     target, promotion));
                 }
                 else if (activePlayer.isBlack() && fromSquare.isBlackPawnBaseRow()
-                         && position.getPiece(fromSquare.ordinal() + (2 * Square.S))
-                            == Piece.NOPIECE) {
+                         && position.getPieceCode(fromSquare.ordinal() + (2 * Square.S))
+                            == Piece.NO_CODE) {
                   // on rank 7 && rank 5 is free(rank 6 already checked via target)
                   nonCapturingMoves.add(
                     Move.createMove(MoveType.PAWNDOUBLE, fromSquare, toSquare.getSouth(), piece,
@@ -814,11 +1137,12 @@ public class MoveGenerator {
     final PieceType type = PieceType.BISHOP;
     // iterate over all squares where we have this piece type
     final SquareList squareList = position.getBishopSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square square = squareList.get(i);
       assert position.getPiece(square).getType() == type;
-      generateMoves(type, square, Square.bishopDirections);
+      generateSlidingMoves(type, square, Bitboard.getBishopAttacks(square.index64, occupied));
     }
   }
 
@@ -826,11 +1150,12 @@ public class MoveGenerator {
     final PieceType type = PieceType.ROOK;
     // iterate over all squares where we have this piece type
     final SquareList squareList = position.getRookSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square square = squareList.get(i);
       assert position.getPiece(square).getType() == type;
-      generateMoves(type, square, Square.rookDirections);
+      generateSlidingMoves(type, square, Bitboard.getRookAttacks(square.index64, occupied));
     }
   }
 
@@ -838,11 +1163,12 @@ public class MoveGenerator {
     final PieceType type = PieceType.QUEEN;
     // iterate over all squares where we have this piece type
     final SquareList squareList = position.getQueenSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square square = squareList.get(i);
       assert position.getPiece(square).getType() == type;
-      generateMoves(type, square, Square.queenDirections);
+      generateSlidingMoves(type, square, Bitboard.getQueenAttacks(square.index64, occupied));
     }
   }
 
@@ -866,21 +1192,22 @@ public class MoveGenerator {
       int to = square.ordinal() + d;
 
       while ((to & 0x88) == 0) { // slide while valid square
-        final Piece target = position.getPiece(to);
+        final int targetCode = position.getPieceCode(to);
 
         // free square - non capture
-        if (target == Piece.NOPIECE) { // empty
+        if (targetCode == Piece.NO_CODE) { // empty
           if ((genMode & GEN_NONCAPTURES) > 0) { // generate non captures
             nonCapturingMoves.add(
               Move.createMove(MoveType.NORMAL, Square.getSquare(square.ordinal()),
-                              Square.getSquare(to), Piece.getPiece(type, activePlayer), target,
-                              Piece.NOPIECE));
+                              Square.getSquare(to), Piece.getPiece(type, activePlayer),
+                              Piece.NOPIECE, Piece.NOPIECE));
           }
         }
         // occupied square - capture if opponent and stop sliding
         else {
           if ((genMode & GEN_CAPTURES) > 0) { // generate captures
-            if (target.getColor() == activePlayer.getInverseColor()) { // opponents color
+            if (Piece.getColorOrdinal(targetCode) != activePlayer.ordinal()) { // opponents color
+              final Piece target = Piece.fromCode(targetCode);
               assert target.getType() != PieceType.KING; // did we miss a check?
               capturingMoves.add(
                 Move.createMove(MoveType.NORMAL, Square.getSquare(square.ordinal()),
@@ -901,6 +1228,40 @@ public class MoveGenerator {
     }
   }
 
+  /**
+   * Generates the moves of a sliding piece from its attack bitboard (magic bitboard lookup).
+   *
+   * @param type
+   * @param square
+   * @param attacks bitboard of all squares attacked by the piece
+   */
+  private void generateSlidingMoves(PieceType type, Square square, long attacks) {
+    final Piece piece = Piece.getPiece(type, activePlayer);
+
+    if ((genMode & GEN_CAPTURES) > 0) { // generate captures
+      long captures =
+        attacks & position.getOccupiedBitboards(activePlayer.getInverseColor());
+      while (captures != 0) {
+        final Square to = Square.getSquareFromIndex64(Long.numberOfTrailingZeros(captures));
+        captures &= captures - 1; // clear lowest bit
+        final Piece target = position.getPiece(to);
+        assert target.getType() != PieceType.KING; // did we miss a check?
+        capturingMoves.add(
+          Move.createMove(MoveType.NORMAL, square, to, piece, target, Piece.NOPIECE));
+      }
+    }
+
+    if ((genMode & GEN_NONCAPTURES) > 0) { // generate non captures
+      long nonCaptures = attacks & ~position.getAllOccupiedBitboard();
+      while (nonCaptures != 0) {
+        final Square to = Square.getSquareFromIndex64(Long.numberOfTrailingZeros(nonCaptures));
+        nonCaptures &= nonCaptures - 1; // clear lowest bit
+        nonCapturingMoves.add(
+          Move.createMove(MoveType.NORMAL, square, to, piece, Piece.NOPIECE, Piece.NOPIECE));
+      }
+    }
+  }
+
   private void generateCastlingMoves() {
 
     if (position.hasCheck() // no castling if we are in check
@@ -915,10 +1276,10 @@ public class MoveGenerator {
         // f1 free, g1 free and f1 not attacked
         // we will not check if g1 is attacked as this is a pseudo legal move
         // and this to be checked separately e.g. when filtering for legal moves
-        if (position.getPiece(Square.f1.ordinal()) == Piece.NOPIECE // passing square free
+        if (position.getPieceCode(Square.f1.ordinal()) == Piece.NO_CODE // passing square free
             && !position.isAttacked(activePlayer.getInverseColor(), Square.f1)
             // passing square not attacked
-            && position.getPiece(Square.g1.ordinal()) == Piece.NOPIECE) // to square free
+            && position.getPieceCode(Square.g1.ordinal()) == Piece.NO_CODE) // to square free
         {
           nonCapturingMoves.add(
             Move.createMove(MoveType.CASTLING, Square.e1, Square.g1, Piece.WHITE_KING,
@@ -929,12 +1290,12 @@ public class MoveGenerator {
         // d1 free, c1 free and d1 not attacked
         // we will not check if d1 is attacked as this is a pseudo legal move
         // and this to be checked separately e.g. when filtering for legal moves
-        if (position.getPiece(Square.d1.ordinal()) == Piece.NOPIECE // passing square free
-            && position.getPiece(Square.b1.ordinal()) == Piece.NOPIECE
+        if (position.getPieceCode(Square.d1.ordinal()) == Piece.NO_CODE // passing square free
+            && position.getPieceCode(Square.b1.ordinal()) == Piece.NO_CODE
             // rook passing square free
             && !position.isAttacked(activePlayer.getInverseColor(), Square.d1)
             // passing square not attacked
-            && position.getPiece(Square.c1.ordinal()) == Piece.NOPIECE) // to square free
+            && position.getPieceCode(Square.c1.ordinal()) == Piece.NO_CODE) // to square free
         {
           nonCapturingMoves.add(
             Move.createMove(MoveType.CASTLING, Square.e1, Square.c1, Piece.WHITE_KING,
@@ -947,10 +1308,10 @@ public class MoveGenerator {
         // f8 free, g8 free and f8 not attacked
         // we will not check if g8 is attacked as this is a pseudo legal move
         // and this to be checked separately e.g. when filtering for legal moves
-        if (position.getPiece(Square.f8.ordinal()) == Piece.NOPIECE // passing square free
+        if (position.getPieceCode(Square.f8.ordinal()) == Piece.NO_CODE // passing square free
             && !position.isAttacked(activePlayer.getInverseColor(), Square.f8)
             // passing square not attacked
-            && position.getPiece(Square.g8.ordinal()) == Piece.NOPIECE) // to square free
+            && position.getPieceCode(Square.g8.ordinal()) == Piece.NO_CODE) // to square free
         {
           nonCapturingMoves.add(
             Move.createMove(MoveType.CASTLING, Square.e8, Square.g8, Piece.BLACK_KING,
@@ -961,12 +1322,12 @@ public class MoveGenerator {
         // d8 free, c8 free and d8 not attacked
         // we will not check if d8 is attacked as this is a pseudo legal move
         // and this to be checked separately e.g. when filtering for legal moves
-        if (position.getPiece(Square.d8.ordinal()) == Piece.NOPIECE // passing square free
-            && position.getPiece(Square.b8.ordinal()) == Piece.NOPIECE
+        if (position.getPieceCode(Square.d8.ordinal()) == Piece.NO_CODE // passing square free
+            && position.getPieceCode(Square.b8.ordinal()) == Piece.NO_CODE
             // rook passing square free
             && !position.isAttacked(activePlayer.getInverseColor(), Square.d8)
             // passing square not attacked
-            && position.getPiece(Square.c8.ordinal()) == Piece.NOPIECE) // to square free
+            && position.getPieceCode(Square.c8.ordinal()) == Piece.NO_CODE) // to square free
         {
           nonCapturingMoves.add(
             Move.createMove(MoveType.CASTLING, Square.e8, Square.c8, Piece.BLACK_KING,
@@ -1051,10 +1412,11 @@ public class MoveGenerator {
   private boolean findQueenMove() {
     PieceType type = PieceType.QUEEN;
     final SquareList squareList = position.getQueenSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square os = squareList.get(i);
-      if (findMove(type, os, Square.queenDirections)) return true;
+      if (findSlidingMove(type, os, Bitboard.getQueenAttacks(os.index64, occupied))) return true;
     }
     return false;
   }
@@ -1068,10 +1430,11 @@ public class MoveGenerator {
     PieceType type = PieceType.BISHOP;
     // iterate over all squares where we have this piece type
     final SquareList squareList = position.getBishopSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square os = squareList.get(i);
-      if (findMove(type, os, Square.bishopDirections)) return true;
+      if (findSlidingMove(type, os, Bitboard.getBishopAttacks(os.index64, occupied))) return true;
     }
     return false;
   }
@@ -1085,10 +1448,11 @@ public class MoveGenerator {
     PieceType type = PieceType.ROOK;
     // iterate over all squares where we have this piece type
     final SquareList squareList = position.getRookSquares()[activePlayer.ordinal()];
+    final long occupied = position.getAllOccupiedBitboard();
     final int size = squareList.size();
     for (int i = 0; i < size; i++) {
       final Square os = squareList.get(i);
-      if (findMove(type, os, Square.rookDirections)) return true;
+      if (findSlidingMove(type, os, Bitboard.getRookAttacks(os.index64, occupied))) return true;
     }
     return false;
   }
@@ -1107,20 +1471,20 @@ public class MoveGenerator {
     for (int d : pieceDirections) {
       int to = square.ordinal() + d;
       while ((to & 0x88) == 0) { // slide while valid square
-        final Piece target = position.getPiece(to);
+        final int targetCode = position.getPieceCode(to);
         // free square - non capture
-        if (target == Piece.NOPIECE) { // empty
+        if (targetCode == Piece.NO_CODE) { // empty
           move = Move.createMove(MoveType.NORMAL, Square.getSquare(square.ordinal()),
-                                 Square.getSquare(to), Piece.getPiece(type, activePlayer), target,
-                                 Piece.NOPIECE);
+                                 Square.getSquare(to), Piece.getPiece(type, activePlayer),
+                                 Piece.NOPIECE, Piece.NOPIECE);
           if (isLegalMove(move)) return true;
         }
         // occupied square - capture if opponent and stop sliding
         else {
-          if (target.getColor() == activePlayer.getInverseColor()) { // opponents color
+          if (Piece.getColorOrdinal(targetCode) != activePlayer.ordinal()) { // opponents color
             move = Move.createMove(MoveType.NORMAL, Square.getSquare(square.ordinal()),
-                                   Square.getSquare(to), Piece.getPiece(type, activePlayer), target,
-                                   Piece.NOPIECE);
+                                   Square.getSquare(to), Piece.getPiece(type, activePlayer),
+                                   Piece.fromCode(targetCode), Piece.NOPIECE);
             if (isLegalMove(move)) return true;
           }
           break; // stop sliding;
@@ -1136,6 +1500,28 @@ public class MoveGenerator {
     return false;
   }
 
+  /**
+   * Finds moves of a sliding piece from its attack bitboard (magic bitboard lookup). Returns
+   * immediately if a legal move has been found.
+   *
+   * @param type
+   * @param square
+   * @param attacks bitboard of all squares attacked by the piece
+   * @return true if a move has been found
+   */
+  private boolean findSlidingMove(PieceType type, Square square, long attacks) {
+    final Piece piece = Piece.getPiece(type, activePlayer);
+    long targets = attacks & ~position.getOccupiedBitboards(activePlayer);
+    while (targets != 0) {
+      final Square to = Square.getSquareFromIndex64(Long.numberOfTrailingZeros(targets));
+      targets &= targets - 1; // clear lowest bit
+      final int move = Move.createMove(MoveType.NORMAL, square, to, piece, position.getPiece(to),
+                                       Piece.NOPIECE);
+      if (isLegalMove(move)) return true;
+    }
+    return false;
+  }
+
   /**
    * Find a Pawn move and return immediately if found. No need to check promotions or pawn doubles.
    *
@@ -1162,13 +1548,14 @@ public class MoveGenerator {
           final Square fromSquare = Square.getSquare(square.ordinal());
           final Square toSquare = Square.getSquare(to);
           final Piece piece = Piece.getPiece(PieceType.PAWN, activePlayer);
-          final Piece target = position.getPiece(to);
+          final int targetCode = position.getPieceCode(to);
           final Piece promotion = Piece.NOPIECE;
           // capture
           if (d != Square.N) { // not straight
-            if (target != Piece.NOPIECE // not empty
-                && (target.getColor() == activePlayer.getInverseColor())) { // opponents color
-              move = Move.createMove(type, fromSquare, toSquare, piece, target, promotion);
+            if (targetCode != Piece.NO_CODE // not empty
+                && Piece.getColorOrdinal(targetCode) != activePlayer.ordinal()) { // opponent
+              move = Move.createMove(type, fromSquare, toSquare, piece,
+                                     Piece.fromCode(targetCode), promotion);
               if (isLegalMove(move)) return true;
             }
             else { // empty but maybe en passant
@@ -1185,8 +1572,8 @@ public class MoveGenerator {
           }
           // no capture
           else { // straight
-            if (target == Piece.NOPIECE) { // way needs to be free
-              move = Move.createMove(type, fromSquare, toSquare, piece, target, promotion);
+            if (targetCode == Piece.NO_CODE) { // way needs to be free
+              move = Move.createMove(type, fromSquare, toSquare, piece, Piece.NOPIECE, promotion);
               if (isLegalMove(move)) return true;
             }
           }
@@ -1198,12 +1585,99 @@ public class MoveGenerator {
 
   /**
    * Test if move is legal on the current position for the next player.
+   * <p>
+   * Uses the pinned pieces and the check evasion mask of the position. King moves are tested
+   * for attacks on the target square with the king removed from the board. En passant and
+   * castling are rare and are tested by making the move.
    *
    * @param move
    * @return true if king of active player is not attacked after the move
    */
   private boolean isLegalMove(int move) {
     assert Move.isValid(move);
+
+    final MoveType moveType = Move.getMoveType(move);
+    if (moveType == MoveType.ENPASSANT || moveType == MoveType.CASTLING) {
+      return isLegalMoveByMakeMove(move);
+    }
+
+    if (!legalityInfoValid) computeLegalityInfo();
+
+    final Square from = Move.getStart(move);
+    final Square to = Move.getEnd(move);
+
+    // king must not move to an attacked square - slider attacks through the
+    // king's current square need to be seen so the king is removed
+    if (Move.getPiece(move).getType() == PieceType.KING) {
+      final long occupied = position.getAllOccupiedBitboard() ^ from.bitBoard;
+      return (position.attackersTo(to, occupied)
+              & position.getOccupiedBitboards(activePlayer.getInverseColor())) == 0;
+    }
+
+    // when in check the move must capture the checker or block the check
+    if ((to.bitBoard & checkMask) == 0) return false;
+
+    // pinned pieces may only move along the line of the pin
+    if ((from.bitBoard & pinnedPieces) != 0) {
+      return (Bitboard.getLine(kingIndex64, from.index64) & to.bitBoard) != 0;
+    }
+
+    return true;
+  }
+
+  /**
+   * Computes the pinned pieces and the check evasion mask for the active player.
+   */
+  private void computeLegalityInfo() {
+    final Color opponent = activePlayer.getInverseColor();
+    final long occupied = position.getAllOccupiedBitboard();
+    final long ownPieces = position.getOccupiedBitboards(activePlayer);
+    final long[] opponentPieces = position.getPiecesBitboards(opponent);
+    final Square kingSquare = position.getKingSquares()[activePlayer.ordinal()];
+    kingIndex64 = kingSquare.index64;
+
+    // check evasion mask - all squares when not in check, checker and squares between
+    // checker and king when in single check, no squares when in double check
+    final long checkers = position.attackersTo(kingSquare, occupied)
+                          & position.getOccupiedBitboards(opponent);
+    if (checkers == 0) {
+      checkMask = ~0L;
+    }
+    else if ((checkers & (checkers - 1)) == 0) {
+      checkMask = checkers | Bitboard.getBetween(kingIndex64, Long.numberOfTrailingZeros(checkers));
+    }
+    else {
+      checkMask = 0L;
+    }
+
+    // pinned pieces - own pieces which are the only piece between the king and
+    // an opponent slider
+    pinnedPieces = 0L;
+    long snipers = (Bitboard.getRookAttacks(kingIndex64, 0L) & (
+      opponentPieces[PieceType.ROOK.ordinal()] | opponentPieces[PieceType.QUEEN.ordinal()])) | (
+                     Bitboard.getBishopAttacks(kingIndex64, 0L) & (
+                       opponentPieces[PieceType.BISHOP.ordinal()]
+                       | opponentPieces[PieceType.QUEEN.ordinal()]));
+    while (snipers != 0) {
+      final int sniper = Long.numberOfTrailingZeros(snipers);
+      snipers &= snipers - 1; // clear lowest bit
+      final long between = Bitboard.getBetween(kingIndex64, sniper) & occupied;
+      if (between != 0 && (between & (between - 1)) == 0) {
+        pinnedPieces |= between & ownPieces;
+      }
+    }
+
+    legalityInfoValid = true;
+  }
+
+  /**
+   * Test if move is legal on the current position for the next player by making the move on the
+   * position.
+   *
+   * @param move
+   * @return true if king of active player is not attacked after the move
+   */
+  private boolean isLegalMoveByMakeMove(int move) {
     // make the move on the position
     position.makeMove(move);
     // check if the move leaves the king in check
@@ -1220,7 +1694,6 @@ public class MoveGenerator {
    * Clears all lists
    */
   private void clearLists() {
-    onDemandMoveList.clear();
     legalMoves.clear();
     pseudoLegalMoves.clear();
     capturingMoves.clear();
@@ -0,0 +1,184 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import java.util.Arrays;
+
+/**
+ * History tables for ordering non capturing moves.
+ * <p>
+ * Holds the butterfly history [color][from][to], the counter moves [piece][to] of the previous
+ * move and the continuation history [previous piece][previous to][piece][to]. All are updated
+ * on beta cut-offs of non capturing moves.
+ * <p>
+ * History values are updated with a "gravity" formula which keeps them within
+ * +/-MAX_HISTORY: <code>h += bonus - h * |bonus| / MAX_HISTORY</code>. Values are halved
+ * between searches so older information decays.
+ * <p>
+ * Not thread safe - each search thread has its own instance.
+ * <p>
+ * https://www.chessprogramming.org/History_Heuristic<br>
+ * https://www.chessprogramming.org/Countermove_Heuristic
+ */
+public class MoveHistory {
+
+  /**
+   * Maximal absolute value of a history entry
+   */
+  public static final int MAX_HISTORY = 16384;
+
+  // maximal bonus per update - reached at depth 20
+  private static final int MAX_BONUS = 400;
+
+  // number of possible piece codes (see Piece.code)
+  private static final int PIECE_CODES = 16;
+
+  // butterfly history [color][from][to] with 64 square indices
+  private final int[][][] history = new int[2][64][64];
+
+  // counter moves indexed by piece code and 64 square index of the previous move
+  private final int[] counterMoves = new int[PIECE_CODES * 64];
+
+  // continuation history [prev piece][prev to][piece][to] as flat array
+  private final int[] continuationHistory = new int[PIECE_CODES * 64 * PIECE_CODES * 64];
+
+  /**
+   * Memory used by the history tables of one instance in bytes (about 4 MB)
+   */
+  public static final int SIZE_IN_BYTES =
+    Integer.BYTES * (2 * 64 * 64 + PIECE_CODES * 64 + PIECE_CODES * 64 * PIECE_CODES * 64);
+
+  /**
+   * Creates new empty history tables
+   */
+  public MoveHistory() {
+    clear();
+  }
+
+  /**
+   * Clears all history tables
+   */
+  public void clear() {
+    for (int[][] c : history) for (int[] f : c) Arrays.fill(f, 0);
+    Arrays.fill(counterMoves, Move.NOMOVE);
+    Arrays.fill(continuationHistory, 0);
+  }
+
+  /**
+   * Halves all history values so information from older searches has less weight.
+   */
+  public void age() {
+    for (int[][] c : history) {
+      for (int[] f : c) {
+        for (int t = 0; t < f.length; t++) f[t] /= 2;
+      }
+    }
+    for (int i = 0; i < continuationHistory.length; i++) continuationHistory[i] /= 2;
+  }
+
+  /**
+   * Returns the history score of a non capturing move. This is the sum of the butterfly history
+   * and the continuation history for the previous move.
+   *
+   * @param move     the move to rate
+   * @param lastMove the previous move in the position or Move.NOMOVE
+   * @return history score within +/-2*MAX_HISTORY
+   */
+  public int getScore(int move, int lastMove) {
+    final int piece = Move.getPieceCode(move);
+    final int to = index64(Move.getEndIndex(move));
+    int score = history[Piece.getColorOrdinal(piece)][index64(Move.getStartIndex(move))][to];
+    if (lastMove != Move.NOMOVE) {
+      score += continuationHistory[continuationIndex(lastMove, piece, to)];
+    }
+    return score;
+  }
+
+  /**
+   * @param lastMove the previous move in the position
+   * @return the counter move stored for the last move or Move.NOMOVE
+   */
+  public int getCounterMove(int lastMove) {
+    if (lastMove == Move.NOMOVE) return Move.NOMOVE;
+    return counterMoves[counterIndex(lastMove)];
+  }
+
+  /**
+   * Updates the history of a non capturing move which caused a beta cut-off and stores it as
+   * counter move to the previous move.
+   *
+   * @param move     the move which caused the cut-off
+   * @param lastMove the previous move in the position or Move.NOMOVE
+   * @param depth    the remaining search depth of the node
+   */
+  public void updateCutOff(int move, int lastMove, int depth) {
+    update(move, lastMove, getBonus(depth));
+    if (lastMove != Move.NOMOVE) counterMoves[counterIndex(lastMove)] = move;
+  }
+
+  /**
+   * Lowers the history of a non capturing move which has been searched before the move
+   * causing the beta cut-off.
+   *
+   * @param move     the move which did not cause the cut-off
+   * @param lastMove the previous move in the position or Move.NOMOVE
+   * @param depth    the remaining search depth of the node
+   */
+  public void updateFailed(int move, int lastMove, int depth) {
+    update(move, lastMove, -getBonus(depth));
+  }
+
+  private void update(int move, int lastMove, int bonus) {
+    final int piece = Move.getPieceCode(move);
+    final int to = index64(Move.getEndIndex(move));
+    final int[] fromTo = history[Piece.getColorOrdinal(piece)][index64(Move.getStartIndex(move))];
+    fromTo[to] = gravity(fromTo[to], bonus);
+    if (lastMove != Move.NOMOVE) {
+      final int idx = continuationIndex(lastMove, piece, to);
+      continuationHistory[idx] = gravity(continuationHistory[idx], bonus);
+    }
+  }
+
+  private static int gravity(int value, int bonus) {
+    return value + bonus - value * Math.abs(bonus) / MAX_HISTORY;
+  }
+
+  private static int getBonus(int depth) {
+    return Math.min(depth * depth, MAX_BONUS);
+  }
+
+  private static int counterIndex(int lastMove) {
+    return Move.getPieceCode(lastMove) * 64 + index64(Move.getEndIndex(lastMove));
+  }
+
+  private static int continuationIndex(int lastMove, int piece, int to) {
+    return (counterIndex(lastMove) * PIECE_CODES + piece) * 64 + to;
+  }
+
+  private static int index64(int x88) {
+    return Square.getSquare(x88).index64;
+  }
+}
@@ -139,17 +139,11 @@ public class PERFT {
     long totalNodes = 0L;
 
     // moves to search recursively
-    // some convenience fields
-    final Color _activePlayer = position.getNextPlayer();
-    final Color _passivePlayer = position.getNextPlayer().getInverseColor();
     mg[ply].setPosition(position);
     int move;
-    while ((move = mg[ply].getNextPseudoLegalMove(false)) != Move.NOMOVE) {
+    while ((move = mg[ply].getNextLegalMove(false)) != Move.NOMOVE) {
       position.makeMove(move);
-      if (!position.isAttacked(_passivePlayer,
-                               position.getKingSquares()[_activePlayer.ordinal()])) {
-        totalNodes += miniMaxOD(depthleft - 1, position, mg, ply + 1);
-      }
+      totalNodes += miniMaxOD(depthleft - 1, position, mg, ply + 1);
       position.undoMove();
     }
     return totalNodes;
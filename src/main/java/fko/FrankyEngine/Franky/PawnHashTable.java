@@ -0,0 +1,175 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache for pawn structure evaluations keyed by the pawn zobrist key of a position.
+ * <p>
+ * Pawns move rarely compared to other pieces so a pawn hash table has a very high hit rate
+ * and an expensive pawn structure evaluation costs almost nothing per node.
+ * <p>
+ * Implementation uses a flat array of primitive longs. Each entry uses four longs - the
+ * pawn zobrist key, the mid and end game values (as packed Score) and the passed pawn
+ * bitboards of white and black. Values are from white's view. Entries are always replaced.
+ * <p>
+ * Not thread safe - each evaluation has its own instance.
+ */
+public class PawnHashTable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PawnHashTable.class);
+
+  private static final int KB = 1024;
+  private static final int MB = KB * KB;
+
+  /** size of an entry in bytes - key, values and two passed pawn bitboards */
+  static final int ENTRY_SIZE = 4 * Long.BYTES;
+
+  // zobrist keys are built from non negative random numbers and are never negative
+  private static final long EMPTY = -1L;
+
+  private final long[] entries;
+  private final int    indexMask;
+
+  private long numberOfHits   = 0;
+  private long numberOfMisses = 0;
+
+  /**
+   * Creates a pawn hash table with the largest power of two number of entries which fits
+   * into the given size.
+   *
+   * @param size in MB (1024B^2)
+   */
+  public PawnHashTable(int size) {
+    if (size < 1) {
+      final String msg = "Pawn hash table must a least be 1 MB in size";
+      IllegalArgumentException e = new IllegalArgumentException(msg);
+      LOG.error(msg, e);
+      throw e;
+    }
+    final long maxEntries = (long) size * MB / ENTRY_SIZE;
+    final int numberOfEntries = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 28));
+    entries = new long[numberOfEntries * 4];
+    indexMask = numberOfEntries - 1;
+    clear();
+  }
+
+  /**
+   * Looks up the entry for the given pawn key.
+   *
+   * @param key pawn zobrist key of the position
+   * @return the index of the entry to be used with the getters or -1 if there is no entry
+   */
+  public int find(long key) {
+    final int index = ((int) key & indexMask) << 2;
+    if (entries[index] == key) {
+      numberOfHits++;
+      return index;
+    }
+    numberOfMisses++;
+    return -1;
+  }
+
+  /**
+   * Stores a pawn structure evaluation
+   *
+   * @param key         pawn zobrist key of the position
+   * @param score       packed mid and end game Score from white's view
+   * @param passedWhite bitboard of white's passed pawns
+   * @param passedBlack bitboard of black's passed pawns
+   * @return the index of the new entry to be used with the getters
+   */
+  public int put(long key, int score, long passedWhite, long passedBlack) {
+    final int index = ((int) key & indexMask) << 2;
+    entries[index] = key;
+    entries[index + 1] = score;
+    entries[index + 2] = passedWhite;
+    entries[index + 3] = passedBlack;
+    return index;
+  }
+
+  /**
+   * @param index index of an entry from <code>find()</code> or <code>put()</code>
+   * @return the packed mid and end game Score from white's view
+   */
+  public int getScore(int index) {
+    return (int) entries[index + 1];
+  }
+
+  /**
+   * @param index index of an entry from <code>find()</code> or <code>put()</code>
+   * @param color
+   * @return bitboard of the passed pawns of the given color
+   */
+  public long getPassedPawns(int index, Color color) {
+    return entries[index + 2 + color.ordinal()];
+  }
+
+  /**
+   * Clears all entries
+   */
+  public void clear() {
+    for (int i = 0; i < entries.length; i += 4) entries[i] = EMPTY;
+  }
+
+  /**
+   * @return number of entries of the table
+   */
+  public int getMaxEntries() {
+    return indexMask + 1;
+  }
+
+  /**
+   * @return memory used by the table in bytes
+   */
+  public long getSizeInBytes() {
+    return (long) entries.length * Long.BYTES;
+  }
+
+  /**
+   * @return number of successful lookups
+   */
+  public long getNumberOfHits() {
+    return numberOfHits;
+  }
+
+  /**
+   * @return number of failed lookups
+   */
+  public long getNumberOfMisses() {
+    return numberOfMisses;
+  }
+
+  @Override
+  public String toString() {
+    final long probes = numberOfHits + numberOfMisses;
+    return String.format("PawnHashTable{entries=%,d hits=%,d misses=%,d hitRate=%.1f%%}",
+                         getMaxEntries(), numberOfHits, numberOfMisses,
+                         probes == 0 ? 0f : 100f * numberOfHits / probes);
+  }
+}
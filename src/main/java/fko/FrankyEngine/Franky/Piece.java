@@ -46,18 +46,37 @@ public enum Piece {
 
   static final Piece[] values;
 
+  /*
+   * Primitive code of a piece for boards and moves. Type and color can be
+   * recovered by bit operations without looking up the enum.
+   * Bits 0-2 type ordinal, bit 3 color ordinal (0 white, 1 black), NOPIECE=0
+   */
+  public static final int TYPE_MASK   = 0b111;
+  public static final int COLOR_SHIFT = 3;
+  public static final int NO_CODE     = 0;
+
+  // lookup from code to piece
+  private static final Piece[] codeToPiece = new Piece[16];
+
+  /**
+   * pre-computed primitive code of this piece
+   */
+  public final byte code;
+
   private final PieceType _type;
   private final Color     _color;
   private final String    _shortName;
 
   static {
     values = Piece.values();
+    for (Piece p : values) codeToPiece[p.code] = p;
   }
 
   Piece(PieceType type, Color color, String shortName) {
     _type = type;
     _color = color;
     _shortName = shortName;
+    code = color.isNone() ? NO_CODE : (byte) (color.ordinal() << COLOR_SHIFT | type.ordinal());
   }
 
   /**
@@ -99,11 +118,35 @@ public enum Piece {
   }
 
   /**
-   * @param i
-   * @return returns true if this is a valid piece type
+   * @param code primitive code of a piece
+   * @return the Piece for the given code
+   */
+  public static Piece fromCode(int code) {
+    return codeToPiece[code];
+  }
+
+  /**
+   * @param code primitive code of a piece
+   * @return the ordinal of the PieceType of the given code
+   */
+  public static int getTypeOrdinal(int code) {
+    return code & TYPE_MASK;
+  }
+
+  /**
+   * @param code primitive code of a piece (not NO_CODE)
+   * @return the ordinal of the Color of the given code
+   */
+  public static int getColorOrdinal(int code) {
+    return code >>> COLOR_SHIFT;
+  }
+
+  /**
+   * @param code
+   * @return returns true if this is a valid piece code
    */
-  public static boolean isValid(int i) {
-    return i >= 0 && i <= 12;
+  public static boolean isValid(int code) {
+    return code >= 0 && code < codeToPiece.length && codeToPiece[code] != null;
   }
 
 }
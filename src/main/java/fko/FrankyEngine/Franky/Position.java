@@ -71,10 +71,19 @@ public class Position {
   /* Max History */
   private static final int MAX_HISTORY = 512;
 
+  /**
+   * Game phase value of the start position - see <code>getGamePhaseValue()</code>
+   */
+  public static final int GAME_PHASE_MAX = 24;
+
+  /**
+   * Number of bits per piece in the material key - see <code>getMaterialKey()</code>
+   */
+  public static final int MATERIAL_KEY_BITS = 4;
+
   // Convenience constants
-  private static final int GAME_PHASE_MAX = 24;
-  private static final int WHITE          = Color.WHITE.ordinal();
-  private static final int BLACK          = Color.BLACK.ordinal();
+  private static final int WHITE = Color.WHITE.ordinal();
+  private static final int BLACK = Color.BLACK.ordinal();
 
   /*
    * The zobrist key to use as a hash key in transposition tables
@@ -83,42 +92,70 @@ public class Position {
   private long   zobristKey        = 0;
   private long[] zobristKeyHistory = new long[MAX_HISTORY];
 
+  /*
+   * The zobrist key of the pawns only to use as a hash key in the pawn hash table.
+   * Updated incrementally when a pawn is put, removed or moved. As xor is its own inverse
+   * undoMove restores it by moving the pawns back.
+   */
+  private long pawnZobristKey = 0;
+
+  /*
+   * The material key to use as a hash key in the material hash table. Holds the number of
+   * pieces of each piece in 4 bits per piece (see MATERIAL_KEY_BITS) - positions with the
+   * same material have the same key. Updated incrementally when a piece is put or removed.
+   */
+  private long materialKey = 0;
+
   // history counter
   private int historyCounter = 0;
 
+  /*
+   * Irreversible state for undoMove packed into one int per ply:
+   * castling rights, en passant square, check and mate flags and the half move clock.
+   * Together with zobristKeyHistory and moveHistory this is the undo record of a ply.
+   */
+  private int[] stateHistory = new int[MAX_HISTORY];
+
+  // @formatter:off
+  private static final int CASTLING_WK_BIT      = 1;
+  private static final int CASTLING_WQ_BIT      = 1 << 1;
+  private static final int CASTLING_BK_BIT      = 1 << 2;
+  private static final int CASTLING_BQ_BIT      = 1 << 3;
+  private static final int EN_PASSANT_SHIFT     = 4;
+  private static final int EN_PASSANT_MASK      = 0xFF << EN_PASSANT_SHIFT;
+  private static final int CHECK_FLAG_SHIFT     = 12;
+  private static final int MATE_FLAG_SHIFT      = 14;
+  private static final int FLAG_MASK            = 0b11;
+  private static final int HALF_MOVE_SHIFT      = 16;
+  // @formatter:on
+
   // **********************************************************
   // Board State START ----------------------------------------
   // unique chess position (exception is 3-fold repetition
   // which is also not represented in a FEN string)
   //
   // 0x88 Board
-  private Piece[] x88Board = new Piece[BOARDSIZE];
+  private final byte[] x88Board = new byte[BOARDSIZE];
 
   // hash for pieces - piece, board
   private static final long[][] pieceZobrist = new long[Piece.values.length][Square.values.length];
 
   // Castling rights
   private              boolean   castlingWK         = true;
-  private              boolean[] castlingWK_History = new boolean[MAX_HISTORY];
   private static final long      castlingWK_Zobrist;
   private              boolean   castlingWQ         = true;
-  private              boolean[] castlingWQ_History = new boolean[MAX_HISTORY];
   private static final long      castlingWQ_Zobrist;
   private              boolean   castlingBK         = true;
-  private              boolean[] castlingBK_History = new boolean[MAX_HISTORY];
   private static final long      castlingBK_Zobrist;
   private              boolean   castlingBQ         = true;
-  private              boolean[] castlingBQ_History = new boolean[MAX_HISTORY];
   private static final long      castlingBQ_Zobrist;
 
   // en passant field - if NOSQUARE then we do not have an en passant option
   private              Square   enPassantSquare         = Square.NOSQUARE;
-  private              Square[] enPassantSquare_History = new Square[MAX_HISTORY];
   private static final long[]   enPassantSquare_Zobrist = new long[Square.values.length];
 
   // half move clock - number of half moves since last capture
   private int   halfMoveClock        = 0;
-  private int[] halfMoveClockHistory = new int[MAX_HISTORY];
   // has no zobrist key
 
   // next player color
@@ -154,15 +191,16 @@ public class Position {
   // Material value will always be up to date
   private int[] material;
 
+  // Piece square table values for mid and end game (packed Score) will always be up to date
+  private int[] pieceSquareScore;
+
   // Game phase value
   private int gamePhase;
 
   // caches a hasCheck and hasMate Flag for the current position. Will be set after
   // a call to hasCheck() and reset to TBD every time a move is made or unmade.
-  private Flag   hasCheck            = Flag.TBD;
-  private Flag[] hasCheckFlagHistory = new Flag[MAX_HISTORY];
-  private Flag   hasMate             = Flag.TBD;
-  private Flag[] hasMateFlagHistory  = new Flag[MAX_HISTORY];
+  private Flag hasCheck = Flag.TBD;
+  private Flag hasMate  = Flag.TBD;
 
   // internal move generator for check if position is mate - might not be good place
   // as it couples this class to the MoveGernerator class
@@ -170,7 +208,9 @@ public class Position {
 
   // Flag for boolean states with undetermined state
   private enum Flag {
-    TBD, TRUE, FALSE
+    TBD, TRUE, FALSE;
+
+    static final Flag[] values = Flag.values();
   }
 
   // **********************************************************
@@ -204,6 +244,22 @@ public class Position {
     // set or unset this for the two color options
     nextPlayer_Zobrist = Math.abs(random.nextLong());
   }
+
+  // **********************************************************
+  // Static Initialization for piece square values
+  // Lookup of the packed mid and end game values from EvaluationConfig for
+  // all pieces on all squares for the incremental update of the piece square sums.
+  private static final int[][] pieceSquareScores =
+    new int[Piece.values.length][Square.values.length];
+
+  static {
+    for (Piece p : Piece.values) {
+      if (p == Piece.NOPIECE) continue;
+      for (Square s : Square.validSquares) {
+        pieceSquareScores[p.ordinal()][s.ordinal()] = EvaluationConfig.getPieceSquareScore(p, s);
+      }
+    }
+  }
   // **********************************************************
 
   // Constructors START -----------------------------------------
@@ -240,6 +296,8 @@ public class Position {
     this.nextHalfMoveNumber = op.nextHalfMoveNumber;
     this.nextPlayer = op.nextPlayer;
     this.zobristKey = op.zobristKey;
+    this.pawnZobristKey = op.pawnZobristKey;
+    this.materialKey = op.materialKey;
 
     this.castlingWK = op.castlingWK;
     this.castlingWQ = op.castlingWQ;
@@ -251,24 +309,11 @@ public class Position {
     this.hasCheck = op.hasCheck;
     this.hasMate = op.hasMate;
 
-    // history
+    // history - only the plies actually played
     this.historyCounter = op.historyCounter;
-    System.arraycopy(op.zobristKeyHistory, 0, zobristKeyHistory, 0, zobristKeyHistory.length);
-
-    System.arraycopy(op.castlingWK_History, 0, castlingWK_History, 0, castlingWK_History.length);
-    System.arraycopy(op.castlingWQ_History, 0, castlingWQ_History, 0, castlingWQ_History.length);
-    System.arraycopy(op.castlingBK_History, 0, castlingBK_History, 0, castlingBK_History.length);
-    System.arraycopy(op.castlingBQ_History, 0, castlingBQ_History, 0, castlingBQ_History.length);
-    System.arraycopy(op.enPassantSquare_History, 0, enPassantSquare_History, 0,
-                     enPassantSquare_History.length);
-    System.arraycopy(op.halfMoveClockHistory, 0, halfMoveClockHistory, 0,
-                     halfMoveClockHistory.length);
-
-    System.arraycopy(op.hasCheckFlagHistory, 0, hasCheckFlagHistory, 0, hasCheckFlagHistory.length);
-    System.arraycopy(op.hasMateFlagHistory, 0, hasMateFlagHistory, 0, hasMateFlagHistory.length);
-
-    // move history
-    System.arraycopy(op.moveHistory, 0, moveHistory, 0, op.moveHistory.length);
+    System.arraycopy(op.zobristKeyHistory, 0, zobristKeyHistory, 0, historyCounter);
+    System.arraycopy(op.stateHistory, 0, stateHistory, 0, historyCounter);
+    System.arraycopy(op.moveHistory, 0, moveHistory, 0, historyCounter);
 
     // copy piece lists and bitboards
     for (int i = 0; i <= 1; i++) { // foreach color
@@ -290,6 +335,11 @@ public class Position {
     this.material[WHITE] = op.material[WHITE];
     this.material[BLACK] = op.material[BLACK];
     this.gamePhase = op.gamePhase;
+
+    // copy piece square values
+    pieceSquareScore = new int[2];
+    this.pieceSquareScore[WHITE] = op.pieceSquareScore[WHITE];
+    this.pieceSquareScore[BLACK] = op.pieceSquareScore[BLACK];
   }
 
   /**
@@ -299,7 +349,7 @@ public class Position {
    * @return returns the piece or <code>NOPIECE</code> of the given square
    */
   public Piece getPiece(final Square square) {
-    return x88Board[square.ordinal()];
+    return Piece.fromCode(x88Board[square.ordinal()]);
   }
 
   /**
@@ -309,9 +359,30 @@ public class Position {
    * @return returns the piece or <code>NOPIECE</code> of the given square
    */
   public Piece getPiece(final int x88idx) {
+    return Piece.fromCode(x88Board[x88idx]);
+  }
+
+  /**
+   * Retrieve the primitive code of the piece on given index on x88Board (see
+   * <code>Piece.code</code>).
+   *
+   * @param x88idx
+   * @return returns the piece code or <code>Piece.NO_CODE</code> for an empty square
+   */
+  public int getPieceCode(final int x88idx) {
     return x88Board[x88idx];
   }
 
+  /**
+   * Retrieve the primitive code of the piece on given square (see <code>Piece.code</code>).
+   *
+   * @param square
+   * @return returns the piece code or <code>Piece.NO_CODE</code> for an empty square
+   */
+  public int getPieceCode(final Square square) {
+    return x88Board[square.ordinal()];
+  }
+
   /**
    * Commits a move to the board. Due to performance there is no check if this move is legal on the
    * current position. Legal check needs to be done beforehand. Usually the move will be generated by
@@ -333,15 +404,8 @@ public class Position {
 
     // Save state for undoMove
     moveHistory[historyCounter] = move;
-    castlingWK_History[historyCounter] = castlingWK;
-    castlingWQ_History[historyCounter] = castlingWQ;
-    castlingBK_History[historyCounter] = castlingBK;
-    castlingBQ_History[historyCounter] = castlingBQ;
-    enPassantSquare_History[historyCounter] = enPassantSquare;
-    halfMoveClockHistory[historyCounter] = halfMoveClock;
     zobristKeyHistory[historyCounter] = zobristKey;
-    hasCheckFlagHistory[historyCounter] = hasCheck;
-    hasMateFlagHistory[historyCounter] = hasMate;
+    stateHistory[historyCounter] = packState();
     historyCounter++;
 
     // reset check and mate flag
@@ -463,17 +527,8 @@ public class Position {
         throw new IllegalArgumentException();
     }
 
-    // restore castling rights
-    castlingWK = castlingWK_History[historyCounter];
-    castlingWQ = castlingWQ_History[historyCounter];
-    castlingBK = castlingBK_History[historyCounter];
-    castlingBQ = castlingBQ_History[historyCounter];
-
-    // restore en passant square
-    enPassantSquare = enPassantSquare_History[historyCounter];
-
-    // restore halfMoveClock
-    halfMoveClock = halfMoveClockHistory[historyCounter];
+    // restore castling rights, en passant square, halfMoveClock and check and mate flags
+    unpackState(stateHistory[historyCounter]);
 
     // decrease _halfMoveNumber
     nextHalfMoveNumber--;
@@ -483,10 +538,6 @@ public class Position {
 
     // zobristKey - just overwrite - should be the same as before the move
     zobristKey = zobristKeyHistory[historyCounter];
-
-    // get the check and mate flag from history
-    hasCheck = hasCheckFlagHistory[historyCounter];
-    hasMate = hasMateFlagHistory[historyCounter];
   }
 
   /**
@@ -494,15 +545,8 @@ public class Position {
    */
   public void makeNullMove() {
     // Save state for undoMove
-    castlingWK_History[historyCounter] = castlingWK;
-    castlingWQ_History[historyCounter] = castlingWQ;
-    castlingBK_History[historyCounter] = castlingBK;
-    castlingBQ_History[historyCounter] = castlingBQ;
-    enPassantSquare_History[historyCounter] = enPassantSquare;
-    halfMoveClockHistory[historyCounter] = halfMoveClock;
     zobristKeyHistory[historyCounter] = this.zobristKey;
-    hasCheckFlagHistory[historyCounter] = hasCheck;
-    hasMateFlagHistory[historyCounter] = hasMate;
+    stateHistory[historyCounter] = packState();
     historyCounter++;
     // reset check and mate flag
     hasCheck = Flag.TBD;
@@ -524,24 +568,55 @@ public class Position {
   public void undoNullMove() {
     // Get state for undoMove
     historyCounter--;
-    // restore castling rights
-    castlingWK = castlingWK_History[historyCounter];
-    castlingWQ = castlingWQ_History[historyCounter];
-    castlingBK = castlingBK_History[historyCounter];
-    castlingBQ = castlingBQ_History[historyCounter];
-    // restore en passant square
-    enPassantSquare = enPassantSquare_History[historyCounter];
-    // restore halfMoveClock
-    halfMoveClock = halfMoveClockHistory[historyCounter];
+    // restore castling rights, en passant square, halfMoveClock and check and mate flags
+    unpackState(stateHistory[historyCounter]);
     // decrease _halfMoveNumber
     nextHalfMoveNumber--;
     // change back color
     nextPlayer = nextPlayer.getInverseColor();
     // zobristKey - just overwrite - should be the same as before the move
     zobristKey = zobristKeyHistory[historyCounter];
-    // get the check and mate flag from history
-    hasCheck = hasCheckFlagHistory[historyCounter];
-    hasMate = hasMateFlagHistory[historyCounter];
+  }
+
+  /**
+   * Packs the irreversible state of the position into an int for the undo history.
+   *
+   * @return packed state
+   */
+  private int packState() {
+    int state = halfMoveClock << HALF_MOVE_SHIFT;
+    if (castlingWK) state |= CASTLING_WK_BIT;
+    if (castlingWQ) state |= CASTLING_WQ_BIT;
+    if (castlingBK) state |= CASTLING_BK_BIT;
+    if (castlingBQ) state |= CASTLING_BQ_BIT;
+    state |= enPassantSquare.ordinal() << EN_PASSANT_SHIFT;
+    state |= hasCheck.ordinal() << CHECK_FLAG_SHIFT;
+    state |= hasMate.ordinal() << MATE_FLAG_SHIFT;
+    return state;
+  }
+
+  /**
+   * Restores the irreversible state of the position from a packed int of the undo history.
+   *
+   * @param state packed state
+   */
+  private void unpackState(int state) {
+    castlingWK = (state & CASTLING_WK_BIT) != 0;
+    castlingWQ = (state & CASTLING_WQ_BIT) != 0;
+    castlingBK = (state & CASTLING_BK_BIT) != 0;
+    castlingBQ = (state & CASTLING_BQ_BIT) != 0;
+    enPassantSquare = Square.values[(state & EN_PASSANT_MASK) >>> EN_PASSANT_SHIFT];
+    hasCheck = Flag.values[(state >>> CHECK_FLAG_SHIFT) & FLAG_MASK];
+    hasMate = Flag.values[(state >>> MATE_FLAG_SHIFT) & FLAG_MASK];
+    halfMoveClock = getHalfMoveClock(state);
+  }
+
+  /**
+   * @param state packed state
+   * @return the halfMoveClock of a packed state of the undo history
+   */
+  private static int getHalfMoveClock(int state) {
+    return state >>> HALF_MOVE_SHIFT;
   }
 
   private void clearEnPassant() {
@@ -607,7 +682,7 @@ public class Position {
         assert (castlingWK);
         rook = Piece.WHITE_ROOK;
         rookFromSquare = Square.h1;
-        assert (x88Board[rookFromSquare.ordinal()] == rook) // check if rook is indeed there
+        assert (x88Board[rookFromSquare.ordinal()] == rook.code) // check if rook is indeed there
           : "rook to castle not there";
         rookToSquare = Square.f1;
         invalidateCastlingRights(fromSquare, toSquare);
@@ -616,7 +691,7 @@ public class Position {
         assert (castlingWQ);
         rook = Piece.WHITE_ROOK;
         rookFromSquare = Square.a1;
-        assert (x88Board[rookFromSquare.ordinal()] == rook) // check if rook is indeed there
+        assert (x88Board[rookFromSquare.ordinal()] == rook.code) // check if rook is indeed there
           : "rook to castle not there";
         rookToSquare = Square.d1;
         invalidateCastlingRights(fromSquare, toSquare);
@@ -625,7 +700,7 @@ public class Position {
         assert (castlingBK);
         rook = Piece.BLACK_ROOK;
         rookFromSquare = Square.h8;
-        assert (x88Board[rookFromSquare.ordinal()] == rook) // check if rook is indeed there
+        assert (x88Board[rookFromSquare.ordinal()] == rook.code) // check if rook is indeed there
           : "rook to castle not there";
         rookToSquare = Square.f8;
         invalidateCastlingRights(fromSquare, toSquare);
@@ -634,7 +709,7 @@ public class Position {
         assert (castlingBQ);
         rook = Piece.BLACK_ROOK;
         rookFromSquare = Square.a8;
-        assert (x88Board[rookFromSquare.ordinal()] == rook) // check if rook is indeed there
+        assert (x88Board[rookFromSquare.ordinal()] == rook.code) // check if rook is indeed there
           : "rook to castle not there";
         rookToSquare = Square.d8;
         invalidateCastlingRights(fromSquare, toSquare);
@@ -701,21 +776,25 @@ public class Position {
     assert toSquare.isValidSquare();
     assert piece != Piece.NOPIECE;
     // assert
-    assert (x88Board[fromSquare.ordinal()] == piece) // check if moved piece is indeed there
+    assert (x88Board[fromSquare.ordinal()] == piece.code) // check if moved piece is indeed there
       : "piece to move not there";
-    assert (x88Board[toSquare.ordinal()] == Piece.NOPIECE) // // should be empty
+    assert (x88Board[toSquare.ordinal()] == Piece.NO_CODE) // // should be empty
       : "to square should be empty";
     // due to performance we do not call remove and put
     // no need to update counters when moving
     // remove
-    x88Board[fromSquare.ordinal()] = Piece.NOPIECE;
+    x88Board[fromSquare.ordinal()] = Piece.NO_CODE;
     zobristKey = this.zobristKey ^ pieceZobrist[piece.ordinal()][fromSquare.ordinal()]; // out
     // update piece lists
     final int color = piece.getColor().ordinal();
     removeFromPieceLists(fromSquare, piece, color);
     // put
-    x88Board[toSquare.ordinal()] = piece;
+    x88Board[toSquare.ordinal()] = piece.code;
     zobristKey = this.zobristKey ^ pieceZobrist[piece.ordinal()][toSquare.ordinal()]; // in
+    if (piece.getType() == PieceType.PAWN) {
+      pawnZobristKey ^= pieceZobrist[piece.ordinal()][fromSquare.ordinal()]
+                        ^ pieceZobrist[piece.ordinal()][toSquare.ordinal()];
+    }
     // update piece lists
     addToPieceLists(toSquare, piece, color);
   }
@@ -727,10 +806,13 @@ public class Position {
   private void putPiece(Square square, Piece piece) {
     assert square.isValidSquare();
     assert piece != Piece.NOPIECE;
-    assert x88Board[square.ordinal()] == Piece.NOPIECE; // should be empty
+    assert x88Board[square.ordinal()] == Piece.NO_CODE; // should be empty
     // put
-    x88Board[square.ordinal()] = piece;
+    x88Board[square.ordinal()] = piece.code;
     zobristKey = this.zobristKey ^ pieceZobrist[piece.ordinal()][square.ordinal()]; // in
+    if (piece.getType() == PieceType.PAWN) {
+      pawnZobristKey ^= pieceZobrist[piece.ordinal()][square.ordinal()];
+    }
     // update piece lists
     final int color = piece.getColor().ordinal();
     addToPieceLists(square, piece, color);
@@ -744,12 +826,15 @@ public class Position {
   private Piece removePiece(Square square, Piece piece) {
     assert square.isValidSquare();
     assert piece != Piece.NOPIECE;
-    assert x88Board[square.ordinal()] == piece // check if removed piece is indeed there
+    assert x88Board[square.ordinal()] == piece.code // check if removed piece is indeed there
       : "piece to be removed not there";
     // remove
-    Piece old = x88Board[square.ordinal()];
-    x88Board[square.ordinal()] = Piece.NOPIECE;
+    Piece old = Piece.fromCode(x88Board[square.ordinal()]);
+    x88Board[square.ordinal()] = Piece.NO_CODE;
     zobristKey = this.zobristKey ^ pieceZobrist[piece.ordinal()][square.ordinal()]; // out
+    if (piece.getType() == PieceType.PAWN) {
+      pawnZobristKey ^= pieceZobrist[piece.ordinal()][square.ordinal()];
+    }
     // update piece lists
     final int color = piece.getColor().ordinal();
     removeFromPieceLists(square, piece, color);
@@ -770,6 +855,10 @@ public class Position {
     piecesBitboards[color][piece.getType().ordinal()] |= toSquare.bitBoard;
     assert (occupiedBitboards[color] & toSquare.bitBoard) == 0;
     occupiedBitboards[color] |= toSquare.bitBoard;
+    // update material key
+    materialKey += 1L << (MATERIAL_KEY_BITS * piece.ordinal());
+    // update piece square values
+    pieceSquareScore[color] += pieceSquareScores[piece.ordinal()][toSquare.ordinal()];
     // update piece square lists
     switch (piece.getType()) {
       case PAWN:
@@ -811,6 +900,10 @@ public class Position {
     piecesBitboards[color][piece.getType().ordinal()] ^= fromSquare.bitBoard;
     assert (occupiedBitboards[color] & fromSquare.bitBoard) == fromSquare.bitBoard;
     occupiedBitboards[color] ^= fromSquare.bitBoard;
+    // update material key
+    materialKey -= 1L << (MATERIAL_KEY_BITS * piece.ordinal());
+    // update piece square values
+    pieceSquareScore[color] -= pieceSquareScores[piece.ordinal()][fromSquare.ordinal()];
     // update piece square lists
     switch (piece.getType()) {
       case PAWN:
@@ -1065,129 +1158,115 @@ public class Position {
 
     final int squareIndex = square.ordinal();
     final boolean isWhite = attackerColor.isWhite();
+    final int index64 = square.index64;
+    final long[] attackerPieces = piecesBitboards[attackerColor.ordinal()];
 
     /*
      * Checks are ordered for likelihood to return from this as fast as possible
      */
 
     // check pawns
-    // reverse direction to look for pawns which could attack
-    final int pawnDir = isWhite ? -1 : 1;
-    final Piece attackerPawn = isWhite ? Piece.WHITE_PAWN : Piece.BLACK_PAWN;
-    for (int d : Square.pawnAttackDirections) {
-      final int i = squareIndex + d * pawnDir;
-      if ((i & 0x88) == 0 && x88Board[i] == attackerPawn) return true;
+    // a pawn of the attacker attacks the square if a pawn of the other color on the
+    // square would attack the pawn
+    if ((Bitboard.getPawnAttacks(attackerColor.getInverseColor(), index64)
+         & attackerPieces[PieceType.PAWN.ordinal()]) != 0) {
+      return true;
     }
 
-    final int attackerColorIndex = attackerColor.ordinal();
-
-    // check knights if there are any
-    if (!(knightSquares[attackerColorIndex].isEmpty())) {
-      for (int d : Square.knightDirections) {
-        int i = squareIndex + d;
-        if ((i & 0x88) == 0) { // valid square
-          if (x88Board[i] != Piece.NOPIECE // not empty
-              && x88Board[i].getColor() == attackerColor // attacker piece
-              && (x88Board[i].getType() == PieceType.KNIGHT)) {
-            return true;
-          }
-        }
-      }
+    // check knights
+    if ((Bitboard.getKnightAttacks(index64) & attackerPieces[PieceType.KNIGHT.ordinal()]) != 0) {
+      return true;
     }
 
-    // check sliding horizontal (rook + queen) if there are any
-    if (!(rookSquares[attackerColorIndex].isEmpty() && queenSquares[attackerColorIndex].isEmpty())
-        // are any rooks or queens in the same file or rank
-        && (((piecesBitboards[attackerColor.ordinal()][PieceType.ROOK.ordinal()]
-              | piecesBitboards[attackerColor.ordinal()][PieceType.QUEEN.ordinal()]) & (
-               square.getFile().bitBoard | square.getRank().bitBoard)) != 0)) {
-      // check sliding attacks from all rook directions
-      for (int d : Square.rookDirections) {
-        int i = squareIndex + d;
-        while ((i & 0x88) == 0) { // slide while valid square
-          if (x88Board[i] != Piece.NOPIECE) { // not empty
-            if (x88Board[i].getColor() == attackerColor // attacker piece
-                && (x88Board[i].getType() == PieceType.ROOK
-                    || x88Board[i].getType() == PieceType.QUEEN)) {
-              return true;
-            }
-            break; // not an attacker color or attacker piece blocking the way.
-          }
-          i += d; // next sliding field in this direction
-        }
-      }
+    final long occupied = getAllOccupiedBitboard();
+
+    // check sliding horizontal (rook + queen)
+    if ((Bitboard.getRookAttacks(index64, occupied) & (attackerPieces[PieceType.ROOK.ordinal()]
+                                                        | attackerPieces[PieceType.QUEEN.ordinal()]))
+        != 0) {
+      return true;
     }
 
-    // check sliding diagonal (bishop + queen) if there are any
-    if (!(bishopSquares[attackerColorIndex].isEmpty() && queenSquares[attackerColorIndex].isEmpty())
-        // are any bishops or queens in the same file or rank
-        && ((piecesBitboards[attackerColor.ordinal()][PieceType.BISHOP.ordinal()]
-             | piecesBitboards[attackerColor.ordinal()][PieceType.QUEEN.ordinal()]) & (
-              square.getUpDiag() | square.getDownDiag())) != 0) {
-      // check sliding attacks from all bishop directions
-      for (int d : Square.bishopDirections) {
-        int i = squareIndex + d;
-        while ((i & 0x88) == 0) { // slide while valid square
-          if (x88Board[i] != Piece.NOPIECE) { // not empty
-            if (x88Board[i].getColor() == attackerColor // attacker piece
-                && (x88Board[i].getType() == PieceType.BISHOP
-                    || x88Board[i].getType() == PieceType.QUEEN)) {
-              return true;
-            }
-            break; // not an attacker color or attacker piece blocking the way.
-          }
-          i += d; // next sliding field in this direction
-        }
-      }
+    // check sliding diagonal (bishop + queen)
+    if ((Bitboard.getBishopAttacks(index64, occupied) & (
+      attackerPieces[PieceType.BISHOP.ordinal()] | attackerPieces[PieceType.QUEEN.ordinal()]))
+        != 0) {
+      return true;
     }
 
     // check king
-    for (int d : Square.kingDirections) {
-      int i = squareIndex + d;
-      if ((i & 0x88) == 0) { // valid square
-        if (x88Board[i] != Piece.NOPIECE // not empty
-            && x88Board[i].getColor() == attackerColor // attacker piece
-            && (x88Board[i].getType() == PieceType.KING)) {
-          return true;
-        }
-      }
+    if ((Bitboard.getKingAttacks(index64) & attackerPieces[PieceType.KING.ordinal()]) != 0) {
+      return true;
     }
 
     // if the target square is not empty these attacks are not possible
     // as the pawn double move ensures that the target square is empty
-    if (x88Board[squareIndex] == Piece.NOPIECE) {
+    if (x88Board[squareIndex] == Piece.NO_CODE) {
 
       // check en passant
       if (this.enPassantSquare != Square.NOSQUARE) {
         if (isWhite // white is attacker
-            && x88Board[enPassantSquare.getSouth().ordinal()] == Piece.BLACK_PAWN
+            && x88Board[enPassantSquare.getSouth().ordinal()] == Piece.BLACK_PAWN.code
             // black is target
             && this.enPassantSquare.getSouth()
                == square) { // this is indeed the en passant attacked square
           // left
           int i = squareIndex + Square.W;
-          if ((i & 0x88) == 0 && x88Board[i] == Piece.WHITE_PAWN) return true;
+          if ((i & 0x88) == 0 && x88Board[i] == Piece.WHITE_PAWN.code) return true;
           // right
           i = squareIndex + Square.E;
-          return (i & 0x88) == 0 && x88Board[i] == Piece.WHITE_PAWN;
+          return (i & 0x88) == 0 && x88Board[i] == Piece.WHITE_PAWN.code;
         }
         else if (!isWhite // black is attacker (assume not noColor)
-                 && x88Board[enPassantSquare.getNorth().ordinal()] == Piece.WHITE_PAWN
+                 && x88Board[enPassantSquare.getNorth().ordinal()] == Piece.WHITE_PAWN.code
                  // white is target
                  && this.enPassantSquare.getNorth()
                     == square) { // this is indeed the en passant attacked square
           // attack from left
           int i = squareIndex + Square.W;
-          if ((i & 0x88) == 0 && x88Board[i] == Piece.BLACK_PAWN) return true;
+          if ((i & 0x88) == 0 && x88Board[i] == Piece.BLACK_PAWN.code) return true;
           // attack from right
           i = squareIndex + Square.E;
-          return (i & 0x88) == 0 && x88Board[i] == Piece.BLACK_PAWN;
+          return (i & 0x88) == 0 && x88Board[i] == Piece.BLACK_PAWN.code;
         }
       }
     }
     return false;
   }
 
+  /**
+   * Returns all pieces of both colors which attack the given square with the given occupancy.
+   * The occupancy can differ from the current position, e.g. to find x-ray attackers in a static
+   * exchange evaluation by removing pieces which already captured. En passant captures are not
+   * included.
+   *
+   * @param square
+   * @param occupied bitboard of occupied squares used for sliding pieces
+   * @return bitboard of all attackers of both colors
+   */
+  public long attackersTo(Square square, long occupied) {
+    assert (square != Square.NOSQUARE);
+    final int index64 = square.index64;
+    final long[] white = piecesBitboards[Color.WHITE.ordinal()];
+    final long[] black = piecesBitboards[Color.BLACK.ordinal()];
+    final long rooksQueens = white[PieceType.ROOK.ordinal()] | white[PieceType.QUEEN.ordinal()]
+                             | black[PieceType.ROOK.ordinal()] | black[PieceType.QUEEN.ordinal()];
+    final long bishopsQueens =
+      white[PieceType.BISHOP.ordinal()] | white[PieceType.QUEEN.ordinal()]
+      | black[PieceType.BISHOP.ordinal()] | black[PieceType.QUEEN.ordinal()];
+    final long attackers =
+      (Bitboard.getPawnAttacks(Color.BLACK, index64) & white[PieceType.PAWN.ordinal()])
+      | (Bitboard.getPawnAttacks(Color.WHITE, index64) & black[PieceType.PAWN.ordinal()])
+      | (Bitboard.getKnightAttacks(index64) & (white[PieceType.KNIGHT.ordinal()]
+                                               | black[PieceType.KNIGHT.ordinal()]))
+      | (Bitboard.getKingAttacks(index64) & (white[PieceType.KING.ordinal()]
+                                             | black[PieceType.KING.ordinal()]))
+      | (Bitboard.getRookAttacks(index64, occupied) & rooksQueens)
+      | (Bitboard.getBishopAttacks(index64, occupied) & bishopsQueens);
+    // pieces removed from the occupancy do not attack anymore
+    return attackers & occupied;
+  }
+
   /**
    * @return true if current position has check for next player
    */
@@ -1257,11 +1336,11 @@ public class Position {
     while (i >= 0) {
       // every time the half move clock gets reset (non reversible position) there
       // can't be any more repetition of positions before this position
-      if (halfMoveClockHistory[i] >= lastHalfMove) {
+      if (getHalfMoveClock(stateHistory[i]) >= lastHalfMove) {
         break;
       }
       else {
-        lastHalfMove = halfMoveClockHistory[i];
+        lastHalfMove = getHalfMoveClock(stateHistory[i]);
       }
       if (zobristKey == zobristKeyHistory[i]) counter++;
       if (counter >= reps) return true;
@@ -1282,11 +1361,11 @@ public class Position {
     while (i >= 0) {
       // every time the half move clock gets reset (non reversible position) there
       // can't be any more repetition of positions before this position
-      if (halfMoveClockHistory[i] >= lastHalfMove) {
+      if (getHalfMoveClock(stateHistory[i]) >= lastHalfMove) {
         break;
       }
       else {
-        lastHalfMove = halfMoveClockHistory[i];
+        lastHalfMove = getHalfMoveClock(stateHistory[i]);
       }
       if (zobristKey == zobristKeyHistory[i]) counter++;
       i -= 2;
@@ -1332,7 +1411,7 @@ public class Position {
         }
 
         // KBK
-        return knightSquares[BLACK].size() == 0 && bishopSquares[BLACK].size() == 1;
+        return knightSquares[WHITE].size() == 0 && bishopSquares[WHITE].size() == 1;
       }
 
       // KBKB - B same field color
@@ -1392,6 +1471,24 @@ public class Position {
     return this.zobristKey;
   }
 
+  /**
+   * @return the zobrist key of the pawns only
+   */
+  public long getPawnZobristKey() {
+    return this.pawnZobristKey;
+  }
+
+  /**
+   * Returns the material key of the position. Positions with the same number of pieces of
+   * each piece have the same key. The number of pieces of a piece can be read from the key:
+   * <code>(key >>> (MATERIAL_KEY_BITS * piece.ordinal())) & 0xF</code>
+   *
+   * @return the material key
+   */
+  public long getMaterialKey() {
+    return this.materialKey;
+  }
+
   /**
    * @param c Color
    * @return the material value
@@ -1400,6 +1497,30 @@ public class Position {
     return this.material[c.ordinal()];
   }
 
+  /**
+   * @param c Color
+   * @return the sum of the piece square values of all pieces of the color as packed Score
+   */
+  public int getPieceSquareScore(Color c) {
+    return this.pieceSquareScore[c.ordinal()];
+  }
+
+  /**
+   * @param c Color
+   * @return the sum of the mid game piece square values of all pieces of the color
+   */
+  public int getMidGamePosition(Color c) {
+    return Score.midGame(this.pieceSquareScore[c.ordinal()]);
+  }
+
+  /**
+   * @param c Color
+   * @return the sum of the end game piece square values of all pieces of the color
+   */
+  public int getEndGamePosition(Color c) {
+    return Score.endGame(this.pieceSquareScore[c.ordinal()]);
+  }
+
   /**
    * @return color of next player
    */
@@ -1457,6 +1578,13 @@ public class Position {
 
   public long getOccupiedBitboards(Color c) { return occupiedBitboards[c.ordinal()]; }
 
+  /**
+   * @return bitboard of all occupied squares of both colors
+   */
+  public long getAllOccupiedBitboard() {
+    return occupiedBitboards[Color.WHITE.ordinal()] | occupiedBitboards[Color.BLACK.ordinal()];
+  }
+
   /**
    * Initialize the lists for the pieces and the material counter
    */
@@ -1472,13 +1600,14 @@ public class Position {
       piecesBitboards[i] = new long[PieceType.values.length];
     }
     material = new int[2];
+    pieceSquareScore = new int[2];
   }
 
   /**
    * @param fen
    */
   private void initBoard(String fen) {
-    Arrays.fill(x88Board, Piece.NOPIECE);
+    Arrays.fill(x88Board, (byte) Piece.NO_CODE);
     setupFromFEN(fen);
   }
 
@@ -1686,7 +1815,7 @@ public class Position {
       int emptySquares = 0;
       for (int file = 1; file <= 8; file++) {
 
-        Piece piece = x88Board[Square.getSquare(file, rank).ordinal()];
+        Piece piece = Piece.fromCode(x88Board[Square.getSquare(file, rank).ordinal()]);
 
         if (piece == Piece.NOPIECE) {
           emptySquares++;
@@ -1774,7 +1903,7 @@ public class Position {
       boardString.append(' ').append(rank).append(": |");
       // fields
       for (int file = 1; file <= 8; file++) {
-        Piece p = x88Board[Square.getSquare(file, rank).ordinal()];
+        Piece p = Piece.fromCode(x88Board[Square.getSquare(file, rank).ordinal()]);
         if (p == Piece.NOPIECE) {
           boardString.append("   |");
         }
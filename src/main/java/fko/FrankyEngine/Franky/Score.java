@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+/**
+ * Mid game and end game evaluation values packed into one int.
+ * <p>
+ * The end game value is stored in the upper 16 bits and the mid game value in the lower 16
+ * bits. As the mid game value is signed the end game value is stored with a borrow if the mid
+ * game value is negative. Scores can be added, subtracted, negated and multiplied with an int
+ * like plain ints as long as both values stay within the range of a short.
+ * <p>
+ * A score is blended into one evaluation value with the integer game phase (tapered eval).
+ * <p>
+ * https://www.chessprogramming.org/Tapered_Eval
+ */
+public final class Score {
+
+  /**
+   * Score with mid and end game value 0
+   */
+  public static final int ZERO = 0;
+
+  private Score() {}
+
+  /**
+   * @param midGame mid game value - must be within the range of a short
+   * @param endGame end game value - must be within the range of a short
+   * @return packed score
+   */
+  public static int make(int midGame, int endGame) {
+    assert midGame >= Short.MIN_VALUE && midGame <= Short.MAX_VALUE;
+    assert endGame >= Short.MIN_VALUE && endGame <= Short.MAX_VALUE;
+    return (endGame << 16) + midGame;
+  }
+
+  /**
+   * @param score packed score
+   * @return mid game value of the score
+   */
+  public static int midGame(int score) {
+    return (short) score;
+  }
+
+  /**
+   * @param score packed score
+   * @return end game value of the score
+   */
+  public static int endGame(int score) {
+    return (short) ((score + 0x8000) >> 16);
+  }
+
+  /**
+   * Blends mid and end game value of the score with the game phase.
+   *
+   * @param score     packed score
+   * @param gamePhase game phase between 0 (end game) and <code>Position.GAME_PHASE_MAX</code>
+   * @return tapered value of the score
+   */
+  public static int taper(int score, int gamePhase) {
+    return (midGame(score) * gamePhase + endGame(score) * (Position.GAME_PHASE_MAX - gamePhase))
+           / Position.GAME_PHASE_MAX;
+  }
+
+  /**
+   * @param score packed score
+   * @return string with mid and end game value
+   */
+  public static String toString(int score) {
+    return String.format("(%d, %d)", midGame(score), endGame(score));
+  }
+}
@@ -25,7 +25,6 @@
 
 package fko.FrankyEngine.Franky;
 
-import fko.FrankyEngine.Franky.TranspositionTable.TT_Entry;
 import fko.FrankyEngine.Franky.TranspositionTable.TT_EntryType;
 import fko.FrankyEngine.Franky.openingbook.OpeningBook;
 import fko.FrankyEngine.Franky.openingbook.OpeningBookImpl;
@@ -35,8 +34,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Search implements the actual search for best move of a given position.
@@ -58,9 +63,7 @@ import java.util.concurrent.CountDownLatch;
  * TODO
  *  Features
  *  --------------------------------
- * TODO: History Heuristic / http://www.frayn.net/beowulf/theory.html#history
- * TODO: SEE (https://www.chessprogramming.org/Static_Exchange_Evaluation)
- * TODO: Lazy SMP
+ * DONE: History Heuristic / http://www.frayn.net/beowulf/theory.html#history
  *
  */
 public class Search implements Runnable {
@@ -70,6 +73,27 @@ public class Search implements Runnable {
   // how often shall an update of the search be send to UCI in ms
   private static final int UCI_UPDATE_INTERVAL = 500;
 
+  // the clock is only read every NODE_POLL_MASK+1 nodes - as a fallback for the timer thread and
+  // to send UCI updates. 1024 nodes keep the stop latency at a few ms even for bullet games.
+  private static final long NODE_POLL_MASK = 0x3FF;
+
+  // timer thread shared by all searches - stops searches when their hard time limit is reached
+  private static final ScheduledExecutorService TIMER =
+    Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread t = new Thread(r, "Search Timer");
+      t.setDaemon(true);
+      return t;
+    });
+
+  // reporter thread shared by all searches - sends the regular UCI info updates. Separate from
+  // the timer thread so that slow UCI output can't delay a stop at the hard time limit.
+  private static final ScheduledExecutorService REPORTER =
+    Executors.newSingleThreadScheduledExecutor(r -> {
+      final Thread t = new Thread(r, "Search UCI Reporter");
+      t.setDaemon(true);
+      return t;
+    });
+
   /** Maximum depth this search can go. */
   public static final int MAX_SEARCH_DEPTH = Byte.MAX_VALUE;
 
@@ -103,7 +127,15 @@ public class Search implements Runnable {
   private CountDownLatch waitForInitializationLatch;
 
   // flag to indicate to stop the search - can be called externally or via the timer clock.
-  private boolean stopSearch = true;
+  private volatile boolean stopSearch = true;
+
+  // Lazy SMP - helper searches share the transposition table with the main search.
+  // They are started and stopped by the main search and never send info or results
+  // to UCI.
+  private final boolean      isHelper;
+  private final int          helperNumber;
+  private final List<Search> helperSearches = new ArrayList<>();
+  private       int          activeHelpers  = 0;
 
   // opening book
   private final OpeningBook book;
@@ -111,34 +143,44 @@ public class Search implements Runnable {
   // Position Evaluator
   private final Evaluation evaluator;
 
+  // Cache for evaluation values - each search thread has its own
+  private EvaluationCache evalCache;
+
   // running search global variables
   private final RootMoveList rootMoves;
 
   // current variation of the search
   private final MoveList currentVariation;
 
-  // Move Generators - each depth in search gets it own to avoid object creation during search
-  private final MoveGenerator[] moveGenerators;
-  // to store the best move or principal variation we need to generate the move sequence backwards
-  // in the recursion. This field stores the pv for each ply so far
-  private final MoveList[]      pv;
-  // killer move lists per ply
-  private       MoveList[]      killerMoves;
-  // remember if there have been mate threads in a ply
-  private       boolean[]       mateThreat;
-  // remember if this ply only has one move to play
-  private       boolean[]       singleReply;
+  // per ply search data - preallocated and reused for all searches
+  private final SearchStack searchStack;
+  // history tables for non capturing moves - kept between searches and aged
+  private final MoveHistory moveHistory = new MoveHistory();
+  // swap list buffer for the static exchange evaluation in the pruning decisions
+  private final int[] seeGain = new int[Evaluation.SEE_GAIN_SIZE];
 
   // hash tables
   private TranspositionTable transpositionTable;
 
   // time variables
-  private long startTime;
+  private volatile long startTime;
   private long stopTime;
   private long hardTimeLimit;
   private long softTimeLimit;
   private long extraTime;
 
+  // scheduled stopper for the hard time limit - the generation guards against a stopper of a
+  // previous schedule which is already running when it is cancelled
+  private          ScheduledFuture<?> hardTimeLimitTimer;
+  private volatile int                hardTimeLimitTimerGeneration = 0;
+
+  // UCI info reporter running on the reporter thread. The search thread only publishes the
+  // nodes visited every NODE_POLL_MASK+1 nodes and a copy of the current line on request.
+  private          ScheduledFuture<?> uciReporter;
+  private volatile long               publishedNodesVisited = 0;
+  private volatile boolean            currLineRequested     = false;
+  private volatile MoveList           currLineSnapshot;
+
   // search state - valid for one call to startSearch
   private Position     currentPosition;
   private int          currentBestRootMove  = Move.NOMOVE;
@@ -146,7 +188,6 @@ public class Search implements Runnable {
   private Color        myColor;
   private SearchMode   searchMode;
   private SearchResult lastSearchResult;
-  private long         uciUpdateTicker;
   private boolean      hadBookMove          = false;
 
   /**
@@ -159,23 +200,45 @@ public class Search implements Runnable {
    * @param config
    */
   public Search(IUCIEngine engine, Configuration config) {
+    this(engine, config, 0);
+  }
+
+  /**
+   * Creates a search object. Helper searches (helperNumber > 0) are used for
+   * Lazy SMP. They do not have an opening book and get the transposition table
+   * of the main search when started.
+   * <p>
+   * Every search (incl. helpers) has its own evaluation cache, pawn and material
+   * hash tables and move history. These are not part of the configured hash size,
+   * so each helper costs about <code>getHelperMemoryInMB()</code> MB in addition.
+   *
+   * @param engine
+   * @param config
+   * @param helperNumber 0 for the main search, >0 for helper searches
+   */
+  private Search(IUCIEngine engine, Configuration config, int helperNumber) {
     this.engine = engine;
     this.config = config;
+    this.helperNumber = helperNumber;
+    this.isHelper = helperNumber > 0;
 
     waitForInitializationLatch = new CountDownLatch(1);
 
     // initialize ply variables
     currentVariation = new MoveList(MAX_SEARCH_DEPTH);
-    moveGenerators = new MoveGenerator[MAX_SEARCH_DEPTH];
-    pv = new MoveList[MAX_SEARCH_DEPTH];
-    killerMoves = new MoveList[MAX_SEARCH_DEPTH];
-    mateThreat = new boolean[MAX_SEARCH_DEPTH];
-    singleReply = new boolean[MAX_SEARCH_DEPTH];
+    searchStack = new SearchStack(MAX_SEARCH_DEPTH);
 
     // initialize search variables
     rootMoves = new RootMoveList();
     searchCounter = new SearchCounter();
     evaluator = new Evaluation();
+    evalCache = new EvaluationCache(config.EVAL_CACHE_SIZE);
+
+    // helper searches do not use the book and share the main search's TT
+    if (isHelper) {
+      this.book = null;
+      return;
+    }
 
     // set opening book - will be initialized in each search
     this.book = new OpeningBookImpl(config.OB_FolderPath + config.OB_fileNamePlain, config.OB_Mode);
@@ -230,7 +293,10 @@ public class Search implements Runnable {
 
     // create new search thread and start it
     String threadName = "Engine: " + myColor.toString();
-    if (this.searchMode.isPonder()) {
+    if (isHelper) {
+      threadName += " (Helper " + helperNumber + ")";
+    }
+    else if (this.searchMode.isPonder()) {
       threadName += " (Pondering)";
     }
     searchThread = new Thread(this, threadName);
@@ -264,7 +330,7 @@ public class Search implements Runnable {
         LOG.info(
           "Pondering has been stopped after ponder search has finished. " + "Send obsolete result");
         LOG.info("Search result was: {} PV {}", lastSearchResult.toString(),
-                 pv[ROOT_PLY].toNotationString());
+                 searchStack.getPV(ROOT_PLY).toNotationString());
         sendUCIBestMove();
       }
       else {
@@ -311,24 +377,22 @@ public class Search implements Runnable {
     searchCounter.resetCounter();
     softTimeLimit = hardTimeLimit = extraTime = 0;
 
-    // Initialize ply based data
-    // Each depth in search gets it own global field to avoid object creation
-    // during search.
-    for (int i = 0; i < MAX_SEARCH_DEPTH; i++) {
-      moveGenerators[i] = new MoveGenerator();
-      moveGenerators[i].SORT_MOVES = config.USE_SORT_ALL_MOVES;
-      // prepare principal variation lists
-      pv[i] = new MoveList(MAX_SEARCH_DEPTH);
-      // init killer moves
-      killerMoves[i] = new MoveList(config.NO_KILLER_MOVES + 1);
-      // mateThreads
-      mateThreat[i] = false;
-      // singleReply
-      singleReply[i] = false;
-    }
-
-    // age TT entries
-    transpositionTable.ageEntries();
+    // Reset ply based data - frames are preallocated and cleared lazily
+    moveHistory.age();
+    searchStack.reset(config.USE_SORT_ALL_MOVES,
+                      config.USE_HISTORY_HEURISTIC ? moveHistory : null);
+
+    // age TT entries - helpers share the TT which has been aged by the main search
+    if (!isHelper) transpositionTable.ageEntries();
+
+    // helper searches only search to fill the shared TT - the result is ignored
+    // helpers are never started for PERFT
+    if (isHelper) {
+      PERFT = false;
+      waitForInitializationLatch.countDown();
+      iterativeDeepening(currentPosition);
+      return;
+    }
 
     // print info about search mode
     assert searchMode != null : "Null for searchMode is not allowed";
@@ -366,7 +430,11 @@ public class Search implements Runnable {
     lastSearchResult = getBookMove(currentPosition);
 
     // if we didn't get a book move start the search
-    if (lastSearchResult == null) lastSearchResult = iterativeDeepening(currentPosition);
+    if (lastSearchResult == null) {
+      startHelperSearches();
+      lastSearchResult = iterativeDeepening(currentPosition);
+      stopHelperSearches();
+    }
     assert lastSearchResult != null;
 
     // if the mode still is ponder at this point we finished the ponder
@@ -381,7 +449,7 @@ public class Search implements Runnable {
     // ###########################################
 
     LOG.info("Search result was: {} PV {} ", lastSearchResult.toString(),
-             pv[ROOT_PLY].toNotationString());
+             searchStack.getPV(ROOT_PLY).toNotationString());
 
     // send result to engine
     sendUCIBestMove();
@@ -400,7 +468,9 @@ public class Search implements Runnable {
 
     // remember the start time of the search
     startTime = System.currentTimeMillis();
-    uciUpdateTicker = System.currentTimeMillis();
+    publishedNodesVisited = 0;
+    currLineSnapshot = null;
+    startUCIReporter();
 
     // max window search - preparation for aspiration window search
     int alpha = Evaluation.MIN;
@@ -410,14 +480,17 @@ public class Search implements Runnable {
     currentBestRootMove = Move.NOMOVE;
     currentBestRootValue = Evaluation.NOVALUE;
 
+    // search data of the root ply
+    final SearchStack.Frame rootFrame = searchStack.get(ROOT_PLY);
+
     // clear principal Variation for root depth
-    pv[ROOT_PLY].clear();
+    searchStack.clearPV(ROOT_PLY);
 
     // prepare search result
     SearchResult searchResult = new SearchResult();
 
     // no legal root moves - game already ended!
-    if (!moveGenerators[ROOT_PLY].hasLegalMove(position)) {
+    if (!rootFrame.moveGenerator.hasLegalMove(position)) {
       if (position.hasCheck()) searchResult.resultValue = -Evaluation.CHECKMATE;
       else searchResult.resultValue = Evaluation.DRAW;
       return searchResult;
@@ -426,6 +499,9 @@ public class Search implements Runnable {
     // start depth from searchMode
     int depth = searchMode.getStartDepth();
 
+    // Lazy SMP - every second helper starts one ply deeper to diversify the helper searches
+    if (isHelper && depth < searchMode.getMaxDepth()) depth += helperNumber % 2;
+
     // if time based game setup the soft and hard time limits
     if (searchMode.isTimeControl()) configureTimeLimits();
 
@@ -445,25 +521,24 @@ public class Search implements Runnable {
     // Do a TT lookup to try to find a first best move for this position
     if (config.USE_TT_ROOT && config.USE_TRANSPOSITION_TABLE && !PERFT) {
 
-      TT_Entry ttEntry = transpositionTable.get(position.getZobristKey());
-      if (ttEntry != null) {
+      final long ttEntry = transpositionTable.get(position.getZobristKey());
+      if (ttEntry != TranspositionTable.NO_ENTRY) {
         searchCounter.tt_Hits++;
 
         // mate thread flag
-        mateThreat[ROOT_PLY] = ttEntry.mateThreat;
+        rootFrame.mateThreat = TranspositionTable.hasMateThreat(ttEntry);
 
-        // get best move and PV from TT
-        if (ttEntry.bestMove != Move.NOMOVE) {
-          currentBestRootMove = ttEntry.bestMove;
-          getPVLine(position, ttEntry.depth, pv[ROOT_PLY]);
-          assert pv[ROOT_PLY].getFirst() == currentBestRootMove;
+        // get best move from TT as first PV - the rest of the PV comes from the search
+        if (MoveGenerator.isPseudoLegal(position, TranspositionTable.getBestMove(ttEntry))) {
+          currentBestRootMove = TranspositionTable.getBestMove(ttEntry);
+          searchStack.setPV(ROOT_PLY, currentBestRootMove);
         }
 
         // use value only if tt depth was equal or deeper
-        if (ttEntry.depth >= depth) {
-          assert (int) ttEntry.value != Evaluation.NOVALUE;
+        if (TranspositionTable.getDepth(ttEntry) >= depth) {
+          assert (int) TranspositionTable.getValue(ttEntry) != Evaluation.NOVALUE;
           // set best move value from TT
-          currentBestRootValue = (int) ttEntry.value;
+          currentBestRootValue = (int) TranspositionTable.getValue(ttEntry);
 
           // skip lower depths in next search
           // commented out as other programs don't do this.
@@ -473,7 +548,7 @@ public class Search implements Runnable {
           //   // send info to UCI to let the user know that we have a result for the cached depth
           //   engine.sendInfoToUCI(String.format("depth %d %s time %d pv %s", ttEntry.depth,
           //                                      getScoreString(currentBestRootValue), elapsedTime(),
-          //                                      pv[ROOT_PLY].toNotationString()));
+          //                                      searchStack.getPV(ROOT_PLY).toNotationString()));
           // }
         }
       }
@@ -487,19 +562,20 @@ public class Search implements Runnable {
     // and PV use the first move from the generated moves as this is likely to
     // be the best anyway due to move sorting.
     if (currentBestRootMove == Move.NOMOVE) {
-      assert pv[ROOT_PLY].empty() : "if we have no TT move we should not have a pv";
+      assert searchStack.getPVLength(ROOT_PLY) == 0
+        : "if we have no TT move we should not have a pv";
       currentBestRootMove = rootMoves.getMove(0);
-      pv[ROOT_PLY].add(currentBestRootMove);
+      searchStack.setPV(ROOT_PLY, currentBestRootMove);
     }
 
     // single reply in root
     if (rootMoves.size() == 1) {
-      singleReply[ROOT_PLY] = true;
+      rootFrame.singleReply = true;
       // add time for this move as this is a special situation (forced moved?)
       if (searchMode.isTimeControl()) addExtraTime(1.5);
     }
     else {
-      singleReply[ROOT_PLY] = false;
+      rootFrame.singleReply = false;
     }
 
     // print search setup for debugging
@@ -519,7 +595,7 @@ public class Search implements Runnable {
     // check search requirements
     assert rootMoves.size() > 0 : "No root moves to search";
     assert currentBestRootMove != Move.NOMOVE : "No initial best root move";
-    assert !pv[ROOT_PLY].empty() : "No initial root PV ";
+    assert searchStack.getPVLength(ROOT_PLY) > 0 : "No initial root PV ";
     assert depth > 0 : "depth <= 0";
     assert position != null : "Position == null";
     assert config.ASPIRATION_START_DEPTH > 1 : "ASPIRATION_START_DEPTH must be > 1";
@@ -571,13 +647,14 @@ public class Search implements Runnable {
       // we can only use the value if there has not been a stop
       if (!stopSearch) {
         currentBestRootValue = value;
-        rootMoves.pushToHead(pv[ROOT_PLY].getFirst());
+        rootMoves.pushToHead(searchStack.getPVMove(ROOT_PLY, 0));
       }
 
       // check after search conditions
       assert currentBestRootMove != Move.NOMOVE : "We should have a best move here";
-      assert !pv[ROOT_PLY].empty() : "PV should not be empty";
-      assert currentBestRootMove == pv[ROOT_PLY].getFirst() : "best move is different from pv";
+      assert searchStack.getPVLength(ROOT_PLY) > 0 : "PV should not be empty";
+      assert currentBestRootMove == searchStack.getPVMove(ROOT_PLY, 0)
+        : "best move is different from pv";
       assert PERFT || currentBestRootValue != Evaluation.MIN
         : "Best root value is MIN, should be >MIN";
       assert
@@ -605,31 +682,106 @@ public class Search implements Runnable {
 
     // retrieve ponder move from pv
     searchResult.ponderMove = Move.NOMOVE;
-    if (pv[ROOT_PLY].size() > 1 && (pv[ROOT_PLY].get(1)) != Move.NOMOVE) {
-      searchResult.ponderMove = pv[ROOT_PLY].get(1);
+    if (searchStack.getPVLength(ROOT_PLY) > 1) {
+      searchResult.ponderMove = searchStack.getPVMove(ROOT_PLY, 1);
     }
 
     // search is finished - stop timer
+    cancelHardTimeLimitTimer();
+    stopUCIReporter();
     stopTime = System.currentTimeMillis();
     searchCounter.lastSearchTime = elapsedTime(stopTime);
 
     // print result of the search
-    printSearchResultInfo();
+    if (!isHelper) printSearchResultInfo();
 
     return searchResult;
   }
 
+  /**
+   * Lazy SMP - starts the configured number of helper searches. Each helper searches
+   * its own copy of the current position with its own move generators, killer and pv
+   * lists and shares the transposition table with this search.
+   */
+  private void startHelperSearches() {
+    activeHelpers = 0;
+    if (!config.USE_LAZY_SMP || PERFT || config.SMP_THREADS <= 1) return;
+
+    final int noOfHelpers = config.SMP_THREADS - 1;
+    while (helperSearches.size() < noOfHelpers) {
+      helperSearches.add(new Search(null, config, helperSearches.size() + 1));
+      LOG.info("Lazy SMP: created helper search {} with {} MB of own tables (not part of Hash)",
+               helperSearches.size(), getHelperMemoryInMB());
+    }
+    for (int i = 0; i < noOfHelpers; i++) {
+      final Search helper = helperSearches.get(i);
+      helper.transpositionTable = transpositionTable;
+      helper.startSearch(currentPosition, searchMode);
+    }
+    activeHelpers = noOfHelpers;
+    LOG.info("Lazy SMP: started {} helper searches", activeHelpers);
+  }
+
+  /**
+   * Lazy SMP - memory one helper search allocates for itself: the evaluation cache, the pawn
+   * and material hash tables of its evaluation and the move history. The transposition
+   * table is shared and not included.
+   *
+   * @return the memory used by the own tables of a helper search in MB
+   */
+  private long getHelperMemoryInMB() {
+    final long bytes = (long) Long.BYTES * evalCache.getMaxEntries()
+                       + evaluator.getPawnHashTable().getSizeInBytes()
+                       + evaluator.getMaterialHashTable().getSizeInBytes()
+                       + MoveHistory.SIZE_IN_BYTES;
+    return Math.round(bytes / (1024.0 * 1024.0));
+  }
+
+  /**
+   * Lazy SMP - stops all running helper searches and waits for them to finish.
+   */
+  private void stopHelperSearches() {
+    for (int i = 0; i < activeHelpers; i++) {
+      helperSearches.get(i).stopSearch = true;
+    }
+    for (int i = 0; i < activeHelpers; i++) {
+      helperSearches.get(i).waitWhileSearching();
+    }
+  }
+
+  /**
+   * @return the number of nodes visited by this search and all active helper searches
+   */
+  private long getTotalNodesVisited() {
+    long nodes = searchCounter.nodesVisited;
+    for (int i = 0; i < activeHelpers; i++) {
+      nodes += helperSearches.get(i).publishedNodesVisited;
+    }
+    return nodes;
+  }
+
+  /**
+   * @return the nodes published by this search and all active helper searches
+   */
+  private long getPublishedNodesVisited() {
+    long nodes = publishedNodesVisited;
+    for (int i = 0; i < activeHelpers; i++) {
+      nodes += helperSearches.get(i).publishedNodesVisited;
+    }
+    return nodes;
+  }
+
   /**
    * Generates root moves and stores them in rootMoves. UCI move filter is applied and moves are
    * sorted best guess first.
    * @param position
    */
   private void generateRootMoves(Position position) {
-    moveGenerators[ROOT_PLY].setPosition(position);
+    searchStack.get(ROOT_PLY).moveGenerator.setPosition(position);
     if (config.USE_PVS_ORDERING) {
-      moveGenerators[ROOT_PLY].setPVMove(currentBestRootMove);
+      searchStack.get(ROOT_PLY).moveGenerator.setPVMove(currentBestRootMove);
     }
-    MoveList legalMoves = moveGenerators[ROOT_PLY].getLegalMoves(true);
+    MoveList legalMoves = searchStack.get(ROOT_PLY).moveGenerator.getLegalMoves(true);
 
     // filter the root move list according to the given UCI moves
     rootMoves.clear();
@@ -758,13 +910,19 @@ public class Search implements Runnable {
     // is this the root node?
     final boolean ROOT = ply == ROOT_PLY;
 
+    // search data of this ply
+    final SearchStack.Frame frame = searchStack.get(ply);
+
+    // clear principal variation of this ply - root keeps the pv of the last iteration
+    if (!ROOT) searchStack.clearPV(ply);
+
     assert depth <= MAX_SEARCH_DEPTH;
     assert alpha >= Evaluation.MIN && beta <= Evaluation.MAX;
     assert pvNode || alpha == beta - 1;
 
     // update current search depth stats
     searchCounter.currentSearchDepth = Math.max(searchCounter.currentSearchDepth, ply);
-    searchCounter.currentExtraSearchDepth = Math.max(searchCounter.currentExtraSearchDepth, ply);
+    if (ply > searchCounter.currentExtraSearchDepth) searchCounter.currentExtraSearchDepth = ply;
 
     // on leaf node call qsearch
     // also go into quiescence when depth is 1 deeper than current
@@ -778,7 +936,6 @@ public class Search implements Runnable {
     // max allowed nodes.
     // @formatter:off
     if (stopSearch
-        || hardTimeLimitReached()
         || checkMaxNodes()
     ) {
       stopSearch = true;
@@ -828,26 +985,30 @@ public class Search implements Runnable {
     int ttMove = Move.NOMOVE;
     if (config.USE_TRANSPOSITION_TABLE && !PERFT) {
 
-      TT_Entry ttEntry = transpositionTable.get(position.getZobristKey());
-      if (ttEntry != null) {
+      final long ttEntry = transpositionTable.get(position.getZobristKey());
+      if (ttEntry != TranspositionTable.NO_ENTRY) {
         searchCounter.tt_Hits++;
 
         // independent from tt entry depth
-        ttMove = ttEntry.bestMove;
-        mateThreat[ply] = ttEntry.mateThreat;
+        // might be from a different position (TT collision) - ignore it if it is not valid here
+        ttMove = TranspositionTable.getBestMove(ttEntry);
+        if (!MoveGenerator.isPseudoLegal(position, ttMove)) ttMove = Move.NOMOVE;
+        frame.mateThreat = TranspositionTable.hasMateThreat(ttEntry);
 
         // use value only if tt depth was equal or deeper
-        if (ttEntry.depth >= depth) {
-          int value = ttEntry.value;
+        // never cut in pv nodes (incl. root) - they are always searched so that the
+        // pv and the ponder move are rebuilt in the triangular pv table
+        if (!pvNode && TranspositionTable.getDepth(ttEntry) >= depth) {
+          int value = TranspositionTable.getValue(ttEntry);
           assert value != Evaluation.NOVALUE;
           // correct the mate value as this has been recorded
           // relative to a different ply
           if (isCheckMateValue(value)) value = value > 0 ? value - ply : value + ply;
-          // in PV node only return ttHit if it was an exact hit
+          final byte entryType = TranspositionTable.getType(ttEntry);
           boolean cut = false;
-          if (ttEntry.type == TT_EntryType.EXACT) cut = true;
-          else if (!pvNode && ttEntry.type == TT_EntryType.ALPHA && value <= alpha) cut = true;
-          else if (!pvNode && ttEntry.type == TT_EntryType.BETA && value >= beta) cut = true;
+          if (entryType == TT_EntryType.EXACT) cut = true;
+          else if (entryType == TT_EntryType.ALPHA && value <= alpha) cut = true;
+          else if (entryType == TT_EntryType.BETA && value >= beta) cut = true;
           if (cut) {
             searchCounter.tt_Cuts++;
             return value;
@@ -870,8 +1031,8 @@ public class Search implements Runnable {
     }
     else {
       bestNodeMove = ttMove;
-      pv[ply].clear();
     }
+    frame.staticEval = Evaluation.NOVALUE;
 
     // ###############################################
     // FORWARD PRUNING BETA             @formatter:off
@@ -890,6 +1051,7 @@ public class Search implements Runnable {
 
       // get an evaluation for the position
       int staticEval = evaluate(position, ply, alpha, beta);
+      frame.staticEval = staticEval;
 
       // ###############################################
       // Reverse Futility Pruning, (RFP, Static Null Move Pruning)
@@ -902,7 +1064,7 @@ public class Search implements Runnable {
         final int evalMargin = config.RFP_MARGIN * depth;
         if (staticEval - evalMargin >= beta ){
           searchCounter.rfpPrunings++;
-          storeTT(position, staticEval, TT_EntryType.BETA, depth, bestNodeMove, mateThreat[ply]);
+          storeTT(position, staticEval, TT_EntryType.BETA, depth, bestNodeMove, frame.mateThreat);
           return staticEval - evalMargin; // fail-hard: beta / fail-soft: staticEval - evalMargin;
         }
       }
@@ -917,7 +1079,7 @@ public class Search implements Runnable {
       if (config.USE_NMP
           && depth >= config.NMP_DEPTH
           && bigPiecePresent(position)
-          && !mateThreat[ply]
+          && !frame.mateThreat
           && staticEval >= beta
       ) {
         // reduce more on higher depths
@@ -929,7 +1091,7 @@ public class Search implements Runnable {
         position.undoNullMove();
 
         // Check for mate threat
-        if (isCheckMateValue(nullValue)) mateThreat[ply] = true;
+        if (isCheckMateValue(nullValue)) frame.mateThreat = true;
 
         // Verify on fail high
         if (config.USE_VERIFY_NMP
@@ -945,7 +1107,7 @@ public class Search implements Runnable {
         // pruning
         if (nullValue >= beta) {
           searchCounter.nullMovePrunings++;
-          storeTT(position, nullValue, TT_EntryType.BETA, depth, bestNodeMove, mateThreat[ply]);
+          storeTT(position, nullValue, TT_EntryType.BETA, depth, bestNodeMove, frame.mateThreat);
           return nullValue; // fail-hard: beta / fail-soft: nullValue;
         }
       }
@@ -958,7 +1120,7 @@ public class Search implements Runnable {
       // are any capturing moves which might improve the situation
       if(config.USE_RAZOR_PRUNING
           && depth <= config.RAZOR_DEPTH
-          && !mateThreat[ply]
+          && !frame.mateThreat
           && !isCheckMateValue(alpha)
           && staticEval + config.RAZOR_MARGIN <= alpha
       ){
@@ -988,7 +1150,8 @@ public class Search implements Runnable {
       // fill the pv list and the TT
       search(position, iidDepth, ply, alpha, beta, PV_NODE, DO_NULL);
       // no we look in the pv list if we have a best move
-      bestNodeMove = pv[ply].empty() ? Move.NOMOVE : pv[ply].getFirst();
+      bestNodeMove =
+        searchStack.getPVLength(ply) == 0 ? Move.NOMOVE : searchStack.getPVMove(ply, 0);
     }
     // ###############################################
 
@@ -1000,12 +1163,12 @@ public class Search implements Runnable {
     // Root moves have been generated in iterativeDeepening()
     // and are in field rootMoves
     if (!ROOT) {
-      moveGenerators[ply].setPosition(position);
-      if (config.USE_KILLER_MOVES && !killerMoves[ply].empty()) {
-        moveGenerators[ply].setKillerMoves(killerMoves[ply]);
+      frame.moveGenerator.setPosition(position);
+      if (config.USE_KILLER_MOVES && !frame.killerMoves.empty()) {
+        frame.moveGenerator.setKillerMoves(frame.killerMoves);
       }
       if (config.USE_PVS_ORDERING && bestNodeMove != Move.NOMOVE) {
-        moveGenerators[ply].setPVMove(bestNodeMove);
+        frame.moveGenerator.setPVMove(bestNodeMove);
       }
     }
     int legalMovesSize = 0; // used only for tracing
@@ -1022,6 +1185,7 @@ public class Search implements Runnable {
     int move;
     int i = 0;
     int movesSize = ROOT ? rootMoves.size() : legalMovesSize;
+    frame.quietMoves.clear();
     move = getNextMove(ply, i++);
     while (move != Move.NOMOVE) {
 
@@ -1061,7 +1225,7 @@ public class Search implements Runnable {
       int extension = 0;
       if (config.USE_EXTENSIONS && !PERFT) {
         // @formatter:off
-        if (mateThreat[ply]
+        if (frame.mateThreat
             || Move.getMoveType(move) == MoveType.PROMOTION
             || (Move.getPiece(move).getType() == PieceType.PAWN
                 && (position.getNextPlayer().isWhite()
@@ -1092,7 +1256,6 @@ public class Search implements Runnable {
 
         final int materialEval
           = position.getMaterial(myColor) - position.getMaterial(myColor.getInverseColor());
-        final int moveGain = Move.getTarget(move).getType().getValue();
 
         // ###############################################
         // Limited Razoring
@@ -1101,7 +1264,7 @@ public class Search implements Runnable {
             && depth == PRE_PRE_FRONTIER
         ) {
           final int razorMargin = PieceType.QUEEN.getValue();
-          if (materialEval + moveGain + razorMargin <= alpha) {
+          if (isFutile(position, move, materialEval, razorMargin, alpha)) {
             searchCounter.lrReductions++;
             newDepth = PRE_FRONTIER; // reduction by 1
           }
@@ -1115,7 +1278,7 @@ public class Search implements Runnable {
             && depth == PRE_FRONTIER
         ) {
           final int extFutilityMargin = PieceType.ROOK.getValue();
-          if (materialEval + moveGain + extFutilityMargin <= alpha) {
+          if (isFutile(position, move, materialEval, extFutilityMargin, alpha)) {
             searchCounter.efpPrunings++;
             move = getNextMove(ply, i++);
             continue;
@@ -1135,7 +1298,9 @@ public class Search implements Runnable {
             && depth == FRONTIER
         ) {
           final int futilityMargin = 3 * PieceType.PAWN.getValue();
-          if (materialEval + moveGain + futilityMargin <= alpha) {
+          if (isFutile(position, move, materialEval, futilityMargin, alpha)) {
+            final int moveGain =
+              Move.isCapturing(move) ? Evaluation.see(position, move, seeGain) : 0;
             if (materialEval + moveGain > bestNodeValue) bestNodeValue = materialEval + moveGain;
             searchCounter.fpPrunings++;
             move = getNextMove(ply, i++);
@@ -1173,17 +1338,14 @@ public class Search implements Runnable {
       // ###############################################
 
       // ###############################################
-      // MAKE MOVE and skip illegal moves
-      // Root moves are always legal.
+      // MAKE MOVE
+      // Root moves and moves from the move generator are always legal.
       position.makeMove(move);
-      if (!ROOT && wasIllegalMove(position)) {
-        position.undoMove();
-        move = getNextMove(ply, i++);
-        continue;
-      }
+      assert !wasIllegalMove(position) : "Illegal move " + Move.toString(move);
       searchCounter.nodesVisited++;
       currentVariation.add(move);
-      sendUCIUpdate(position);
+      frame.currentMove = move;
+      pollNodes();
       // ###############################################
 
       // Check if our givesCheck(move) works correctly
@@ -1216,6 +1378,7 @@ public class Search implements Runnable {
       numberOfSearchedMoves++;
       currentVariation.removeLast();
       position.undoMove();
+      if (!Move.isCapturing(move)) frame.quietMoves.add(move);
       // ###############################################
 
       // In PERFT we can ignore values and pruning
@@ -1246,14 +1409,25 @@ public class Search implements Runnable {
 
           // save killer moves so they will be search earlier on following nodes
           if (config.USE_KILLER_MOVES && Move.getTarget(move) == Piece.NOPIECE) {
-            if (!killerMoves[ply].pushToHeadStable(move)) {
-              killerMoves[ply].addFront(move);
-              while (killerMoves[ply].size() > config.NO_KILLER_MOVES) {
-                killerMoves[ply].removeLast(); // keep size stable
+            if (!frame.killerMoves.pushToHeadStable(move)) {
+              frame.killerMoves.addFront(move);
+              while (frame.killerMoves.size() > config.NO_KILLER_MOVES) {
+                frame.killerMoves.removeLast(); // keep size stable
               }
             }
           }
 
+          // update history and counter move for non capturing moves
+          // all other non capturing moves searched before get a malus
+          if (config.USE_HISTORY_HEURISTIC && !Move.isCapturing(move)) {
+            final int lastMove = position.getLastMove();
+            moveHistory.updateCutOff(move, lastMove, depth);
+            for (int q = 0; q < frame.quietMoves.size(); q++) {
+              final int quietMove = frame.quietMoves.get(q);
+              if (quietMove != move) moveHistory.updateFailed(quietMove, lastMove, depth);
+            }
+          }
+
           searchCounter.prunings++;
           if (i < MAX_MOVES) searchCounter.betaCutOffs[i - 1]++;
           // store the bestNodeMove any way as this is the a refutation and
@@ -1268,7 +1442,7 @@ public class Search implements Runnable {
         // but not for the ply. We will return alpha and store a alpha node in
         // TT.
         if (value > alpha) { // NEW ALPHA => NEW PV NODE
-          MoveList.savePV(move, pv[ply + 1], pv[ply]);
+          searchStack.updatePV(ply, move);
           ttType = TT_EntryType.EXACT;
           alpha = value;
           if (ROOT) {
@@ -1305,7 +1479,7 @@ public class Search implements Runnable {
     }
 
     // store the best alpha
-    storeTT(position, bestNodeValue, ttType, depth, bestNodeMove, mateThreat[ply]);
+    storeTT(position, bestNodeValue, ttType, depth, bestNodeMove, frame.mateThreat);
     return bestNodeValue; // fail-hard: alpha / fail.soft: bestValue
   }
 
@@ -1331,8 +1505,14 @@ public class Search implements Runnable {
     assert alpha >= Evaluation.MIN && beta <= Evaluation.MAX;
     assert pvNode || alpha == beta - 1;
 
+    // search data of this ply
+    final SearchStack.Frame frame = searchStack.get(ply);
+
+    // clear principal variation of this ply
+    searchStack.clearPV(ply);
+
     // update current search depth stats
-    searchCounter.currentExtraSearchDepth = Math.max(searchCounter.currentExtraSearchDepth, ply);
+    if (ply > searchCounter.currentExtraSearchDepth) searchCounter.currentExtraSearchDepth = ply;
 
     // if PERFT return with eval to count all captures etc.
     if (PERFT) return evaluate(position, ply, alpha, beta);
@@ -1353,7 +1533,6 @@ public class Search implements Runnable {
     // max allowed nodes.
     // @formatter:off
     if (stopSearch
-        || hardTimeLimitReached()
         || checkMaxNodes()
     ) {
       stopSearch = true;
@@ -1381,31 +1560,35 @@ public class Search implements Runnable {
     int ttMove = Move.NOMOVE;
     if (config.USE_TRANSPOSITION_TABLE && !PERFT) {
 
-      TT_Entry ttEntry = transpositionTable.get(position.getZobristKey());
-      if (ttEntry != null) {
+      final long ttEntry = transpositionTable.get(position.getZobristKey());
+      if (ttEntry != TranspositionTable.NO_ENTRY) {
         searchCounter.tt_Hits++;
 
         // independend from tt entry depth
-        ttMove = ttEntry.bestMove;
-        mateThreat[ply] = ttEntry.mateThreat;
-
-        // use value only if tt depth was equal or deeper
-        //if (ttEntry.depth >= DEPTH_NONE) {
-        int value = ttEntry.value;
-        assert value != Evaluation.NOVALUE;
-        // correct the mate value as this has been recorded
-        // relative to a different ply
-        if (isCheckMateValue(value)) value = value > 0 ? value - ply : value + ply;
-        // in PV node only return ttHit if it was an exact hit
-        boolean cut = false;
-        if (ttEntry.type == TT_EntryType.EXACT) cut = true;
-        else if (!pvNode && ttEntry.type == TT_EntryType.ALPHA && value <= alpha) cut = true;
-        else if (!pvNode && ttEntry.type == TT_EntryType.BETA && value >= beta) cut = true;
-        if (cut) {
-          searchCounter.tt_Cuts++;
-          return value;
+        // might be from a different position (TT collision) - ignore it if it is not valid here
+        ttMove = TranspositionTable.getBestMove(ttEntry);
+        if (!MoveGenerator.isPseudoLegal(position, ttMove)) ttMove = Move.NOMOVE;
+        frame.mateThreat = TranspositionTable.hasMateThreat(ttEntry);
+
+        // use value independent from tt depth as quiescence search has no depth
+        // never cut in pv nodes - same as in search() so that the pv is not cut short
+        // at the quiescence search boundary
+        if (!pvNode) {
+          int value = TranspositionTable.getValue(ttEntry);
+          assert value != Evaluation.NOVALUE;
+          // correct the mate value as this has been recorded
+          // relative to a different ply
+          if (isCheckMateValue(value)) value = value > 0 ? value - ply : value + ply;
+          final byte entryType = TranspositionTable.getType(ttEntry);
+          boolean cut = false;
+          if (entryType == TT_EntryType.EXACT) cut = true;
+          else if (entryType == TT_EntryType.ALPHA && value <= alpha) cut = true;
+          else if (entryType == TT_EntryType.BETA && value >= beta) cut = true;
+          if (cut) {
+            searchCounter.tt_Cuts++;
+            return value;
+          }
         }
-        //}
         searchCounter.tt_Ignored++;
       }
       else searchCounter.tt_Misses++;
@@ -1423,8 +1606,7 @@ public class Search implements Runnable {
     // needed to remember if we even had a legal move
     int numberOfSearchedMoves = 0;
 
-    // clear principal Variation for this depth
-    pv[ply].clear();
+    frame.staticEval = Evaluation.NOVALUE;
 
     // ###############################################
     // StandPat
@@ -1434,9 +1616,10 @@ public class Search implements Runnable {
     // current position. So if we are already >beta we don't need to look at it.
     if (!position.hasCheck()) {
       int standPat = evaluate(position, ply, alpha, beta);
+      frame.staticEval = standPat;
       bestNodeValue = standPat;
       if (standPat >= beta) {
-        storeTT(position, standPat, TT_EntryType.BETA, DEPTH_NONE, Move.NOMOVE, mateThreat[ply]);
+        storeTT(position, standPat, TT_EntryType.BETA, DEPTH_NONE, Move.NOMOVE, frame.mateThreat);
         return standPat; // fail-hard: beta, fail-soft: statEval
       }
       if (standPat > alpha) alpha = standPat;
@@ -1446,11 +1629,11 @@ public class Search implements Runnable {
     // Prepare move generator - set position, killers and TT move and generate
     // all PseudoLegalMoves for QSearch. Usually only capture moves and check
     // evasions will be determined in move generator
-    moveGenerators[ply].setPosition(position);
+    frame.moveGenerator.setPosition(position);
     if (config.USE_PVS_ORDERING && bestNodeMove != Move.NOMOVE) {
-      moveGenerators[ply].setPVMove(bestNodeMove);
+      frame.moveGenerator.setPVMove(bestNodeMove);
     }
-    MoveList moves = moveGenerators[ply].getPseudoLegalQSearchMoves();
+    MoveList moves = frame.moveGenerator.getLegalQSearchMoves();
     searchCounter.movesGenerated += moves.size();
 
     // ###############################################
@@ -1504,22 +1687,18 @@ public class Search implements Runnable {
       } // @formatter:on
       // ###############################################
 
-      // TODO: SEE test - skip loosing moves
-
       // ###############################################
-      // Make the move and skip illegal moves
+      // Make the move - moves from the move generator are always legal
       position.makeMove(move);
-      if (wasIllegalMove(position)) {
-        position.undoMove();
-        continue;
-      }
+      assert !wasIllegalMove(position) : "Illegal move " + Move.toString(move);
       // keep track of current variation
       currentVariation.add(move);
+      frame.currentMove = move;
       // update nodes visited and count as non quiet board
       searchCounter.nodesVisited++;
       searchCounter.positionsNonQuiet++;
       // update UCI
-      sendUCIUpdate(position);
+      pollNodes();
       // ###############################################
 
       // ###############################################
@@ -1558,7 +1737,7 @@ public class Search implements Runnable {
         // Did we find a better move than in previous nodes then this is our new
         // PV and best move for this ply.
         if (value > alpha) { // NEW ALPHA => NEW PV NODE
-          MoveList.savePV(move, pv[ply + 1], pv[ply]);
+          searchStack.updatePV(ply, move);
           ttType = TT_EntryType.EXACT;
           alpha = value;
         }
@@ -1578,7 +1757,7 @@ public class Search implements Runnable {
 
     assert stopSearch || (bestNodeValue > Evaluation.MIN && bestNodeValue < Evaluation.MAX);
 
-    storeTT(position, bestNodeValue, ttType, 0, bestNodeMove, mateThreat[ply]);
+    storeTT(position, bestNodeValue, ttType, 0, bestNodeMove, frame.mateThreat);
     return bestNodeValue; /// fail-hard: alpha / fail-soft: bestvalue
   }
 
@@ -1606,8 +1785,29 @@ public class Search implements Runnable {
       return 1;
     }
 
+    // look for a cached evaluation of this position
+    if (config.USE_EVAL_CACHE) {
+      final int cached = evalCache.get(position.getZobristKey());
+      if (cached != Evaluation.NOVALUE) {
+        searchCounter.evalCacheHits++;
+        return cached;
+      }
+      searchCounter.evalCacheMisses++;
+    }
+
     // do evaluation
-    return evaluator.evaluate(position);
+    final int value;
+    if (config.USE_LAZY_EVAL) {
+      value = evaluator.evaluate(position, alpha, beta, config.LAZY_EVAL_MARGIN);
+      if (evaluator.wasLazy()) {
+        searchCounter.lazyEvaluations++;
+        return value; // lazy values depend on the window and are not cached
+      }
+    }
+    else value = evaluator.evaluate(position);
+
+    if (config.USE_EVAL_CACHE) evalCache.put(position.getZobristKey(), value);
+    return value;
   }
 
   /**
@@ -1640,7 +1840,7 @@ public class Search implements Runnable {
   private int getNextMove(int ply, int i) {
     int move;
     if (ply == ROOT_PLY) move = i < rootMoves.size() ? rootMoves.getMove(i) : Move.NOMOVE;
-    else move = moveGenerators[ply].getNextPseudoLegalMove(false);
+    else move = searchStack.get(ply).moveGenerator.getNextLegalMove(false);
     return move;
   }
 
@@ -1652,24 +1852,6 @@ public class Search implements Runnable {
     return searchMode.getNodes() > 0 && searchCounter.nodesVisited >= searchMode.getNodes();
   }
 
-  /**
-   * Retrieves the PV line from the transposition table in root search.
-   *
-   * @param position
-   * @param depth
-   * @param pv
-   */
-  private void getPVLine(final Position position, final byte depth, final MoveList pv) {
-    if (depth < 0) return;
-    TT_Entry ttEntry = transpositionTable.get(position.getZobristKey());
-    if (ttEntry != null && ttEntry.bestMove != Move.NOMOVE) {
-      pv.add(ttEntry.bestMove);
-      position.makeMove(ttEntry.bestMove);
-      getPVLine(position, (byte) (depth - 1), pv);
-      position.undoMove();
-    }
-  }
-
   /**
    * Probes the openbook for the given position and returns a move from
    * the opening book or null if no move was found.
@@ -1722,6 +1904,24 @@ public class Search implements Runnable {
              && position.getQueenSquares()[activePlayer].isEmpty());
   }
 
+  /**
+   * Returns true if the material balance after the move plus the margin does not
+   * reach alpha. For captures the gain after the exchange on the target square is
+   * used. The full SEE only runs when the cheap bounds in seeGE can't decide.
+   *
+   * @param position
+   * @param move
+   * @param materialEval material balance before the move from the moving side's view
+   * @param margin
+   * @param alpha
+   * @return true if the move can't raise the material above alpha
+   */
+  private boolean isFutile(Position position, int move, int materialEval, int margin, int alpha) {
+    final int threshold = alpha - materialEval - margin + 1;
+    if (!Move.isCapturing(move)) return threshold > 0;
+    return !Evaluation.seeGE(position, move, threshold, seeGain);
+  }
+
   /**
    * @param value
    * @return true if absolute value is a mate value, false otherwise
@@ -1809,6 +2009,7 @@ public class Search implements Runnable {
       addExtraTime(0.9);
     }
 
+    scheduleHardTimeLimitTimer();
   }
 
   /**
@@ -1827,6 +2028,33 @@ public class Search implements Runnable {
       extraTime += hardTimeLimit * (factor - 1);
       LOG.debug(String.format("Time added %,d ms to %,d ms", (long) (hardTimeLimit * (factor - 1)),
                               hardTimeLimit + extraTime));
+      scheduleHardTimeLimitTimer();
+    }
+  }
+
+  /**
+   * (Re)schedules the timer thread to set the stop flag when the hard time limit including the
+   * current extra time is reached. This keeps reading the clock out of the search nodes.
+   * Does nothing for helpers and searches without time control.
+   */
+  private synchronized void scheduleHardTimeLimitTimer() {
+    cancelHardTimeLimitTimer();
+    if (isHelper || !searchMode.isTimeControl()) return;
+    final int generation = hardTimeLimitTimerGeneration;
+    final long delay = Math.max(0, hardTimeLimit + extraTime - elapsedTime());
+    hardTimeLimitTimer = TIMER.schedule(() -> {
+      if (generation == hardTimeLimitTimerGeneration) stopSearch = true;
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Cancels a scheduled hard time limit timer if there is one.
+   */
+  private synchronized void cancelHardTimeLimitTimer() {
+    hardTimeLimitTimerGeneration++;
+    if (hardTimeLimitTimer != null) {
+      hardTimeLimitTimer.cancel(false);
+      hardTimeLimitTimer = null;
     }
   }
 
@@ -1836,22 +2064,21 @@ public class Search implements Runnable {
    * @return true if soft time limit is reached, false otherwise
    */
   private boolean softTimeLimitReached() {
-    if (!searchMode.isTimeControl()) return false;
-    stopSearch = elapsedTime() >= softTimeLimit + (extraTime * 0.8);
+    if (isHelper || !searchMode.isTimeControl()) return false;
+    if (elapsedTime() >= softTimeLimit + (extraTime * 0.8)) stopSearch = true;
     return stopSearch;
   }
 
   /**
-   * Hard time limit is used to check time regularily in the search to stop the search when
-   * time is out
-   *
-   * TODO instead of checking this regulary we could use a timer thread to set stopSearch to true.
+   * Hard time limit is normally enforced by the timer thread (see
+   * <code>scheduleHardTimeLimitTimer()</code>). This reads the clock and is only used as a
+   * fallback at the root and every NODE_POLL_MASK+1 nodes.
    *
    * @return true if hard time limit is reached, false otherwise
    */
   private boolean hardTimeLimitReached() {
-    if (!searchMode.isTimeControl()) return false;
-    stopSearch = elapsedTime() >= hardTimeLimit + extraTime;
+    if (isHelper || !searchMode.isTimeControl()) return false;
+    if (elapsedTime() >= hardTimeLimit + extraTime) stopSearch = true;
     return stopSearch;
   }
 
@@ -1881,10 +2108,20 @@ public class Search implements Runnable {
         "TT Stats: Nodes visited: %,d TT Hits %,d TT Misses %,d TT Cuts %,d TT Ignored %,d",
         searchCounter.nodesVisited, searchCounter.tt_Hits, searchCounter.tt_Misses,
         searchCounter.tt_Cuts, searchCounter.tt_Ignored));
+      final long evalCacheProbes = searchCounter.evalCacheHits + searchCounter.evalCacheMisses;
+      LOG.info(evaluator.getPawnHashTable().toString());
+      LOG.info(evaluator.getMaterialHashTable().toString());
+      LOG.info(String.format("Eval Cache Stats: Hits %,d Misses %,d Hit Rate %.1f%%",
+                             searchCounter.evalCacheHits, searchCounter.evalCacheMisses,
+                             evalCacheProbes == 0 ? 0f
+                               : 100f * searchCounter.evalCacheHits / evalCacheProbes));
       LOG.info("{}", String.format(
-        "Search complete. Nodes visited: %,d Boards Evaluated: %,d (+%,d) re-pvs-root=%d re-asp=%d betaCutOffs=%s",
+        "Search complete. Nodes visited: %,d Boards Evaluated: %,d (+%,d) Lazy: %,d (%.1f%%) re-pvs-root=%d re-asp=%d betaCutOffs=%s",
         searchCounter.nodesVisited, searchCounter.leafPositionsEvaluated,
-        searchCounter.nonLeafPositionsEvaluated, searchCounter.pvs_root_researches,
+        searchCounter.nonLeafPositionsEvaluated, searchCounter.lazyEvaluations,
+        searchCounter.leafPositionsEvaluated == 0 ? 0f
+          : 100f * searchCounter.lazyEvaluations / searchCounter.leafPositionsEvaluated,
+        searchCounter.pvs_root_researches,
         searchCounter.aspirationResearches, Arrays.toString(searchCounter.betaCutOffs)));
 
       LOG.info(searchCounter.toString());
@@ -1905,12 +2142,14 @@ public class Search implements Runnable {
    * Send UCI info after each iteration of search depth
    */
   private void sendUCIIterationEndInfo() {
+    if (isHelper) return;
+    final long nodesVisited = getTotalNodesVisited();
     final String infoString =
       String.format("depth %d seldepth %d multipv 1 %s nodes %d nps %d time %d pv %s",
                     searchCounter.currentIterationDepth, searchCounter.currentExtraSearchDepth,
-                    getScoreString(currentBestRootValue), searchCounter.nodesVisited,
-                    1000 * (searchCounter.nodesVisited / (elapsedTime() + 2L)), elapsedTime(),
-                    pv[ROOT_PLY].toNotationString());
+                    getScoreString(currentBestRootValue), nodesVisited,
+                    1000 * (nodesVisited / (elapsedTime() + 2L)), elapsedTime(),
+                    searchStack.getPV(ROOT_PLY).toNotationString());
 
     if (engine == null) LOG.info(">> {}", infoString);
     else engine.sendInfoToUCI(infoString);
@@ -1920,61 +2159,96 @@ public class Search implements Runnable {
    * Send UCI info after each iteration of search depth
    */
   private void sendUCIAspirationResearchInfo(String bound) {
+    if (isHelper) return;
+    final long nodesVisited = getTotalNodesVisited();
     final String infoString =
       String.format("depth %d seldepth %d multipv 1 %s%s nodes %d nps %d time %d pv %s",
                     searchCounter.currentIterationDepth, searchCounter.currentExtraSearchDepth,
-                    getScoreString(currentBestRootValue), bound, searchCounter.nodesVisited,
-                    1000 * (searchCounter.nodesVisited / (elapsedTime() + 2L)), elapsedTime(),
-                    pv[ROOT_PLY].toNotationString());
+                    getScoreString(currentBestRootValue), bound, nodesVisited,
+                    1000 * (nodesVisited / (elapsedTime() + 2L)), elapsedTime(),
+                    searchStack.getPV(ROOT_PLY).toNotationString());
 
     if (engine == null) LOG.info(">> {}", infoString);
     else engine.sendInfoToUCI(infoString);
   }
 
   /**
-   * Send the UCI info command line to the UI. Uses a ticker interval to avoid
-   * flooding the protocol. <code>UCI_UPDATE_INTERVAL</code> is used as a time
-   * interval in ms
-   *
-   * @param position
+   * Polls the clock every NODE_POLL_MASK+1 nodes. Publishes the nodes visited, checks the hard
+   * time limit as a fallback to the timer thread and copies the current line if the UCI
+   * reporter has requested it. Must be called after the nodes visited counter has been
+   * incremented.
    */
-  private void sendUCIUpdate(final Position position) {
-    // send current root move info to UCI every x milli seconds
-    if (System.currentTimeMillis() - uciUpdateTicker >= UCI_UPDATE_INTERVAL) {
-
-      String infoString = String.format("depth %d seldepth %d nodes %d nps %d time %d hashfull %d",
-                                        searchCounter.currentIterationDepth,
-                                        searchCounter.currentExtraSearchDepth,
-                                        searchCounter.nodesVisited,
-                                        1000 * searchCounter.nodesVisited / (1 + elapsedTime()),
-                                        elapsedTime(), (int) (1000 * (
-          (float) transpositionTable.getNumberOfEntries() / transpositionTable.getMaxEntries())));
-
-      if (engine == null) LOG.info(">> {}", infoString);
-      else engine.sendInfoToUCI(infoString);
-
-      infoString = String.format("currmove %s currmovenumber %d",
-                                 Move.toUCINotation(position, searchCounter.currentRootMove),
-                                 searchCounter.currentRootMoveNumber);
-
-      if (engine == null) LOG.info(">> {}", infoString);
-      else engine.sendInfoToUCI(infoString);
-
-      if (config.UCI_ShowCurrLine) {
-        infoString = String.format("currline %s", currentVariation.toNotationString());
-        if (engine == null) LOG.info(">> {}", infoString);
-        else engine.sendInfoToUCI(infoString);
+  private void pollNodes() {
+    if ((searchCounter.nodesVisited & NODE_POLL_MASK) != 0) return;
+    publishedNodesVisited = searchCounter.nodesVisited;
+    if (isHelper) return;
+    hardTimeLimitReached();
+    if (currLineRequested) {
+      currLineSnapshot = new MoveList(currentVariation);
+      currLineRequested = false;
+    }
+  }
 
-      }
+  /**
+   * Starts the UCI info reporter on the reporter thread. It sends an update every
+   * <code>UCI_UPDATE_INTERVAL</code> ms until <code>stopUCIReporter()</code> is called.
+   * Helpers do not report.
+   */
+  private synchronized void startUCIReporter() {
+    if (isHelper) return;
+    uciReporter = REPORTER.scheduleAtFixedRate(this::sendUCIUpdate, UCI_UPDATE_INTERVAL,
+                                               UCI_UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+  }
 
-      LOG.debug(searchCounter.toString());
-      LOG.info(transpositionTable.toString());
-      LOG.info(String.format(
-        "TT Stats: Nodes visited: %,d TT Hits %,d TT Misses %,d TT Cuts %,d TT Ignored %,d",
-        searchCounter.nodesVisited, searchCounter.tt_Hits, searchCounter.tt_Misses,
-        searchCounter.tt_Cuts, searchCounter.tt_Ignored));
+  /**
+   * Stops the UCI info reporter. As reporting is synchronized with this no update will be sent
+   * after this has returned.
+   */
+  private synchronized void stopUCIReporter() {
+    if (uciReporter != null) {
+      uciReporter.cancel(false);
+      uciReporter = null;
+    }
+  }
+
+  /**
+   * Send the UCI info command line to the UI. Called by the UCI reporter on the reporter thread
+   * every <code>UCI_UPDATE_INTERVAL</code> ms and only reads values published by the search
+   * thread. Search statistics are logged once at the end of the search and not here.
+   */
+  private synchronized void sendUCIUpdate() {
+    if (uciReporter == null) return;
+
+    final long nodesVisited = getPublishedNodesVisited();
+    final long time = elapsedTime();
+    String infoString = String.format("depth %d seldepth %d nodes %d nps %d time %d hashfull %d",
+                                      searchCounter.currentIterationDepth,
+                                      searchCounter.currentExtraSearchDepth,
+                                      nodesVisited,
+                                      1000 * nodesVisited / (1 + time),
+                                      time, (int) (1000 * (
+        (float) transpositionTable.getNumberOfEntries() / transpositionTable.getMaxEntries())));
 
-      uciUpdateTicker = System.currentTimeMillis();
+    if (engine == null) LOG.info(">> {}", infoString);
+    else engine.sendInfoToUCI(infoString);
+
+    infoString = String.format("currmove %s currmovenumber %d",
+                               Move.toUCINotation(currentPosition,
+                                                  searchCounter.currentRootMove),
+                               searchCounter.currentRootMoveNumber);
+
+    if (engine == null) LOG.info(">> {}", infoString);
+    else engine.sendInfoToUCI(infoString);
+
+    if (config.UCI_ShowCurrLine) {
+      // the line is copied by the search thread on request and sent with the next update
+      final MoveList currLine = currLineSnapshot;
+      if (currLine != null) {
+        infoString = String.format("currline %s", currLine.toNotationString());
+        if (engine == null) LOG.info(">> {}", infoString);
+        else engine.sendInfoToUCI(infoString);
+      }
+      currLineRequested = true;
     }
   }
 
@@ -2016,7 +2290,7 @@ public class Search implements Runnable {
       else {
         LOG.info("Ponderhit when ponder search already ended. Sending result.");
         LOG.info("Search result was: {} PV {}", lastSearchResult.toString(),
-                 pv[ROOT_PLY].toNotationString());
+                 searchStack.getPV(ROOT_PLY).toNotationString());
 
         sendUCIBestMove();
       }
@@ -2041,6 +2315,7 @@ public class Search implements Runnable {
    */
   public void newGame() {
     clearHashTables();
+    moveHistory.clear();
   }
 
   /**
@@ -2056,7 +2331,7 @@ public class Search implements Runnable {
    * @return Clone of PV MoveList
    */
   public MoveList getPrincipalVariation(int ply) {
-    return pv[ply].clone();
+    return searchStack.getPV(ply);
   }
 
   /**
@@ -2065,7 +2340,7 @@ public class Search implements Runnable {
    * @return String of PV MoveList
    */
   public String getPrincipalVariationString(int ply) {
-    return pv[ply].toNotationString();
+    return searchStack.getPV(ply).toNotationString();
   }
 
   /**
@@ -2089,7 +2364,18 @@ public class Search implements Runnable {
    * @param hashSize
    */
   public void setHashSize(int hashSize) {
-    transpositionTable = new TranspositionTable(hashSize);
+    transpositionTable = new TranspositionTable(hashSize, config.TT_BUCKET_SIZE);
+  }
+
+  /**
+   * Called by engine whenever the evaluation cache size changes.
+   * Initially set in constructor
+   *
+   * @param evalCacheSize
+   */
+  public void setEvalCacheSize(int evalCacheSize) {
+    evalCache = new EvaluationCache(evalCacheSize);
+    for (Search helper : helperSearches) helper.setEvalCacheSize(evalCacheSize);
   }
 
   /**
@@ -2097,6 +2383,14 @@ public class Search implements Runnable {
    */
   public void clearHashTables() {
     transpositionTable.clear();
+    evalCache.clear();
+    evaluator.getPawnHashTable().clear();
+    evaluator.getMaterialHashTable().clear();
+    for (Search helper : helperSearches) {
+      helper.evalCache.clear();
+      helper.evaluator.getPawnHashTable().clear();
+      helper.evaluator.getMaterialHashTable().clear();
+    }
   }
 
   /**
@@ -2152,18 +2446,20 @@ public class Search implements Runnable {
     // counter for cut off to measure quality of move ordering
     long[] betaCutOffs = new long[MAX_MOVES];
 
-    // Info values
-    int  currentIterationDepth   = 0;
+    // Info values - volatile ones are read by the UCI reporter
+    volatile int currentIterationDepth   = 0;
+    volatile int currentExtraSearchDepth = 0;
+    volatile int currentRootMove         = 0;
+    volatile int currentRootMoveNumber   = 0;
+
     int  currentSearchDepth      = 0;
-    int  currentExtraSearchDepth = 0;
-    int  currentRootMove         = 0;
-    int  currentRootMoveNumber   = 0;
     long lastSearchTime          = 0;
     int  bestMoveChanges         = 0;
 
     // PERFT Values
     long leafPositionsEvaluated    = 0;
     long nonLeafPositionsEvaluated = 0;
+    long lazyEvaluations           = 0;
     long checkCounter              = 0;
     long checkMateCounter          = 0;
     long captureCounter            = 0;
@@ -2181,6 +2477,8 @@ public class Search implements Runnable {
     long tt_Misses              = 0;
     long tt_Cuts                = 0;
     long tt_Ignored             = 0;
+    long evalCacheHits          = 0;
+    long evalCacheMisses        = 0;
     long movesGenerated         = 0;
     long nodesVisited           = 0;
     int  minorPromotionPrunings = 0;
@@ -2216,6 +2514,7 @@ public class Search implements Runnable {
       nodesVisited = 0;
       leafPositionsEvaluated = 0;
       nonLeafPositionsEvaluated = 0;
+      lazyEvaluations = 0;
       positionsNonQuiet = 0;
       prunings = 0;
       pvs_root_researches = 0;
@@ -2226,6 +2525,8 @@ public class Search implements Runnable {
       tt_Misses = 0;
       tt_Cuts = 0;
       tt_Ignored = 0;
+      evalCacheHits = 0;
+      evalCacheMisses = 0;
       movesGenerated = 0;
       checkCounter = 0;
       checkMateCounter = 0;
@@ -2262,6 +2563,7 @@ public class Search implements Runnable {
              ", currentRootMoveNumber=" + currentRootMoveNumber +
              ", leafPositionsEvaluated=" + leafPositionsEvaluated +
              ", nonLeafPositionsEvaluated=" + nonLeafPositionsEvaluated +
+             ", lazyEvaluations=" + lazyEvaluations +
              ", checkCounter=" + checkCounter +
              ", checkMateCounter=" + checkMateCounter +
              ", captureCounter=" + captureCounter +
@@ -2271,6 +2573,8 @@ public class Search implements Runnable {
              ", tt_Misses=" + tt_Misses +
              ", tt_Cuts=" + tt_Cuts +
              ", tt_Ignored=" + tt_Ignored +
+             ", evalCacheHits=" + evalCacheHits +
+             ", evalCacheMisses=" + evalCacheMisses +
              ", movesGenerated=" + movesGenerated +
              ", positionsNonQuiet=" + positionsNonQuiet +
              ", pvs_root_researches=" + pvs_root_researches +
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+/**
+ * Preallocated stack of per ply search data (move generator, killer moves, static eval,
+ * flags and the current move) and the triangular principal variation table.
+ * <p>
+ * Created once per search object and reused for all searches. <code>reset()</code> is O(1) -
+ * it only starts a new generation and each frame is cleared lazily the first time it is
+ * retrieved in the new generation.
+ * <p>
+ * The principal variation is kept in a triangular table. Row ply holds the pv from ply on and
+ * is updated on a new best move by copying the row of ply+1 behind the move. The search clears
+ * the row of a ply when it enters a node so rows are never read stale.
+ * <p>
+ * Not thread safe - each search thread has its own instance.
+ */
+public class SearchStack {
+
+  private final Frame[] frames;
+
+  // triangular pv table - row ply has size-ply entries of which pvLength[ply] are used
+  private final int[][] pvTable;
+  private final int[]   pvLength;
+
+  // current generation - frames of an older generation are cleared when retrieved
+  private int generation = 0;
+
+  // settings for the move generators of the current generation
+  private boolean     sortMoves   = false;
+  private MoveHistory moveHistory = null;
+
+  /**
+   * Creates a search stack with all frames for the given number of plies
+   *
+   * @param size maximal number of plies
+   */
+  public SearchStack(int size) {
+    frames = new Frame[size];
+    pvTable = new int[size][];
+    pvLength = new int[size];
+    for (int i = 0; i < size; i++) {
+      frames[i] = new Frame();
+      pvTable[i] = new int[size - i];
+    }
+  }
+
+  /**
+   * Resets the stack for a new search. Frames are cleared lazily when retrieved with
+   * <code>get(ply)</code>.
+   *
+   * @param sortMoves   setting for <code>MoveGenerator.SORT_MOVES</code>
+   * @param moveHistory history tables for the move generators or null if not used
+   */
+  public void reset(boolean sortMoves, MoveHistory moveHistory) {
+    this.sortMoves = sortMoves;
+    this.moveHistory = moveHistory;
+    generation++;
+  }
+
+  /**
+   * @param ply
+   * @return the frame for the given ply - cleared if this is the first access after a reset
+   */
+  public Frame get(int ply) {
+    final Frame frame = frames[ply];
+    if (frame.generation != generation) frame.clear(generation, sortMoves, moveHistory);
+    return frame;
+  }
+
+  /**
+   * @return number of plies in this stack
+   */
+  public int size() {
+    return frames.length;
+  }
+
+  /**
+   * Clears the principal variation of the given ply
+   *
+   * @param ply
+   */
+  public void clearPV(int ply) {
+    pvLength[ply] = 0;
+  }
+
+  /**
+   * Sets the principal variation of the given ply to the single given move
+   *
+   * @param ply
+   * @param move
+   */
+  public void setPV(int ply, int move) {
+    pvTable[ply][0] = move;
+    pvLength[ply] = 1;
+  }
+
+  /**
+   * Sets the principal variation of the given ply to the given move followed by the principal
+   * variation of ply+1.
+   *
+   * @param ply
+   * @param move new best move in ply
+   */
+  public void updatePV(int ply, int move) {
+    final int length = pvLength[ply + 1];
+    final int[] row = pvTable[ply];
+    row[0] = move;
+    System.arraycopy(pvTable[ply + 1], 0, row, 1, length);
+    pvLength[ply] = length + 1;
+  }
+
+  /**
+   * @param ply
+   * @return number of moves in the principal variation of the given ply
+   */
+  public int getPVLength(int ply) {
+    return pvLength[ply];
+  }
+
+  /**
+   * @param ply
+   * @param i   index of the move in the principal variation - must be smaller than the length
+   * @return the move at index i of the principal variation of the given ply
+   */
+  public int getPVMove(int ply, int i) {
+    assert i < pvLength[ply];
+    return pvTable[ply][i];
+  }
+
+  /**
+   * @param ply
+   * @return a new MoveList with the principal variation of the given ply
+   */
+  public MoveList getPV(int ply) {
+    final MoveList pv = new MoveList(Math.max(1, pvLength[ply]));
+    for (int i = 0; i < pvLength[ply]; i++) pv.add(pvTable[ply][i]);
+    return pv;
+  }
+
+  /**
+   * Search data for one ply
+   */
+  public static final class Frame {
+
+    // move generator for this ply to avoid object creation during search
+    final MoveGenerator moveGenerator = new MoveGenerator();
+    // killer moves of this ply
+    final MoveList      killerMoves   = new MoveList(8);
+    // non capturing moves searched in this ply - lowered in history on a cut-off
+    final MoveList      quietMoves    = new MoveList();
+
+    // static evaluation of the current node in this ply or Evaluation.NOVALUE
+    int     staticEval  = Evaluation.NOVALUE;
+    // move currently searched in this ply
+    int     currentMove = Move.NOMOVE;
+    // there has been a mate threat in this ply
+    boolean mateThreat  = false;
+    // this ply only has one move to play
+    boolean singleReply = false;
+
+    private int generation = -1;
+
+    private void clear(int generation, boolean sortMoves, MoveHistory moveHistory) {
+      this.generation = generation;
+      moveGenerator.SORT_MOVES = sortMoves;
+      moveGenerator.setMoveHistory(moveHistory);
+      killerMoves.clear();
+      quietMoves.clear();
+      staticEval = Evaluation.NOVALUE;
+      currentMove = Move.NOMOVE;
+      mateThreat = false;
+      singleReply = false;
+    }
+  }
+}
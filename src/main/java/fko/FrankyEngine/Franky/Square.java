@@ -204,6 +204,15 @@ public enum Square {
     return square.isValidSquare() ? square : NOSQUARE;
   }
 
+  /**
+   * @param index64 index of a 64 square board (a1=0, h8=63) e.g. from a bitboard bit-scan
+   * @return the Square for the given index
+   */
+  public static Square getSquareFromIndex64(int index64) {
+    // x88 index has 16 squares per rank instead of 8
+    return Square.values[index64 + (index64 & ~7)];
+  }
+
   /**
    * @return true if Square is a valid chess square
    */
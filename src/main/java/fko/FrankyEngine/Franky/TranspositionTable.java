@@ -28,18 +28,39 @@ package fko.FrankyEngine.Franky;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.IntStream;
 
 /**
  * A cache for node results during AlphaBeta search.
  * <p>
- * Implementation uses a simple array of an TT_Entry class. The array indexes
- * are calculated by using the modulo of the max number of entries from the key.
- * <code>entries[key%maxNumberOfEntries]</code>. As long as key is randomly distributed
- * this works just fine.
+ * Implementation uses a flat array of primitive longs. Each entry uses two longs - the
+ * zobrist key and a data long which packs value, depth, type, mate threat, generation and
+ * best move.
+ * No objects are created for the entries which saves memory and avoids any GC work for the
+ * table.
  * <p>
- * The TT_Entry elements are tailored for small memory footprint and use primitive data types
- * for value (short), depth (byte), type (byte), age (byte).
+ * Entries are grouped in buckets of <code>bucketSize</code> entries (default 4 entries = 64
+ * bytes). The bucket is calculated by using the modulo of the number of buckets from the key.
+ * As long as key is randomly distributed this works just fine. A probe scans all entries
+ * of the bucket. When the bucket is full the least valuable entry (shallow and/or old) is
+ * replaced. A bucket size of 1 is a simple one entry per index table.
+ * <p>
+ * Aging uses a generation counter which is increased for each new search. Entries store
+ * the generation they have been written or last used in. The age of an entry is the
+ * difference to the current generation. Aging the table therefore is O(1) regardless of
+ * its size.
+ * <p>
+ * <code>get()</code> returns the data long of an entry which can be decoded with
+ * the static methods <code>getValue()</code>, <code>getDepth()</code>, <code>getType()</code>,
+ * <code>getBestMove()</code> and <code>hasMateThreat()</code>.
+ * <p>
+ * The table is thread safe without any locks and can be shared by several search threads.
+ * Instead of the key <code>key^data</code> is stored. When reading an entry the key is
+ * verified by <code>storedKey^data==key</code>. An entry torn by concurrent writes of two
+ * threads fails this verification and is treated as a miss (lockless hashing by Hyatt/Mann).
+ * Statistics use striped <code>LongAdder</code> counters.
  */
 public class TranspositionTable {
 
@@ -48,33 +69,112 @@ public class TranspositionTable {
   private static final int KB = 1024;
   private static final int MB = KB * KB;
 
+  /** size of an entry in bytes - key and data long */
+  static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+  /** returned by <code>get()</code> if no entry for a key was found */
+  public static final long NO_ENTRY = 0L;
+
+  /** default number of entries per bucket - 4 entries = 64 bytes */
+  public static final int DEFAULT_BUCKET_SIZE = 4;
+
+  // weight of the age of an entry compared to its depth when choosing an entry for replacement
+  private static final int AGE_WEIGHT = 4;
+
+  // @formatter:off
+  /*
+  DATA BITMAP
+  BITS   Info          Mask
+  -------------------------------
+   0-15  Value         0xFFFF    (short)
+  16-23  Depth         0xFF      (byte)
+  24-25  Type          0x3       (TT_EntryType)
+  26     Mate Threat   0x1
+  27-33  Generation    0x7F
+  34-63  Best Move     0x3FFFFFFF (0 for NOMOVE)
+  */
+  // @formatter:on
+
+  private static final int  VALUE_SHIFT      = 0;
+  private static final long VALUE_MASK       = 0xFFFFL << VALUE_SHIFT;
+  private static final int  DEPTH_SHIFT      = 16;
+  private static final long DEPTH_MASK       = 0xFFL << DEPTH_SHIFT;
+  private static final int  TYPE_SHIFT       = 24;
+  private static final long TYPE_MASK        = 0x3L << TYPE_SHIFT;
+  private static final int  MATETHREAT_SHIFT = 26;
+  private static final long MATETHREAT_MASK  = 0x1L << MATETHREAT_SHIFT;
+  private static final int  GENERATION_SHIFT = 27;
+  private static final long GENERATION_MASK  = 0x7FL << GENERATION_SHIFT;
+  private static final int  MOVE_SHIFT       = 34;
+  private static final long MOVE_MASK        = 0x3FFFFFFFL << MOVE_SHIFT;
+
+  private static final int MAX_GENERATION = 0x7F;
+
   private long sizeInByte;
   private int  maxNumberOfEntries;
-  private int  numberOfEntries = 0;
 
-  private long numberOfPuts       = 0L;
-  private long numberOfCollisions = 0L;
-  private long numberOfUpdates    = 0L;
-  private long numberOfProbes     = 0L;
-  private long numberOfHits       = 0L;
-  private long numberOfMisses     = 0L;
+  private final LongAdder numberOfEntries = new LongAdder();
+
+  private final int bucketSize;
+  private       int numberOfBuckets;
+
+  // current generation - increased by ageEntries() for each new search
+  private volatile int generation = 0;
+
+  private final LongAdder numberOfPuts       = new LongAdder();
+  private final LongAdder numberOfCollisions = new LongAdder();
+  private final LongAdder numberOfUpdates    = new LongAdder();
+  private final LongAdder numberOfProbes     = new LongAdder();
+  private final LongAdder numberOfHits       = new LongAdder();
+  private final LongAdder numberOfMisses     = new LongAdder();
 
-  private final TT_Entry[] entries;
+  // per bucket statistics - hits and replacements counted by the entry's slot in the bucket
+  private final LongAdder[] numberOfHitsPerSlot;
+  private final LongAdder[] numberOfCollisionsPerSlot;
+
+  // key^data at entries[2*i], data at entries[2*i+1]
+  private final long[] entries;
 
   /**
    * Creates a hash table with a approximated number of entries calculated by
    * the size in KB divided by the entry size.<br>
-   * The hash function is very simple using the modulo of number of entries on the key
+   * Uses buckets of <code>DEFAULT_BUCKET_SIZE</code> entries.
    *
    * @param size in MB (1024B^2)
    */
   public TranspositionTable(int size) {
+    this(size, DEFAULT_BUCKET_SIZE);
+  }
+
+  /**
+   * Creates a hash table with a approximated number of entries calculated by
+   * the size in KB divided by the entry size.<br>
+   * The hash function is very simple using the modulo of number of buckets on the key
+   *
+   * @param size       in MB (1024B^2)
+   * @param bucketSize number of entries per bucket
+   */
+  public TranspositionTable(int size, int bucketSize) {
     if (size < 1) {
       final String msg = "Hashtable must a least be 1 MB in size";
       IllegalArgumentException e = new IllegalArgumentException(msg);
       LOG.error(msg, e);
       throw e;
     }
+    if (bucketSize < 1) {
+      final String msg = "Hashtable bucket size must a least be 1";
+      IllegalArgumentException e = new IllegalArgumentException(msg);
+      LOG.error(msg, e);
+      throw e;
+    }
+
+    this.bucketSize = bucketSize;
+    numberOfHitsPerSlot = new LongAdder[bucketSize];
+    numberOfCollisionsPerSlot = new LongAdder[bucketSize];
+    for (int i = 0; i < bucketSize; i++) {
+      numberOfHitsPerSlot[i] = new LongAdder();
+      numberOfCollisionsPerSlot[i] = new LongAdder();
+    }
 
     sizeInByte = (long) size * MB;
 
@@ -96,21 +196,35 @@ public class TranspositionTable {
       LOG.warn("{}", String.format(
         "Not enough memory for a %,dMB transposition cache - reducing to %,dMB", sizeInByte / MB,
         (ttMemory) / MB));
-      sizeInByte = (int) (ttMemory); // % of memory
+      sizeInByte = ttMemory; // % of memory
     }
 
-    // size in byte divided by entry size plus size for array bucket
-    maxNumberOfEntries = (int) (sizeInByte / (TT_Entry.SIZE + Integer.BYTES));
-
-    // create buckets for hash table
-    entries = new TT_Entry[maxNumberOfEntries];
-    // initialize to not create objects during usage
-    for (int i = 0; i < maxNumberOfEntries; i++) {
-      entries[i] = new TT_Entry();
+    // size in byte divided by entry size - array length must stay below Integer.MAX_VALUE
+    numberOfBuckets =
+      (int) Math.min(sizeInByte / ENTRY_SIZE, (Integer.MAX_VALUE - 8) / 2) / bucketSize;
+    maxNumberOfEntries = numberOfBuckets * bucketSize;
+
+    // create the primitive array for keys and data - no objects needed
+    // The array needs one contiguous memory block which the heap might not be able
+    // to provide (e.g. old generation too small). In this case reduce the size.
+    long[] tmpEntries = null;
+    while (tmpEntries == null) {
+      try {
+        tmpEntries = new long[2 * maxNumberOfEntries];
+      } catch (OutOfMemoryError e) {
+        numberOfBuckets /= 2;
+        maxNumberOfEntries = numberOfBuckets * bucketSize;
+        sizeInByte = (long) maxNumberOfEntries * ENTRY_SIZE;
+        LOG.warn("{}", String.format(
+          "Could not allocate transposition cache - reducing to %,dMB", sizeInByte / MB));
+      }
     }
+    entries = tmpEntries;
 
     LOG.info("{}", String.format("Transposition Table Size:    %,5d MB", sizeInByte / (KB * KB)));
     LOG.info("{}", String.format("Transposition Table Entries: %,d", maxNumberOfEntries));
+    LOG.info("{}", String.format("Transposition Table Buckets: %,d (%d entries per bucket)",
+                                 numberOfBuckets, bucketSize));
   }
 
   /**
@@ -141,150 +255,168 @@ public class TranspositionTable {
     assert type > 0;
     assert value > Evaluation.NOVALUE;
 
-    final TT_Entry ttEntry = entries[getHash(key)];
+    numberOfPuts.increment();
 
-    numberOfPuts++;
+    final int currentGeneration = generation;
+    final int bucketIndex = getBucketIndex(key);
+    int replaceIndex = bucketIndex;
+    int replaceValue = Integer.MAX_VALUE;
 
-    // New hash
-    if (ttEntry.key == 0) {
-      numberOfEntries++;
+    for (int index = bucketIndex; index < bucketIndex + 2 * bucketSize; index += 2) {
+      final long data = entries[index + 1];
 
-      ttEntry.key = key;
-      //ttEntry.fen = position.toFENString();
-      ttEntry.age = 1;
-      ttEntry.mateThreat = mateThreat;
-      ttEntry.value = value;
-      ttEntry.type = type;
-      ttEntry.depth = depth;
-      ttEntry.bestMove = bestMove;
-    }
-    // Same hash but different position
-    // overwrite if
-    // - the new entry's depth is higher or equal
-    // - the previous entry has not been used (is aged)
-    // @formatter:off
-    else if (key != ttEntry.key
-             && depth >= ttEntry.depth
-             && ttEntry.age > 0
-    ) { // @formatter:on
-      numberOfCollisions++;
-
-      ttEntry.key = key;
-      //ttEntry.fen = position.toFENString();
-      ttEntry.age = 1;
-      ttEntry.mateThreat = mateThreat;
-
-      ttEntry.value = value;
-      ttEntry.type = type;
-      ttEntry.depth = depth;
-      ttEntry.bestMove = bestMove;
+      // New hash - buckets are filled from the start so there are no
+      // entries after the first empty slot
+      if (data == 0) {
+        numberOfEntries.increment();
+        store(index, key,
+              createData(value, depth, type, mateThreat, currentGeneration, bestMove));
+        return;
+      }
+
+      // Same hash and same position -> update entry?
+      if ((entries[index] ^ data) == key) {
+        updateEntry(index, key, data, value, type, depth, bestMove, mateThreat,
+                    currentGeneration);
+        return;
+      }
+
+      // remember the least valuable entry in case the bucket is full
+      // shallow entries and entries which have not been used for a while
+      // are less valuable
+      final int entryValue = getDepth(data) - AGE_WEIGHT * getAge(data, currentGeneration);
+      if (entryValue < replaceValue) {
+        replaceValue = entryValue;
+        replaceIndex = index;
+      }
     }
-    // Same hash and same position -> update entry?
-    else if (key == ttEntry.key) {
-
-      // if from same depth only update when quality of new entry is better
-      // e.g. don't replace EXACT with ALPHA or BETA
-      if (depth == ttEntry.depth) {
-        numberOfUpdates++;
-
-        // ttEntry.fen = position.toFENString();
-        ttEntry.age = 1;
-        ttEntry.mateThreat = mateThreat;
-
-        // old was not EXACT - update
-        if (ttEntry.type != TT_EntryType.EXACT) {
-          ttEntry.value = value;
-          ttEntry.type = type;
-          ttEntry.depth = depth;
-        }
-        // old entry was exact, the new entry is also EXACT -> assert that they are identical
-        else assert type != TT_EntryType.EXACT || ttEntry.value == value;
-
-        // overwrite bestMove only with a valid move
-        if (bestMove != Move.NOMOVE) ttEntry.bestMove = bestMove;
+
+    // Bucket is full - replace the least valuable entry with the new position
+    numberOfCollisions.increment();
+    numberOfCollisionsPerSlot[(replaceIndex - bucketIndex) / 2].increment();
+    store(replaceIndex, key,
+          createData(value, depth, type, mateThreat, currentGeneration, bestMove));
+  }
+
+  /**
+   * Updates an existing entry for the same position.
+   */
+  private void updateEntry(final int index, final long key, long data, final short value,
+                           final byte type, final byte depth, final int bestMove,
+                           final boolean mateThreat, final int currentGeneration) {
+
+    // if from same depth only update when quality of new entry is better
+    // e.g. don't replace EXACT with ALPHA or BETA
+    if (depth == getDepth(data)) {
+      numberOfUpdates.increment();
+
+      // old was not EXACT - update
+      // old entry was exact - keep it. With Lazy SMP helper searches an EXACT entry
+      // from a different search path may have a slightly different value.
+      if (getType(data) != TT_EntryType.EXACT) {
+        data = createData(value, depth, type, mateThreat, currentGeneration, getBestMove(data));
+      }
+      else {
+        data = setGeneration(setMateThreat(data, mateThreat), currentGeneration);
       }
-      // if depth is greater then update in any case
-      else if (depth > ttEntry.depth) {
-        numberOfUpdates++;
-
-        // ttEntry.fen = position.toFENString();
-        ttEntry.age = 1;
-        ttEntry.mateThreat = mateThreat;
-        ttEntry.value = value;
-        ttEntry.type = type;
-        ttEntry.depth = depth;
-
-        // overwrite bestNive only with a valid move
-        if (bestMove != Move.NOMOVE) ttEntry.bestMove = bestMove;
-      } // overwrite bestMove if there wasn't any before
-      else if (ttEntry.bestMove == Move.NOMOVE) ttEntry.bestMove = bestMove;
+
+      // overwrite bestMove only with a valid move
+      if (bestMove != Move.NOMOVE) data = setBestMove(data, bestMove);
+      store(index, key, data);
+    }
+    // if depth is greater then update in any case
+    else if (depth > getDepth(data)) {
+      numberOfUpdates.increment();
+
+      // overwrite bestMove only with a valid move
+      final int newBestMove = bestMove != Move.NOMOVE ? bestMove : getBestMove(data);
+      store(index, key, createData(value, depth, type, mateThreat, currentGeneration, newBestMove));
+    }
+    // overwrite bestMove if there wasn't any before
+    else if (getBestMove(data) == Move.NOMOVE) {
+      store(index, key, setBestMove(data, bestMove));
     }
   }
 
   /**
-   * This retrieves the cached value of this node from cache if the
-   * cached value has been calculated at a depth equal or deeper as the
-   * depth value provided.
+   * Writes an entry with the xor'ed key so that torn entries can be detected when reading.
+   */
+  private void store(final int index, final long key, final long data) {
+    entries[index] = key ^ data;
+    entries[index + 1] = data;
+  }
+
+  /**
+   * This retrieves the cached entry data of this node from cache. The returned
+   * long can be decoded by the static getters of this class.
    *
    * @param key
-   * @return value for key or <tt>Integer.MIN_VALUE</tt> if not found
+   * @return data of the entry for key or <tt>NO_ENTRY</tt> if not found
    */
-  public TT_Entry get(final long key) {
-    numberOfProbes++;
-    final TT_Entry ttEntry = entries[getHash(key)];
-    if (ttEntry.key == key) { // hash hit
-      numberOfHits++;
-      // decrease age of entry until 0
-      ttEntry.age = (byte) Math.max(ttEntry.age - 1, 0);
-      return ttEntry;
+  public long get(final long key) {
+    numberOfProbes.increment();
+    final int currentGeneration = generation;
+    final int bucketIndex = getBucketIndex(key);
+    for (int index = bucketIndex; index < bucketIndex + 2 * bucketSize; index += 2) {
+      final long data = entries[index + 1];
+      // buckets are filled from the start - no more entries after an empty slot
+      if (data == 0) break;
+      if ((entries[index] ^ data) == key) { // hash hit
+        numberOfHits.increment();
+        numberOfHitsPerSlot[(index - bucketIndex) / 2].increment();
+        // refresh the generation of a used entry so it counts as current
+        if (getGeneration(data) == currentGeneration) return data;
+        final long newData = setGeneration(data, currentGeneration);
+        store(index, key, newData);
+        return newData;
+      }
     }
-    else numberOfMisses++;
+    numberOfMisses.increment();
     // cache miss or collision
-    return null;
+    return NO_ENTRY;
   }
 
   /**
-   * Clears all entry by resetting the to key=0 and
-   * value=Integer-MIN_VALUE
+   * Clears all entry by resetting the to key=0 and data=0
    */
   public void clear() {
     // tests show for() is about 60% slower than lambda parallel()
-    IntStream.range(0, entries.length).parallel().filter(i -> entries[i].key != 0).forEach(i -> {
-      entries[i].key = 0L;
-      //entries[i].fen = "";
-      entries[i].value = Evaluation.NOVALUE;
-      entries[i].depth = 0;
-      entries[i].type = TT_EntryType.NONE;
-      entries[i].bestMove = Move.NOMOVE;
-      entries[i].age = 0;
-      entries[i].mateThreat = false;
-    });
-    numberOfEntries = 0;
-    numberOfPuts = 0;
-    numberOfCollisions = 0;
-    numberOfUpdates = 0;
-    numberOfProbes = 0;
-    numberOfMisses = 0;
-    numberOfHits = 0;
+    IntStream.range(0, entries.length).parallel().forEach(i -> entries[i] = 0L);
+    numberOfEntries.reset();
+    numberOfPuts.reset();
+    numberOfCollisions.reset();
+    numberOfUpdates.reset();
+    numberOfProbes.reset();
+    numberOfMisses.reset();
+    numberOfHits.reset();
+    generation = 0;
+    for (int i = 0; i < bucketSize; i++) {
+      numberOfHitsPerSlot[i].reset();
+      numberOfCollisionsPerSlot[i].reset();
+    }
   }
 
   /**
-   * Mark all entries unused and clear for overwriting
+   * Ages all entries by one by starting a new generation. Entries from previous generations
+   * which have not been used in the current generation are replaced first.
+   * This is O(1) regardless of the size of the table.
    */
   public void ageEntries() {
-    // tests show for() is about 60% slower than lambda parallel()
-    IntStream.range(0, entries.length)
-             .parallel()
-             .filter(i -> entries[i].key != 0)
-             .forEach(
-               i -> entries[i].age = (byte) Math.min(entries[i].age + 1, Byte.MAX_VALUE - 1));
+    generation = (generation + 1) & MAX_GENERATION;
+  }
+
+  /**
+   * @return the current generation of the table
+   */
+  public int getGeneration() {
+    return generation;
   }
 
   /**
    * @return the numberOfEntries
    */
   public int getNumberOfEntries() {
-    return this.numberOfEntries;
+    return numberOfEntries.intValue();
   }
 
   /**
@@ -305,44 +437,73 @@ public class TranspositionTable {
    * @return the numberOfCollisions
    */
   public long getNumberOfCollisions() {
-    return numberOfCollisions;
+    return numberOfCollisions.sum();
   }
 
   /**
    * @return number of entry updates of same position but deeper search
    */
   public long getNumberOfUpdates() {
-    return numberOfUpdates;
+    return numberOfUpdates.sum();
   }
 
   /**
    * @return number of queries
    */
   public long getNumberOfProbes() {
-    return numberOfProbes;
+    return numberOfProbes.sum();
   }
 
   /**
    * @return number of hits when queried
    */
   public long getNumberOfHits() {
-    return numberOfHits;
+    return numberOfHits.sum();
   }
 
   /**
    * @return number of misses when queried
    */
   public long getNumberOfMisses() {
-    return numberOfMisses;
+    return numberOfMisses.sum();
+  }
+
+  /**
+   * @return number of entries per bucket
+   */
+  public int getBucketSize() {
+    return bucketSize;
+  }
+
+  /**
+   * @return number of hits counted by the slot of the entry in its bucket
+   */
+  public long[] getNumberOfHitsPerSlot() {
+    return Arrays.stream(numberOfHitsPerSlot).mapToLong(LongAdder::sum).toArray();
+  }
+
+  /**
+   * @return number of replacements in full buckets counted by the slot of the replaced entry
+   */
+  public long[] getNumberOfCollisionsPerSlot() {
+    return Arrays.stream(numberOfCollisionsPerSlot).mapToLong(LongAdder::sum).toArray();
   }
 
   @Override
   public String toString() {
+    final long numberOfEntries = this.numberOfEntries.sum();
+    final long numberOfPuts = this.numberOfPuts.sum();
+    final long numberOfCollisions = this.numberOfCollisions.sum();
+    final long numberOfUpdates = this.numberOfUpdates.sum();
+    final long numberOfProbes = this.numberOfProbes.sum();
+    final long numberOfHits = this.numberOfHits.sum();
+    final long numberOfMisses = this.numberOfMisses.sum();
     return String.format("TranspositionTable'{'" + "Size: %,d MB, max entries: %,d "
                          + "numberOfEntries: %,d (%,.1f%%), " + "numberOfPuts: %,d, "
                          + "numberOfCollisions: %,d (%,.1f%%), "
                          + "numberOfUpdates: %,d (%,.1f%%), " + "numberOfProbes: %,d, "
-                         + "numberOfHits: %,d (%,.1f%%), numberOfMisses: %,d (%,.1f%%)" + "'}'",
+                         + "numberOfHits: %,d (%,.1f%%), numberOfMisses: %,d (%,.1f%%), "
+                         + "bucketSize: %d, hitsPerSlot: %s, collisionsPerSlot: %s" + "'}'",
                          sizeInByte / MB, maxNumberOfEntries, numberOfEntries,
                          maxNumberOfEntries == 0
                          ? 0
@@ -355,47 +516,104 @@ public class TranspositionTable {
                          numberOfHits == 0 ? 0 : 100 * ((double) numberOfHits / numberOfProbes),
                          numberOfMisses, numberOfMisses == 0
                                          ? 0
-                                         : 100 * ((double) numberOfMisses / numberOfProbes));
+                                         : 100 * ((double) numberOfMisses / numberOfProbes),
+                         bucketSize, Arrays.toString(getNumberOfHitsPerSlot()),
+                         Arrays.toString(getNumberOfCollisionsPerSlot()));
   }
 
   /**
    * @param key
-   * @return returns a hash key
+   * @return returns the index of the key long of the bucket's first entry in the entries array
    */
-  private int getHash(long key) {
-    return (int) (key % maxNumberOfEntries);
+  private int getBucketIndex(long key) {
+    return 2 * bucketSize * (int) ((key & Long.MAX_VALUE) % numberOfBuckets);
   }
 
-  // @formatter:off
   /**
-   * Entry for transposition table.
-   * <pre>
-   * fko.FrankyEngine.Franky.TranspositionTable$TT_Entry object internals:
-   * OFFSET  SIZE      TYPE DESCRIPTION                               VALUE
-   *      0    12           (object header)                           N/A
-   *     12     4       int TT_Entry.bestMove                         N/A
-   *     16     8      long TT_Entry.key                              N/A
-   *     24     2     short TT_Entry.value                            N/A
-   *     26     1      byte TT_Entry.depth                            N/A
-   *     27     1      byte TT_Entry.type                             N/A
-   *     28     1   boolean TT_Entry.age                              N/A
-   *     29     3           (loss due to the next object alignment)
-   * Instance size: 32 bytes
-   * </pre>
+   * Packs the entry values into one data long.
    */
-  // @formatter:on
-  public static final class TT_Entry {
-
-    static final int SIZE = 32;
-
-    long    key        = 0L;
-    byte    age        = 0;
-    boolean mateThreat = false;
-    short   value      = Evaluation.NOVALUE;
-    byte    depth      = 0;
-    byte    type       = TT_EntryType.NONE;
-    int     bestMove   = Move.NOMOVE;
-    //String fen = "";
+  private static long createData(short value, byte depth, byte type, boolean mateThreat,
+                                 int generation,
+                                 int bestMove) {
+    long data = 0L;
+    data |= ((long) value << VALUE_SHIFT) & VALUE_MASK;
+    data |= ((long) depth << DEPTH_SHIFT) & DEPTH_MASK;
+    data |= ((long) type << TYPE_SHIFT) & TYPE_MASK;
+    data |= mateThreat ? MATETHREAT_MASK : 0L;
+    data |= ((long) generation << GENERATION_SHIFT) & GENERATION_MASK;
+    data = setBestMove(data, bestMove);
+    return data;
+  }
+
+  private static long setBestMove(long data, int bestMove) {
+    final long move = bestMove == Move.NOMOVE ? 0L : bestMove;
+    return (data & ~MOVE_MASK) | ((move << MOVE_SHIFT) & MOVE_MASK);
+  }
+
+  private static long setMateThreat(long data, boolean mateThreat) {
+    return mateThreat ? data | MATETHREAT_MASK : data & ~MATETHREAT_MASK;
+  }
+
+  private static long setGeneration(long data, int generation) {
+    return (data & ~GENERATION_MASK) | (((long) generation << GENERATION_SHIFT) & GENERATION_MASK);
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return value of the entry
+   */
+  public static short getValue(long data) {
+    return (short) ((data & VALUE_MASK) >>> VALUE_SHIFT);
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return depth of the entry
+   */
+  public static byte getDepth(long data) {
+    return (byte) ((data & DEPTH_MASK) >>> DEPTH_SHIFT);
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return type of the entry (TT_EntryType)
+   */
+  public static byte getType(long data) {
+    return (byte) ((data & TYPE_MASK) >>> TYPE_SHIFT);
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return true if the entry has a mate threat
+   */
+  public static boolean hasMateThreat(long data) {
+    return (data & MATETHREAT_MASK) != 0;
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return best move of the entry or Move.NOMOVE
+   */
+  public static int getBestMove(long data) {
+    final int move = (int) ((data & MOVE_MASK) >>> MOVE_SHIFT);
+    return move == 0 ? Move.NOMOVE : move;
+  }
+
+  /**
+   * @param data entry data returned by <code>get()</code>
+   * @return generation the entry has been written or last used in
+   */
+  static int getGeneration(long data) {
+    return (int) ((data & GENERATION_MASK) >>> GENERATION_SHIFT);
+  }
+
+  /**
+   * @param data              entry data
+   * @param currentGeneration
+   * @return number of generations since the entry has been written or last used
+   */
+  private static int getAge(long data, int currentGeneration) {
+    return (currentGeneration - getGeneration(data)) & MAX_GENERATION;
   }
 
   /**
@@ -56,7 +56,8 @@ public class OpeningBookImpl implements OpeningBook, Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(OpeningBookImpl.class);
 
-  private static final long serialVersionUID   = 4938373551716723214L;
+  // change when the format of the cached book changes (e.g. the encoding of the moves)
+  private static final long serialVersionUID   = 4938373551716723215L;
 
   /* Standard Board Setup as FEN */
   public static final  String STANDARD_BOARD_FEN =
@@ -538,15 +539,19 @@ public class OpeningBookImpl implements OpeningBook, Serializable {
     // read from cache file and return if not configured otherwise
     if (cacheFile.toFile().exists()) {
       if (!_config.FORCE_CREATE) {
+        final Mode mode = _config._mode;
         _config._mode = Mode.SER;
         try {
           openingBookInputStream = Files.newInputStream(cacheFile);
-          readBookfromSERFile(openingBookInputStream);
-          return true;
+          if (readBookfromSERFile(openingBookInputStream)) return true;
+          // cache file of an older version or corrupted - recreate it from the book file
+          LOG.warn("While reading book cache file: File {} is not valid. Recreating it.",
+                   cacheFile.toString());
         } catch (IOException e) {
           LOG.error("While reading book cache file: File {} could not read.",
                                   cacheFolder.toString());
         }
+        _config._mode = mode;
       } else {
         if (_config.VERBOSE) {
           LOG.info("Cache file exists but ignored as FORCE_CREATE is set.");
@@ -679,7 +684,9 @@ public class OpeningBookImpl implements OpeningBook, Serializable {
   private static class OpeningBook_Entry implements Comparable<OpeningBook_Entry>,
                                                     Comparator<OpeningBook_Entry>, Serializable {
 
-    private static final long serialVersionUID = 1573629955690947725L;
+    // change when the format of the cached book changes (e.g. the encoding of the moves) so that
+    // cache files of an older version are not read but recreated from the book file
+    private static final long serialVersionUID = 1573629955690947726L;
 
     // as fen notation
     String             position;
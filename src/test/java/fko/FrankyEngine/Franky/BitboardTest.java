@@ -28,6 +28,9 @@ package fko.FrankyEngine.Franky;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class BitboardTest {
 
@@ -94,4 +97,45 @@ class BitboardTest {
 
   }
 
+  @Test
+  void magicAttacksTest() {
+    // empty board
+    assertEquals(Square.File.a.bitBoard ^ Square.a1.bitBoard | Square.Rank.r1.bitBoard
+                 ^ Square.a1.bitBoard, Bitboard.getRookAttacks(Square.a1.index64, 0L));
+    assertEquals(Bitboard.a1UpDiag ^ Square.a1.bitBoard,
+                 Bitboard.getBishopAttacks(Square.a1.index64, 0L));
+
+    // blocked rook on e4 by pieces on e6 and c4
+    final long occupied = Square.e6.bitBoard | Square.c4.bitBoard | Square.e4.bitBoard;
+    final long expected = Square.e5.bitBoard | Square.e6.bitBoard | Square.d4.bitBoard
+                          | Square.c4.bitBoard | Square.f4.bitBoard | Square.g4.bitBoard
+                          | Square.h4.bitBoard | Square.e3.bitBoard | Square.e2.bitBoard
+                          | Square.e1.bitBoard;
+    assertEquals(expected, Bitboard.getRookAttacks(Square.e4.index64, occupied));
+
+    // compare against ray walking with random occupancies
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      final long occ = random.nextLong() & random.nextLong();
+      for (int sq = 0; sq < 64; sq++) {
+        assertEquals(Bitboard.slidingAttacks(sq, occ, true), Bitboard.getRookAttacks(sq, occ));
+        assertEquals(Bitboard.slidingAttacks(sq, occ, false),
+                     Bitboard.getBishopAttacks(sq, occ));
+      }
+    }
+  }
+
+  @Test
+  void nonSlidingAttacksTest() {
+    assertEquals(Square.b3.bitBoard | Square.c2.bitBoard,
+                 Bitboard.getKnightAttacks(Square.a1.index64));
+    assertEquals(8, Long.bitCount(Bitboard.getKnightAttacks(Square.e4.index64)));
+    assertEquals(Square.g1.bitBoard | Square.g2.bitBoard | Square.h2.bitBoard,
+                 Bitboard.getKingAttacks(Square.h1.index64));
+    assertEquals(Square.d5.bitBoard | Square.f5.bitBoard,
+                 Bitboard.getPawnAttacks(Color.WHITE, Square.e4.index64));
+    assertEquals(Square.b3.bitBoard, Bitboard.getPawnAttacks(Color.BLACK, Square.a4.index64));
+    assertEquals(0L, Bitboard.getPawnAttacks(Color.WHITE, Square.h8.index64));
+  }
+
 }
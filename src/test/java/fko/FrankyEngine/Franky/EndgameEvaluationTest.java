@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EndgameEvaluationTest
+ */
+public class EndgameEvaluationTest {
+
+  private final Evaluation evaluation = new Evaluation();
+
+  @Test
+  public void kpk() {
+    // weak king can't catch the pawn
+    Position position = new Position("8/8/8/8/8/8/k5P1/7K w - - 0 1");
+    final int win = EndgameEvaluation.evaluate(Endgame.KPK, position, Color.WHITE);
+    assertEquals(PieceType.ROOK.getValue() + 40, win);
+    assertEquals(win, evaluation.evaluate(position));
+
+    // weak king to move catches the pawn - not recognized
+    position = new Position("8/8/8/8/8/8/k5P1/7K b - - 0 1");
+    assertEquals(Evaluation.NOVALUE, EndgameEvaluation.evaluate(Endgame.KPK, position,
+                                                                Color.WHITE));
+
+    // mirrored for black - value from the view of the next player
+    position = new Position("7k/K5p1/8/8/8/8/8/8 b - - 0 1");
+    assertEquals(win, evaluation.evaluate(position));
+
+    // rook pawn with the weak king in front is a draw
+    position = new Position("k7/8/8/8/8/8/P7/7K w - - 0 1");
+    assertEquals(Evaluation.DRAW, evaluation.evaluate(position));
+  }
+
+  @Test
+  public void kbnk() {
+    // dark squared bishop - a1 is the right corner, h1 the wrong one
+    Position position = new Position("8/8/8/8/8/3NK3/8/k1B5 w - - 0 1");
+    final int rightCorner = EndgameEvaluation.evaluate(Endgame.KBNK, position, Color.WHITE);
+    position = new Position("8/8/8/8/8/3NK3/8/2B4k w - - 0 1");
+    final int wrongCorner = EndgameEvaluation.evaluate(Endgame.KBNK, position, Color.WHITE);
+    assertTrue(rightCorner > wrongCorner);
+    assertEquals(-wrongCorner, evaluation.evaluate(new Position(
+      "8/8/8/8/8/3NK3/8/2B4k b - - 0 1")));
+  }
+
+  @Test
+  public void krkp() {
+    // strong king in front of the pawn
+    Position position = new Position("8/8/8/7k/4p3/8/4K3/R7 w - - 0 1");
+    assertEquals(PieceType.ROOK.getValue() - 2, evaluation.evaluate(position));
+
+    // pawn far advanced and supported by its king - strong king far away
+    position = new Position("7R/K7/8/8/8/8/3kp3/8 w - - 0 1");
+    assertEquals(80 - 8 * 5, evaluation.evaluate(position));
+  }
+
+  @Test
+  public void kqkr() {
+    Position position = new Position("8/8/8/3k4/8/8/3r4/Q3K3 w - - 0 1");
+    final int center = evaluation.evaluate(position);
+    assertTrue(center >= PieceType.QUEEN.getValue() - PieceType.ROOK.getValue());
+    position = new Position("k7/8/8/8/8/8/3r4/Q3K3 w - - 0 1");
+    assertTrue(evaluation.evaluate(position) > center);
+  }
+
+  @Test
+  public void distance() {
+    assertEquals(0, EndgameEvaluation.distance(Square.e4.index64, Square.e4.index64));
+    assertEquals(7, EndgameEvaluation.distance(Square.a1.index64, Square.h8.index64));
+    assertEquals(3, EndgameEvaluation.distance(Square.b2.index64, Square.c5.index64));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * EvaluationCacheTest
+ */
+public class EvaluationCacheTest {
+
+  @Test
+  public void testPutGet() {
+    EvaluationCache cache = new EvaluationCache(1);
+    assertEquals(1024 * 1024 / Long.BYTES, cache.getMaxEntries());
+
+    Position position = new Position();
+    final long key = position.getZobristKey();
+    assertEquals(Evaluation.NOVALUE, cache.get(key));
+
+    cache.put(key, 123);
+    assertEquals(123, cache.get(key));
+    cache.put(key, -456);
+    assertEquals(-456, cache.get(key));
+
+    // same index but different key
+    final long otherKey = key ^ (1L << 40);
+    assertEquals(Evaluation.NOVALUE, cache.get(otherKey));
+    cache.put(otherKey, 789);
+    assertEquals(789, cache.get(otherKey));
+    assertEquals(Evaluation.NOVALUE, cache.get(key));
+
+    cache.clear();
+    assertEquals(Evaluation.NOVALUE, cache.get(otherKey));
+  }
+
+  @Test
+  public void testSearchEvaluation() {
+    Position position = new Position("r3k2r/1ppn3p/2q1q1n1/4P3/2q1Pp2/B5R1/pbp2PPP/1R4K1 b kq e3");
+    final int value = new Evaluation().evaluate(position);
+    EvaluationCache cache = new EvaluationCache(1);
+    cache.put(position.getZobristKey(), value);
+    assertEquals(value, cache.get(position.getZobristKey()));
+  }
+}
@@ -36,6 +36,8 @@ import java.time.Duration;
 import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Attempt at a proper Unit Test for Evaluation
@@ -75,6 +77,35 @@ public class EvaluationTest {
 
   }
 
+  @Test
+  void lazyEvaluate() {
+    // white is a queen up
+    position = new Position("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+    final int full = evaluation.evaluate(position);
+    assertFalse(evaluation.wasLazy());
+
+    // window contains the value - full evaluation
+    int value = evaluation.evaluate(position, full - 50, full + 50, 300);
+    assertFalse(evaluation.wasLazy());
+    assertEquals(full, value);
+
+    // value far above beta - lazy evaluation
+    value = evaluation.evaluate(position, -100, 100, 300);
+    assertTrue(evaluation.wasLazy());
+    assertTrue(value > 400);
+    assertTrue(Math.abs(full - value) < 300);
+
+    // value far below alpha from black's view - lazy evaluation
+    position = new Position("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1");
+    value = evaluation.evaluate(position, -100, 100, 300);
+    assertTrue(evaluation.wasLazy());
+    assertTrue(value < -400);
+
+    // full evaluation resets the flag
+    evaluation.evaluate(position);
+    assertFalse(evaluation.wasLazy());
+  }
+
   @Test
   void material() {
     // Start position
@@ -109,7 +140,7 @@ public class EvaluationTest {
     position = new Position(fen);
     value = evaluation.mobility(position);
     //System.out.println(value);
-    assertEquals(52, value);
+    assertEquals(30, value);
 
     fen = "k6n/7p/6P1/7K/8/8/8/8 w - - 0 1"; // white
     position = new Position(fen);
@@ -124,6 +155,51 @@ public class EvaluationTest {
     assertEquals(-4, value);
   }
 
+  @Test
+  void scaleFactors() {
+    // rook against bishop without pawns is a draw in most cases
+    position = new Position("4k3/8/8/3b4/8/8/8/R3K3 w - - 0 1");
+    assertTrue(evaluation.evaluate(position) < 60);
+
+    // a knight can't win against pawns
+    position = new Position("4k3/4p3/8/8/8/8/8/1N2K3 w - - 0 1");
+    assertTrue(evaluation.evaluate(position) < 100);
+
+    // bishops on opposite colors are drawish
+    position = new Position("2b1k3/pp6/8/8/8/8/PPP5/2B1K3 w - - 0 1");
+    final int oppositeBishops = evaluation.evaluate(position);
+    position = new Position("4kb2/pp6/8/8/8/8/PPP5/2B1K3 w - - 0 1");
+    final int sameBishops = evaluation.evaluate(position);
+    assertTrue(oppositeBishops < sameBishops);
+  }
+
+  @Test
+  void threats() {
+    final int byPawn = EvaluationConfig.THREAT_BY_PAWN;
+    final int byMinor = EvaluationConfig.THREAT_BY_MINOR;
+    final int hanging = EvaluationConfig.HANGING_PIECE;
+
+    // Start position
+    position = new Position();
+    assertEquals(0, evaluation.threats(position));
+
+    // knight attacked by a pawn and not defended
+    position = new Position("4k3/8/8/3n4/4P3/8/8/4K3 w - - 0 1");
+    final int phase = position.getGamePhaseValue();
+    assertEquals(Score.taper(byPawn + hanging, phase), evaluation.threats(position));
+    position = new Position("4k3/8/8/3n4/4P3/8/8/4K3 b - - 0 1");
+    assertEquals(Score.taper(-byPawn - hanging, phase), evaluation.threats(position));
+
+    // defended knight is not hanging
+    position = new Position("4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1");
+    assertEquals(Score.taper(byPawn, phase), evaluation.threats(position));
+
+    // rook attacked by a bishop and defended by the king
+    position = new Position("8/8/8/8/8/4k3/3r4/2B1K3 w - - 0 1");
+    assertEquals(Score.taper(byMinor, position.getGamePhaseValue()),
+                 evaluation.threats(position));
+  }
+
   @Test
   void position() {
     int value;
@@ -154,6 +230,91 @@ public class EvaluationTest {
 
   }
 
+  @Test
+  void pawnStructure() {
+    // Start Position
+    position = new Position();
+    assertEquals(0, evaluation.pawnStructure(position));
+
+    // doubled isolated pawns - a3 is passed with a free stop square (end game values only)
+    position = new Position("4k3/8/8/8/8/P7/P7/4K3 w - - 0 1");
+    assertEquals(-20 - 15 - 15 + 15 + 5, evaluation.pawnStructure(position));
+    position = new Position("4k3/8/8/8/8/P7/P7/4K3 b - - 0 1");
+    assertEquals(20 + 15 + 15 - 15 - 5, evaluation.pawnStructure(position));
+
+    // blocked passed pawn gets no free passed pawn bonus
+    position = new Position("4k3/8/8/n7/P7/8/8/4K3 w - - 0 1");
+    final int blocked = evaluation.pawnStructure(position);
+    position = new Position("4k3/8/n7/8/P7/8/8/4K3 w - - 0 1");
+    assertTrue(evaluation.pawnStructure(position) > blocked);
+
+    // backward pawn d2 - stop square attacked by the pawn on e4 and no pawn on c2 or e2
+    // (no pieces - end game values only)
+    position = new Position("4k3/8/8/8/4p3/2P5/3P4/4K3 w - - 0 1");
+    final int backward = evaluation.pawnStructure(position);
+    position = new Position("4k3/8/8/4p3/8/2P5/3P4/4K3 w - - 0 1");
+    assertEquals(backward - Score.endGame(EvaluationConfig.PAWN_BACKWARD),
+                 evaluation.pawnStructure(position));
+
+    // mirrored positions are equal
+    position = new Position("4k3/p1p5/1p6/8/3P4/8/PP4PP/4K3 w - - 0 1");
+    final int value1 = evaluation.pawnStructure(position);
+    position = new Position("4k3/pp4pp/8/3p4/8/1P6/P1P5/4K3 b - - 0 1");
+    assertEquals(value1, evaluation.pawnStructure(position));
+
+    // same pawn structure is found in the pawn hash table
+    final long hits = evaluation.getPawnHashTable().getNumberOfHits();
+    position = new Position("4k3/pp4pp/8/3p4/8/1P6/P1P5/3K4 w - - 0 1");
+    evaluation.pawnStructure(position);
+    assertEquals(hits + 1, evaluation.getPawnHashTable().getNumberOfHits());
+  }
+
+  @Test
+  public void testSEE() {
+    // undefended pawn
+    position = new Position("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - -");
+    int move = Move.fromUCINotation(position, "e1e5");
+    assertEquals(100, Evaluation.see(position, move));
+    assertTrue(Evaluation.seeGE(position, move, 0));
+
+    // exchange sequence with x-ray attackers behind
+    position = new Position("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - -");
+    move = Move.fromUCINotation(position, "d3e5");
+    assertEquals(100 - 320, Evaluation.see(position, move));
+    assertFalse(Evaluation.seeGE(position, move, 0));
+
+    // queen captures pawn defended by pawn
+    position = new Position("4k3/8/2p5/3p4/8/8/3Q4/4K3 w - -");
+    move = Move.fromUCINotation(position, "d2d5");
+    assertEquals(100 - 900, Evaluation.see(position, move));
+    assertFalse(Evaluation.seeGE(position, move, -799));
+    assertTrue(Evaluation.seeGE(position, move, -800));
+
+    // en passant
+    position = new Position("4k3/8/8/3pP3/8/8/8/4K3 w - d6");
+    move = Move.fromUCINotation(position, "e5d6");
+    assertEquals(100, Evaluation.see(position, move));
+
+    // king can only recapture if the square is not defended anymore
+    position = new Position("3rk3/8/8/8/4p3/3p4/4K3/3R4 w - -");
+    move = Move.fromUCINotation(position, "d1d3");
+    assertEquals(100 - 500, Evaluation.see(position, move));
+    position = new Position("4k3/8/8/8/4p3/3p4/4K3/3R4 w - -");
+    move = Move.fromUCINotation(position, "d1d3");
+    assertEquals(100 - 500 + 100, Evaluation.see(position, move));
+
+    // a reused swap list buffer gives the same results
+    final int[] gain = new int[Evaluation.SEE_GAIN_SIZE];
+    position = new Position("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - -");
+    move = Move.fromUCINotation(position, "d3e5");
+    assertEquals(100 - 320, Evaluation.see(position, move, gain));
+    assertFalse(Evaluation.seeGE(position, move, 0, gain));
+    position = new Position("4k3/8/8/8/4p3/3p4/4K3/3R4 w - -");
+    move = Move.fromUCINotation(position, "d1d3");
+    assertEquals(100 - 500 + 100, Evaluation.see(position, move, gain));
+    assertTrue(Evaluation.seeGE(position, move, -300, gain));
+  }
+
   @Test
   public final void testNeutralPosition() {
     position = new Position("7k/7p/8/8/8/8/P7/K7 w - - 0 1");
@@ -176,17 +337,17 @@ public class EvaluationTest {
   public final void testCheckPosition() {
     // no in check
     position = new Position("r6k/6R1/p4p1p/2p2P1P/1pq1PN2/6P1/1PP5/2KR4 w - - 0 1");
-    assertEquals(191, evaluation.evaluate(position));
+    assertEquals(184, evaluation.evaluate(position));
     LOG.info(evaluation.toString());
 
     // white gives check to black
     position = new Position("r2R3k/6R1/p4p1p/2p2P1P/1pq1PN2/6P1/1PP5/2K5 b - - 0 1");
-    assertEquals(-234, evaluation.evaluate(position));
+    assertEquals(-228, evaluation.evaluate(position));
     LOG.info(evaluation.toString());
 
     // black gives check to white
     position = new Position("r6k/6R1/p4p1p/2p2P1P/1p1qPN2/6P1/1PPK4/3R4 w - - 0 2");
-    assertEquals(135, evaluation.evaluate(position));
+    assertEquals(104, evaluation.evaluate(position));
     LOG.info(evaluation.toString());
   }
 
@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * MaterialHashTableTest
+ */
+public class MaterialHashTableTest {
+
+  @Test
+  public void testPutFind() {
+    MaterialHashTable table = new MaterialHashTable(1);
+    assertEquals(1024 * 1024 / MaterialHashTable.ENTRY_SIZE, table.getMaxEntries());
+
+    final long key = new Position("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1").getMaterialKey();
+    assertEquals(-1, table.find(key));
+    assertEquals(1, table.getNumberOfMisses());
+
+    table.put(key, MaterialHashTable.SCALE_NORMAL, MaterialHashTable.SCALE_DRAW, Endgame.KPK,
+              Color.WHITE);
+    int index = table.find(key);
+    assertEquals(1, table.getNumberOfHits());
+    assertEquals(MaterialHashTable.SCALE_NORMAL, table.getScaleFactor(index, Color.WHITE));
+    assertEquals(MaterialHashTable.SCALE_DRAW, table.getScaleFactor(index, Color.BLACK));
+    assertEquals(Endgame.KPK, table.getEndgame(index));
+    assertEquals(Color.WHITE, table.getStrongSide(index));
+
+    final long otherKey = new Position("4k3/4p3/8/8/8/8/8/4K3 w - - 0 1").getMaterialKey();
+    index = table.put(otherKey, 14, 48, Endgame.OPPOSITE_BISHOPS, Color.BLACK);
+    assertEquals(index, table.find(otherKey));
+    assertEquals(14, table.getScaleFactor(index, Color.WHITE));
+    assertEquals(48, table.getScaleFactor(index, Color.BLACK));
+    assertEquals(Endgame.OPPOSITE_BISHOPS, table.getEndgame(index));
+    assertEquals(Color.BLACK, table.getStrongSide(index));
+
+    table.clear();
+    assertEquals(-1, table.find(key));
+    assertEquals(-1, table.find(otherKey));
+  }
+}
@@ -184,7 +184,8 @@ public class MoveGeneratorTest {
 
     assertEquals(49, pseudo_moves.size());
     assertEquals(48, legal_moves.size());
-    assertEquals(1, qsearch_moves.size());
+    // all captures except Bg6xf5 which loses material (SEE < 0)
+    assertEquals(3, qsearch_moves.size());
 
     for (int plMove : pseudo_moves) {
       boolean found = false;
@@ -233,6 +234,55 @@ public class MoveGeneratorTest {
 
   }
 
+  /**
+   * Tests legal move generation with pins and checks against making each pseudo legal move
+   */
+  @Test
+  public void testLegalMovesPinsAndChecks() {
+    String[] fens = {
+      // pinned bishop and knight, rook pinned on file
+      "4k3/8/4r3/8/8/2b1R3/3N4/4K3 w - - 0 1",
+      // single check by knight and by rook - capture or block
+      "4k3/8/8/8/8/3n4/8/R3K2R w KQ - 0 1", "4k3/4r3/8/8/8/8/3B4/R3K2N w Q - 0 1",
+      // double check - only king moves
+      "4k3/8/8/8/1b6/8/3n4/R3K2R w KQ - 0 1",
+      // en passant capture would reveal a check on the rank
+      "8/8/8/K2pP2r/8/8/8/7k w - d6 0 1",
+      // kiwipete
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"};
+
+    for (String fen : fens) {
+      Position position = new Position(fen);
+      MoveGenerator moveGenerator = new MoveGenerator(position);
+
+      // expected by making every pseudo legal move
+      MoveList expected = new MoveList();
+      for (int move : moveGenerator.getPseudoLegalMoves().clone()) {
+        position.makeMove(move);
+        if (!position.isAttacked(position.getNextPlayer(),
+                                 position.getKingSquares()[position.getOpponent().ordinal()])) {
+          expected.add(move);
+        }
+        position.undoMove();
+      }
+
+      moveGenerator.setPosition(position);
+      MoveList onDemand = new MoveList();
+      int move;
+      while ((move = moveGenerator.getNextLegalMove(false)) != Move.NOMOVE) onDemand.add(move);
+
+      moveGenerator.setPosition(position);
+      MoveList legal = moveGenerator.getLegalMoves();
+
+      assertEquals(expected.size(), onDemand.size(), fen);
+      assertEquals(expected.size(), legal.size(), fen);
+      for (int m : expected) {
+        assertTrue(onDemand.contains(m), fen + " " + Move.toString(m));
+        assertTrue(legal.contains(m), fen + " " + Move.toString(m));
+      }
+    }
+  }
+
   /**
    * Tests the generated moves from board setup with killer moves sorting
    */
@@ -317,8 +367,8 @@ public class MoveGeneratorTest {
     MoveGenerator moveGenerator = new MoveGenerator();
     moveGenerator.SORT_MOVES = true;
 
-    final int killer1 = 67320564;
-    final int killer2 = 67318516;
+    final int killer1 = 67353332;
+    final int killer2 = 67351284;
 
     final MoveList killerList = new MoveList();
     killerList.add(killer1);
@@ -327,13 +377,13 @@ public class MoveGeneratorTest {
     // direct list
     moveGenerator.setPosition(position);
     moveGenerator.setKillerMoves(killerList);
-    moveGenerator.setPVMove(67248483);
+    moveGenerator.setPVMove(67281251);
     MoveList movesDirect = moveGenerator.getPseudoLegalMoves().clone();
 
     // OD list
     moveGenerator.setPosition(position);
     moveGenerator.setKillerMoves(killerList);
-    moveGenerator.setPVMove(67248483);
+    moveGenerator.setPVMove(67281251);
     MoveList movesOD = new MoveList();
     int tmp;
     while ((tmp = moveGenerator.getNextPseudoLegalMove(false)) != Move.NOMOVE) {
@@ -428,6 +478,71 @@ public class MoveGeneratorTest {
     }
   }
 
+  /**
+   * Tests the stage order of the on demand generation: good captures, quiet moves, bad captures
+   */
+  @Test
+  public void testStagedOnDemand() {
+    MoveGenerator moveGenerator = new MoveGenerator();
+    for (String fen : getFENs()) {
+      Position position = new Position(fen);
+      moveGenerator.setPosition(position);
+      MoveList all = moveGenerator.getPseudoLegalMoves().clone();
+
+      moveGenerator.setPosition(position);
+      MoveList movesOD = new MoveList();
+      boolean quietSeen = false;
+      int move;
+      while ((move = moveGenerator.getNextPseudoLegalMove(false)) != Move.NOMOVE) {
+        movesOD.add(move);
+        if (!Move.isCapturing(move)) quietSeen = true;
+        else if (quietSeen) {
+          // captures after quiet moves must be losing captures
+          assertTrue(Evaluation.see(position, move) < 0, Move.toString(move));
+        }
+      }
+      assertEquals(all.size(), movesOD.size(), fen);
+      for (int m : all) assertTrue(movesOD.contains(m), fen);
+    }
+  }
+
+  /**
+   * Tests isPseudoLegal against the move generation by checking all generated moves of all test
+   * positions in every test position.
+   */
+  @Test
+  public void testIsPseudoLegal() {
+    MoveGenerator moveGenerator = new MoveGenerator();
+    ArrayList<String> fens = getFENs();
+    fens.add(Position.STANDARD_BOARD_FEN);
+    fens.add("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+    fens.add("r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1");
+    fens.add("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+    fens.add("8/8/8/3pP3/8/8/8/4K2k w - d6 0 1");
+    fens.add("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1");
+
+    // pool of moves from all positions
+    MoveList pool = new MoveList();
+    for (String fen : fens) {
+      moveGenerator.setPosition(new Position(fen));
+      for (int move : moveGenerator.getPseudoLegalMoves()) {
+        if (!pool.contains(move)) pool.add(move);
+      }
+    }
+
+    for (String fen : fens) {
+      Position position = new Position(fen);
+      moveGenerator.setPosition(position);
+      MoveList moves = moveGenerator.getPseudoLegalMoves().clone();
+      for (int move : pool) {
+        assertEquals(moves.contains(move), MoveGenerator.isPseudoLegal(position, move),
+                     fen + " " + Move.toString(move));
+      }
+      assertFalse(MoveGenerator.isPseudoLegal(position, Move.NOMOVE));
+      assertFalse(MoveGenerator.isPseudoLegal(position, 0));
+    }
+  }
+
   @Test
   public void testMoveSortingCaptures() {
 
@@ -478,9 +593,9 @@ public class MoveGeneratorTest {
     Position position = new Position("r3k2r/1ppn3p/2q1q1n1/4P3/2q1Pp2/B5R1/pbp2PPP/1R4K1 b kq e3");
     MoveGenerator moveGenerator = new MoveGenerator(position);
 
-    int killer1 = 67320564;
-    int killer2 = 67318516;
-    int pvMove = 67248483;
+    int killer1 = 67353332;
+    int killer2 = 67351284;
+    int pvMove = 67281251;
 
     final MoveList killerList = new MoveList();
     killerList.add(killer1);
@@ -516,7 +631,7 @@ public class MoveGeneratorTest {
       }
       // now we should have our two killers
       assertTrue(i == lastCapture + 1 && movesOD.get(i) == killer1 && movesOD.get(i + 1) == killer2
-                 && movesOD.get(i + 2) == 247578640 // queen promotion
+                 && movesOD.get(i + 2) == 256000016 // queen promotion
                 );
       break;
     }
@@ -669,8 +784,8 @@ public class MoveGeneratorTest {
     mG.SORT_CAPTURING_MOVES = true;
 
     final MoveList killerList = new MoveList();
-    killerList.add(67320564);
-    killerList.add(67318516);
+    killerList.add(67353332);
+    killerList.add(67351284);
     mG.setKillerMoves(killerList);
 
     return mG.getPseudoLegalMoves();
@@ -684,8 +799,8 @@ public class MoveGeneratorTest {
     mG.SORT_CAPTURING_MOVES = true;
 
     final MoveList killerList = new MoveList();
-    killerList.add(67320564);
-    killerList.add(67318516);
+    killerList.add(67353332);
+    killerList.add(67351284);
     mG.setKillerMoves(killerList);
 
     return mG.getPseudoLegalMoves();
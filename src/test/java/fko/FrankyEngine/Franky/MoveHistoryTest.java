@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Frank
+ */
+public class MoveHistoryTest {
+
+  private final int lastMove =
+    Move.createMove(MoveType.PAWNDOUBLE, Square.e7, Square.e5, Piece.BLACK_PAWN, Piece.NOPIECE,
+                    Piece.NOPIECE);
+  private final int move     =
+    Move.createMove(MoveType.NORMAL, Square.g1, Square.f3, Piece.WHITE_KNIGHT, Piece.NOPIECE,
+                    Piece.NOPIECE);
+  private final int other    =
+    Move.createMove(MoveType.NORMAL, Square.b1, Square.c3, Piece.WHITE_KNIGHT, Piece.NOPIECE,
+                    Piece.NOPIECE);
+
+  @Test
+  public void testUpdates() {
+    MoveHistory history = new MoveHistory();
+    assertEquals(0, history.getScore(move, lastMove));
+    assertEquals(Move.NOMOVE, history.getCounterMove(lastMove));
+    assertEquals(Move.NOMOVE, history.getCounterMove(Move.NOMOVE));
+
+    history.updateCutOff(move, lastMove, 5);
+    history.updateFailed(other, lastMove, 5);
+    assertTrue(history.getScore(move, lastMove) > 0);
+    assertTrue(history.getScore(move, Move.NOMOVE) > 0);
+    assertTrue(history.getScore(other, lastMove) < 0);
+    assertEquals(move, history.getCounterMove(lastMove));
+
+    // aging halves the values
+    final int score = history.getScore(move, Move.NOMOVE);
+    history.age();
+    assertEquals(score / 2, history.getScore(move, Move.NOMOVE));
+
+    history.clear();
+    assertEquals(0, history.getScore(move, lastMove));
+    assertEquals(Move.NOMOVE, history.getCounterMove(lastMove));
+  }
+
+  @Test
+  public void testGravity() {
+    MoveHistory history = new MoveHistory();
+    for (int i = 0; i < 10000; i++) {
+      history.updateCutOff(move, Move.NOMOVE, 100);
+      history.updateFailed(other, Move.NOMOVE, 100);
+    }
+    assertTrue(history.getScore(move, Move.NOMOVE) <= MoveHistory.MAX_HISTORY);
+    assertTrue(history.getScore(other, Move.NOMOVE) >= -MoveHistory.MAX_HISTORY);
+  }
+}
@@ -34,6 +34,7 @@ import java.util.Random;
 import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -68,6 +69,24 @@ public class MoveTest {
         System.out.println(Move.toString(move));
     }
 
+    @Test
+    public void testPrimitiveDecoding() {
+        int move = Move.createMove(MoveType.PROMOTION, Square.e7, Square.f8, Piece.WHITE_PAWN,
+                                   Piece.BLACK_ROOK, Piece.WHITE_QUEEN);
+        assertEquals(Square.e7.ordinal(), Move.getStartIndex(move));
+        assertEquals(Square.f8.ordinal(), Move.getEndIndex(move));
+        assertEquals(Piece.WHITE_PAWN.code, Move.getPieceCode(move));
+        assertEquals(Piece.BLACK_ROOK.code, Move.getTargetCode(move));
+        assertEquals(Piece.WHITE_QUEEN.code, Move.getPromotionCode(move));
+        assertTrue(Move.isCapturing(move));
+        move = Move.createMove(MoveType.NORMAL, Square.g1, Square.f3, Piece.WHITE_KNIGHT,
+                               Piece.NOPIECE, Piece.NOPIECE);
+        assertEquals(Piece.NO_CODE, Move.getTargetCode(move));
+        assertEquals(Piece.NO_CODE, Move.getPromotionCode(move));
+        assertFalse(Move.isCapturing(move));
+        assertEquals(Piece.NO_CODE, Move.getTargetCode(Move.NOMOVE));
+    }
+
   static class Zug {
     int v = -99;
   }
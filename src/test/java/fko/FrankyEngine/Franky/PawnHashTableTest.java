@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * PawnHashTableTest
+ */
+public class PawnHashTableTest {
+
+  @Test
+  public void testPutFind() {
+    PawnHashTable table = new PawnHashTable(1);
+    assertEquals(1024 * 1024 / PawnHashTable.ENTRY_SIZE, table.getMaxEntries());
+
+    Position position = new Position();
+    final long key = position.getPawnZobristKey();
+    assertEquals(-1, table.find(key));
+    assertEquals(1, table.getNumberOfMisses());
+
+    table.put(key, Score.make(-25, 40), Square.a2.bitBoard, Square.h7.bitBoard);
+    final int index = table.find(key);
+    assertEquals(1, table.getNumberOfHits());
+    assertEquals(-25, Score.midGame(table.getScore(index)));
+    assertEquals(40, Score.endGame(table.getScore(index)));
+    assertEquals(Square.a2.bitBoard, table.getPassedPawns(index, Color.WHITE));
+    assertEquals(Square.h7.bitBoard, table.getPassedPawns(index, Color.BLACK));
+
+    // position without pawns has key 0 which is a valid key
+    assertEquals(-1, table.find(0L));
+    table.put(0L, Score.ZERO, 0L, 0L);
+    assertEquals(0, table.find(0L));
+
+    table.clear();
+    assertEquals(-1, table.find(key));
+    assertEquals(-1, table.find(0L));
+  }
+}
@@ -27,6 +27,7 @@ package fko.FrankyEngine.Franky;
 
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -46,4 +47,16 @@ public class PieceTest {
 
     }
 
+    @Test
+    public void testCodes() {
+        assertEquals(Piece.NO_CODE, Piece.NOPIECE.code);
+        for (Piece p : Piece.values()) {
+            if (p == Piece.NOPIECE) continue;
+            assertTrue(Piece.isValid(p.code));
+            assertEquals(p, Piece.fromCode(p.code));
+            assertEquals(p.getType().ordinal(), Piece.getTypeOrdinal(p.code));
+            assertEquals(p.getColor().ordinal(), Piece.getColorOrdinal(p.code));
+        }
+    }
+
 }
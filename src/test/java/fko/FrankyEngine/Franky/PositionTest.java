@@ -86,6 +86,16 @@ public class PositionTest {
     fen = "8/3k2b1/8/8/8/8/4K1B1/8 w - -";
     position = new Position(fen);
     assertFalse(position.checkInsufficientMaterial());
+
+    // KBK
+    fen = "8/3k4/8/8/8/8/4K1B1/8 w - -";
+    position = new Position(fen);
+    assertTrue(position.checkInsufficientMaterial());
+
+    // KKB
+    fen = "8/3k2b1/8/8/8/8/4K3/8 w - -";
+    position = new Position(fen);
+    assertTrue(position.checkInsufficientMaterial());
   }
 
   @Test
@@ -424,6 +434,22 @@ public class PositionTest {
     assertEquals(position, positionCopy);
     assertEquals(position.toFENString(), positionCopy.toFENString());
     assertEquals(position.getZobristKey(), positionCopy.getZobristKey());
+
+    // history of moves made before the copy can be undone on the copy
+    position = new Position();
+    position.makeMove(Move.fromUCINotation(position, "e2e4"));
+    position.makeMove(Move.fromUCINotation(position, "e7e5"));
+    position.makeMove(Move.fromUCINotation(position, "e1e2"));
+    positionCopy = new Position(position);
+    assertEquals(position, positionCopy);
+    assertEquals(position.getLastMove(), positionCopy.getLastMove());
+    positionCopy.undoMove();
+    assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2",
+                 positionCopy.toFENString());
+    positionCopy.undoMove();
+    positionCopy.undoMove();
+    assertEquals(Position.STANDARD_BOARD_FEN, positionCopy.toFENString());
+    assertEquals(new Position().getZobristKey(), positionCopy.getZobristKey());
   }
 
   /** Test Zobrist Key generation */
@@ -463,6 +489,99 @@ public class PositionTest {
     assertEquals(omegaBoard, omegaBoard2);
   }
 
+  /** Test incremental pawn zobrist key */
+  @Test
+  public void testPawnZobrist() {
+    // pawn double move, en passant capture, piece capturing a pawn and promotion with capture
+    Position position = new Position("r3k2r/1P4p1/8/2n5/5p2/3P4/4P3/R3K2R w KQkq - 0 1");
+    final long initialPawnKey = position.getPawnZobristKey();
+    String[] moves = {"e2e4", "f4e3", "a1a2", "c5d3", "e1d1", "g7g5", "b7a8q"};
+    for (String move : moves) {
+      position.makeMove(Move.fromUCINotation(position, move));
+      Position fresh = new Position(position.toFENString());
+      assertEquals(fresh.getPawnZobristKey(), position.getPawnZobristKey(),
+                   "Pawn key differs after " + move);
+    }
+    for (int i = 0; i < moves.length; i++) position.undoMove();
+    assertEquals(initialPawnKey, position.getPawnZobristKey());
+
+    // non pawn moves do not change the pawn key
+    position.makeMove(Move.fromUCINotation(position, "a1a2"));
+    assertEquals(initialPawnKey, position.getPawnZobristKey());
+    assertEquals(initialPawnKey, new Position(position).getPawnZobristKey());
+
+    // no pawns
+    assertEquals(0, new Position("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getPawnZobristKey());
+  }
+
+  /** Test incremental material key */
+  @Test
+  public void testMaterialKey() {
+    // pawn double move, en passant capture, castling, capture and promotion with capture
+    Position position = new Position("r3k2r/1P4p1/8/2n5/5p2/3P4/4P3/R3K2R w KQkq - 0 1");
+    final long initialKey = position.getMaterialKey();
+    String[] moves = {"e2e4", "f4e3", "e1c1", "c5d3", "c1b1", "e8g8", "b7a8q"};
+    for (String move : moves) {
+      position.makeMove(Move.fromUCINotation(position, move));
+      Position fresh = new Position(position.toFENString());
+      assertEquals(fresh.getMaterialKey(), position.getMaterialKey(),
+                   "Material key differs after " + move);
+    }
+    for (int i = 0; i < moves.length; i++) position.undoMove();
+    assertEquals(initialKey, position.getMaterialKey());
+    assertEquals(initialKey, new Position(position).getMaterialKey());
+
+    // number of pieces can be read from the key
+    final long key = new Position().getMaterialKey();
+    assertEquals(8, key >>> (Position.MATERIAL_KEY_BITS * Piece.WHITE_PAWN.ordinal()) & 0xF);
+    assertEquals(2, key >>> (Position.MATERIAL_KEY_BITS * Piece.BLACK_ROOK.ordinal()) & 0xF);
+    assertEquals(1, key >>> (Position.MATERIAL_KEY_BITS * Piece.BLACK_KING.ordinal()) & 0xF);
+
+    // same material on different squares has the same key - different material not
+    assertEquals(new Position("4k3/8/8/3n4/8/8/4P3/4K3 w - - 0 1").getMaterialKey(),
+                 new Position("8/2k5/8/8/5P2/8/8/1n2K3 b - - 0 1").getMaterialKey());
+    assertNotEquals(new Position("4k3/8/8/3n4/8/8/4P3/4K3 w - - 0 1").getMaterialKey(),
+                    new Position("4k3/8/8/3b4/8/8/4P3/4K3 w - - 0 1").getMaterialKey());
+  }
+
+  /** Test incremental piece square values */
+  @Test
+  public void testPieceSquareValues() {
+    // pawn double move, en passant capture, castling, capture and promotion with capture
+    Position position = new Position("r3k2r/1P4p1/8/2n5/5p2/3P4/4P3/R3K2R w KQkq - 0 1");
+    final int[] initial = {position.getMidGamePosition(Color.WHITE),
+                           position.getMidGamePosition(Color.BLACK),
+                           position.getEndGamePosition(Color.WHITE),
+                           position.getEndGamePosition(Color.BLACK)};
+    String[] moves = {"e2e4", "f4e3", "e1c1", "c5d3", "c1b1", "e8g8", "b7a8q"};
+    for (String move : moves) {
+      position.makeMove(Move.fromUCINotation(position, move));
+      Position fresh = new Position(position.toFENString());
+      for (Color c : new Color[]{Color.WHITE, Color.BLACK}) {
+        assertEquals(fresh.getMidGamePosition(c), position.getMidGamePosition(c),
+                     "Mid game value differs after " + move);
+        assertEquals(fresh.getEndGamePosition(c), position.getEndGamePosition(c),
+                     "End game value differs after " + move);
+      }
+    }
+    for (int i = 0; i < moves.length; i++) position.undoMove();
+    assertEquals(initial[0], position.getMidGamePosition(Color.WHITE));
+    assertEquals(initial[1], position.getMidGamePosition(Color.BLACK));
+    assertEquals(initial[2], position.getEndGamePosition(Color.WHITE));
+    assertEquals(initial[3], position.getEndGamePosition(Color.BLACK));
+
+    // copy constructor
+    assertEquals(initial[0], new Position(position).getMidGamePosition(Color.WHITE));
+    assertEquals(initial[3], new Position(position).getEndGamePosition(Color.BLACK));
+
+    // start position is symmetric
+    position = new Position();
+    assertEquals(position.getMidGamePosition(Color.WHITE),
+                 position.getMidGamePosition(Color.BLACK));
+    assertEquals(position.getEndGamePosition(Color.WHITE),
+                 position.getEndGamePosition(Color.BLACK));
+  }
+
   @Test
   public void testIsAttacked() {
     String testFen = "r3k2r/1ppn3p/2q1q1n1/8/2q1Pp2/6R1/p1p2PPP/1R4K1 b kq e3 0 113";
@@ -498,6 +617,25 @@ public class PositionTest {
     assertFalse(position.isAttacked(Color.BLACK, Square.e1));
   }
 
+  @Test
+  public void testAttackersTo() {
+    String testFen = "4k3/8/3p4/4n3/8/2B2N2/1Q6/4R1K1 w - - 0 1";
+    Position position = new Position(testFen);
+    System.out.println(position);
+
+    final long occupied = position.getAllOccupiedBitboard();
+    final long attackers = Square.c3.bitBoard | Square.f3.bitBoard | Square.e1.bitBoard
+                           | Square.d6.bitBoard;
+    assertEquals(attackers, position.attackersTo(Square.e5, occupied));
+    assertEquals(Square.d6.bitBoard, position.attackersTo(Square.e5, occupied)
+                                     & position.getOccupiedBitboards(Color.BLACK));
+
+    // x-ray: queen behind the bishop attacks when the bishop is removed
+    final long xray = occupied & ~Square.c3.bitBoard;
+    assertEquals(attackers ^ Square.c3.bitBoard | Square.b2.bitBoard,
+                 position.attackersTo(Square.e5, xray));
+  }
+
   @Test
   void givesCheckTest() {
     Position position;
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ScoreTest
+ */
+public class ScoreTest {
+
+  @Test
+  public void testMake() {
+    int[][] values = {{0, 0}, {10, -20}, {-10, 20}, {-1, -1}, {Short.MAX_VALUE, Short.MIN_VALUE},
+                      {Short.MIN_VALUE, Short.MAX_VALUE}};
+    for (int[] v : values) {
+      final int score = Score.make(v[0], v[1]);
+      assertEquals(v[0], Score.midGame(score));
+      assertEquals(v[1], Score.endGame(score));
+    }
+  }
+
+  @Test
+  public void testArithmetic() {
+    final int a = Score.make(-50, 30);
+    final int b = Score.make(20, -70);
+    assertEquals(Score.make(-30, -40), a + b);
+    assertEquals(Score.make(-70, 100), a - b);
+    assertEquals(Score.make(50, -30), -a);
+    assertEquals(Score.make(-150, 90), 3 * a);
+    assertEquals(Score.make(-40, 140), -2 * b);
+  }
+
+  @Test
+  public void testTaper() {
+    final int score = Score.make(100, -20);
+    assertEquals(100, Score.taper(score, Position.GAME_PHASE_MAX));
+    assertEquals(-20, Score.taper(score, 0));
+    assertEquals(40, Score.taper(score, Position.GAME_PHASE_MAX / 2));
+    assertEquals(Score.make(7, 7), Score.make(7, 0) + Score.make(0, 7));
+    assertEquals(7, Score.taper(Score.make(7, 7), 5));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2018 Frank Kopp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package fko.FrankyEngine.Franky;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Frank
+ */
+public class SearchStackTest {
+
+  private final int move =
+    Move.createMove(MoveType.NORMAL, Square.g1, Square.f3, Piece.WHITE_KNIGHT, Piece.NOPIECE,
+                    Piece.NOPIECE);
+
+  @Test
+  public void testReset() {
+    SearchStack stack = new SearchStack(Search.MAX_SEARCH_DEPTH);
+    assertEquals(Search.MAX_SEARCH_DEPTH, stack.size());
+
+    MoveHistory history = new MoveHistory();
+    stack.reset(true, history);
+    SearchStack.Frame frame = stack.get(3);
+    assertTrue(frame.moveGenerator.SORT_MOVES);
+    frame.killerMoves.add(move);
+    frame.quietMoves.add(move);
+    frame.staticEval = 42;
+    frame.currentMove = move;
+    frame.mateThreat = true;
+    frame.singleReply = true;
+
+    // same generation - data is kept
+    assertSame(frame, stack.get(3));
+    assertEquals(move, stack.get(3).killerMoves.getFirst());
+    assertTrue(stack.get(3).mateThreat);
+
+    // new generation - frame is reused but cleared
+    stack.reset(false, null);
+    assertSame(frame, stack.get(3));
+    assertFalse(frame.moveGenerator.SORT_MOVES);
+    assertTrue(frame.killerMoves.empty());
+    assertTrue(frame.quietMoves.empty());
+    assertEquals(Evaluation.NOVALUE, frame.staticEval);
+    assertEquals(Move.NOMOVE, frame.currentMove);
+    assertFalse(frame.mateThreat);
+    assertFalse(frame.singleReply);
+  }
+
+  @Test
+  public void testPV() {
+    SearchStack stack = new SearchStack(Search.MAX_SEARCH_DEPTH);
+    final int reply =
+      Move.createMove(MoveType.NORMAL, Square.g8, Square.f6, Piece.BLACK_KNIGHT, Piece.NOPIECE,
+                      Piece.NOPIECE);
+
+    stack.clearPV(2);
+    stack.updatePV(1, reply);
+    assertEquals(1, stack.getPVLength(1));
+    stack.updatePV(0, move);
+    assertEquals(2, stack.getPVLength(0));
+    assertEquals(move, stack.getPVMove(0, 0));
+    assertEquals(reply, stack.getPVMove(0, 1));
+    assertEquals(Move.toSimpleString(move) + " " + Move.toSimpleString(reply) + " ",
+                 stack.getPV(0).toNotationString());
+
+    stack.setPV(0, reply);
+    assertEquals(1, stack.getPVLength(0));
+    assertEquals(reply, stack.getPVMove(0, 0));
+
+    stack.clearPV(0);
+    assertEquals(0, stack.getPVLength(0));
+    assertTrue(stack.getPV(0).empty());
+
+    // last ply
+    final int last = Search.MAX_SEARCH_DEPTH - 1;
+    stack.setPV(last, move);
+    stack.updatePV(last - 1, reply);
+    assertEquals(2, stack.getPVLength(last - 1));
+  }
+}
@@ -122,6 +122,20 @@ public class SearchTest {
     assertTrue(search.getLastSearchResult().bestMove != Move.NOMOVE);
   }
 
+  @Test
+  public void testLazySMPSearch() {
+    search.config.USE_LAZY_SMP = true;
+    search.config.SMP_THREADS = 4;
+    String fen = Position.STANDARD_BOARD_FEN;
+    Position position = new Position(fen);
+    SearchMode searchMode = new SearchMode(0, 0, 0, 0, 0, 0, 0, 7, 0, null, false, false, false);
+    search.startSearch(position, searchMode);
+    search.waitWhileSearching();
+    assertTrue(search.getSearchCounter().leafPositionsEvaluated > 0);
+    assertTrue(search.getLastSearchResult().bestMove != Move.NOMOVE);
+    assertTrue(search.getTranspositionTable().getNumberOfEntries() > 0);
+  }
+
   @Test
   public void testNodesSearch() {
     final int nodes = 500000;
@@ -161,6 +161,9 @@ public class SquareTest {
     assertEquals(63, h8.index64);
     assertEquals(-1, i1.index64);
     assertEquals(-1, p8.index64);
+    for (Square square : validSquares) {
+      assertEquals(square, getSquareFromIndex64(square.index64));
+    }
   }
 
   @Test
@@ -270,23 +270,38 @@ public class SuiteTestsTest {
   @Test
   void startOneTest() {
 
-    // bm test time limited
+    // bm test time limited (WAC.003)
     assertTrue(
-      testSuite.startOneTest("r7/2r1kpp1/1p6/pB1Pp1P1/Pbp1P3/2N2b1P/1PPK1P2/R6R b - - bm Bh1;",
+      testSuite.startOneTest("5rk1/1ppb3p/p1pb4/6q1/3P1p1r/2P1R2P/PP1BQ1P1/5RKN w - - bm Rg3;",
                              5000, 0));
 
     // bm test depth limited
     assertTrue(
-      testSuite.startOneTest("r7/2r1kpp1/1p6/pB1Pp1P1/Pbp1P3/2N2b1P/1PPK1P2/R6R b - - bm Bh1;", 0,
+      testSuite.startOneTest("5rk1/1ppb3p/p1pb4/6q1/3P1p1r/2P1R2P/PP1BQ1P1/5RKN w - - bm Rg3;", 0,
                              8));
 
     // bm test time & depth limited
     assertTrue(
-      testSuite.startOneTest("r7/2r1kpp1/1p6/pB1Pp1P1/Pbp1P3/2N2b1P/1PPK1P2/R6R b - - bm Bh1;",
+      testSuite.startOneTest("5rk1/1ppb3p/p1pb4/6q1/3P1p1r/2P1R2P/PP1BQ1P1/5RKN w - - bm Rg3;",
                              5000, 8));
 
   }
 
+  /**
+   * Known failure since the pawn structure evaluation. The bishop on b4 pins the knight on c3 so
+   * after Bxe4 Re1 Bxd5 Rxe5+ black wins two pawns instead of the exchange after Bxh1 Rxh1. With
+   * the pawn structure terms Bxe4 is evaluated ~40cp better than Bxh1 at depth 8 and 10. The
+   * pawn terms are not tuned to this single position as they are better on the suites (STS 1-15
+   * depth 5: 560 vs. 547 solved without them).
+   */
+  @Test
+  @Disabled
+  void startOneTestBh1() {
+    assertTrue(
+      testSuite.startOneTest("r7/2r1kpp1/1p6/pB1Pp1P1/Pbp1P3/2N2b1P/1PPK1P2/R6R b - - bm Bh1;", 0,
+                             8));
+  }
+
   @Test
   void startOneMateTest() {
 
@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -61,14 +62,126 @@ public class TranspositionTableTest {
     assertEquals(32 * 1024 * 1024, cache.getSize());
     cache.put(position.getZobristKey(), (short) 999, TT_EntryType.EXACT, (byte) 5);
     assertEquals(1, cache.getNumberOfEntries());
-    assertEquals(999, cache.get(position.getZobristKey()).value);
+    assertEquals(999, TranspositionTable.getValue(cache.get(position.getZobristKey())));
     cache.put(position.getZobristKey(), (short) 1111, TT_EntryType.EXACT, (byte) 15);
-    assertEquals(1111, cache.get(position.getZobristKey()).value);
+    assertEquals(1111, TranspositionTable.getValue(cache.get(position.getZobristKey())));
     assertEquals(1, cache.getNumberOfEntries());
     cache.clear();
     assertEquals(0, cache.getNumberOfEntries());
   }
 
+  @Test
+  public final void test_PackedEntry() {
+    TranspositionTable cache = new TranspositionTable(1);
+    Position position = new Position();
+    final long key = position.getZobristKey();
+    final int move = Move.fromUCINotation(position, "e2e4");
+
+    assertEquals(TranspositionTable.NO_ENTRY, cache.get(key));
+
+    cache.put(key, (short) -1234, TT_EntryType.BETA, (byte) 42, move, true);
+    long entry = cache.get(key);
+    assertEquals(-1234, TranspositionTable.getValue(entry));
+    assertEquals(42, TranspositionTable.getDepth(entry));
+    assertEquals(TT_EntryType.BETA, TranspositionTable.getType(entry));
+    assertEquals(move, TranspositionTable.getBestMove(entry));
+    assertTrue(TranspositionTable.hasMateThreat(entry));
+
+    // deeper entry without best move keeps the previous best move
+    cache.put(key, (short) 55, TT_EntryType.EXACT, (byte) 43, Move.NOMOVE, false);
+    entry = cache.get(key);
+    assertEquals(55, TranspositionTable.getValue(entry));
+    assertEquals(43, TranspositionTable.getDepth(entry));
+    assertEquals(TT_EntryType.EXACT, TranspositionTable.getType(entry));
+    assertEquals(move, TranspositionTable.getBestMove(entry));
+    assertFalse(TranspositionTable.hasMateThreat(entry));
+  }
+
+  @Test
+  public final void test_Buckets() {
+    // 4 keys which all map to the same bucket
+    TranspositionTable cache = new TranspositionTable(1, 4);
+    final int numberOfBuckets = cache.getMaxEntries() / cache.getBucketSize();
+    for (int i = 0; i < 4; i++) {
+      cache.put(1 + i * numberOfBuckets, (short) i, TT_EntryType.EXACT, (byte) (i + 1));
+    }
+    assertEquals(4, cache.getNumberOfEntries());
+    assertEquals(0, cache.getNumberOfCollisions());
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i, TranspositionTable.getValue(cache.get(1 + i * numberOfBuckets)));
+    }
+
+    // full bucket - the shallowest entry is replaced
+    cache.put(1 + 4 * numberOfBuckets, (short) 4, TT_EntryType.EXACT, (byte) 5);
+    assertEquals(1, cache.getNumberOfCollisions());
+    assertEquals(1, cache.getNumberOfCollisionsPerSlot()[0]);
+    assertEquals(TranspositionTable.NO_ENTRY, cache.get(1));
+    assertEquals(4, TranspositionTable.getValue(cache.get(1 + 4 * numberOfBuckets)));
+
+    // single entry table - collision overwrites
+    cache = new TranspositionTable(1, 1);
+    cache.put(1, (short) 1, TT_EntryType.EXACT, (byte) 1);
+    cache.put(1 + cache.getMaxEntries(), (short) 2, TT_EntryType.EXACT, (byte) 2);
+    assertEquals(TranspositionTable.NO_ENTRY, cache.get(1));
+    assertEquals(2, TranspositionTable.getValue(cache.get(1 + cache.getMaxEntries())));
+  }
+
+  @Test
+  public final void test_Generation() {
+    TranspositionTable cache = new TranspositionTable(1, 2);
+    final int numberOfBuckets = cache.getMaxEntries() / cache.getBucketSize();
+    assertEquals(0, cache.getGeneration());
+
+    // deep entry from an old search and a shallow entry from the current search
+    cache.put(1, (short) 1, TT_EntryType.EXACT, (byte) 10);
+    for (int i = 0; i < 5; i++) cache.ageEntries();
+    assertEquals(5, cache.getGeneration());
+    cache.put(1 + numberOfBuckets, (short) 2, TT_EntryType.EXACT, (byte) 2);
+
+    // the old entry is replaced although it is deeper
+    cache.put(1 + 2 * numberOfBuckets, (short) 3, TT_EntryType.EXACT, (byte) 1);
+    assertEquals(TranspositionTable.NO_ENTRY, cache.get(1));
+    assertEquals(2, TranspositionTable.getValue(cache.get(1 + numberOfBuckets)));
+    assertEquals(3, TranspositionTable.getValue(cache.get(1 + 2 * numberOfBuckets)));
+
+    // generation wraps around
+    for (int i = 0; i < 200; i++) cache.ageEntries();
+    assertTrue(cache.getGeneration() >= 0 && cache.getGeneration() < 128);
+  }
+
+  @Test
+  public final void test_Concurrent() throws InterruptedException {
+    final TranspositionTable cache = new TranspositionTable(1);
+    final int numberOfThreads = 4;
+    final boolean[] corrupted = new boolean[numberOfThreads];
+
+    // all threads write and read the same keys - values are derived from the key
+    // so any entry returned by get() must match its key
+    Thread[] threads = new Thread[numberOfThreads];
+    for (int t = 0; t < numberOfThreads; t++) {
+      final int threadNumber = t;
+      threads[t] = new Thread(() -> {
+        Random random = new Random(threadNumber);
+        for (int i = 0; i < 200_000; i++) {
+          final long key = random.nextInt(100_000) + 1;
+          cache.put(key, (short) (key % 1000), TT_EntryType.EXACT, (byte) (key % 64), Move.NOMOVE,
+                    false);
+          final long data = cache.get(key + 1);
+          if (data != TranspositionTable.NO_ENTRY
+              && TranspositionTable.getValue(data) != (key + 1) % 1000) {
+            corrupted[threadNumber] = true;
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) thread.join();
+
+    for (boolean c : corrupted) assertFalse(c);
+    assertEquals(4 * 200_000, cache.getNumberOfProbes());
+    LOG.info(cache.toString());
+  }
+
   @Test
   public void collisionTest() {
     engine = new FrankyEngine();
@@ -184,7 +297,7 @@ public class TranspositionTableTest {
   @Disabled
   public void showSize() {
     //System.out.println(VM.current().details());
-    System.out.println(ClassLayout.parseClass(TranspositionTable.TT_Entry.class).toPrintable());
+    System.out.println(ClassLayout.parseClass(TranspositionTable.class).toPrintable());
   }
 
   @Test
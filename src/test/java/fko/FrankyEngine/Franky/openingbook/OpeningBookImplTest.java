@@ -34,6 +34,10 @@ import fko.FrankyEngine.util.HelperTools;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import static fko.FrankyEngine.Franky.Move.NOMOVE;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -166,6 +170,26 @@ public class OpeningBookImplTest {
     assertTrue(book.tryFromCache(testPath));
   }
 
+  @Test
+  public void testInvalidCacheIsRecreated() throws Exception {
+    final String testPath = "/book/pgn_test.pgn";
+    OpeningBookImpl book = new OpeningBookImpl(testPath, OpeningBookImpl.Mode.PGN);
+    assertTrue(book.saveOpeningBooktoSERFile(testPath));
+
+    // overwrite the cache file with data which can't be read as a book
+    final Path cacheFile =
+      FileSystems.getDefault().getPath(book._config._serPath + "/book-pgn_test.pgn.ser");
+    Files.write(cacheFile, new byte[]{1, 2, 3, 4});
+    assertFalse(book.tryFromCache(testPath));
+
+    // the book is read from the book file and the cache file is recreated
+    book = new OpeningBookImpl(testPath, OpeningBookImpl.Mode.PGN);
+    book.initialize();
+    Position currentBoard = new Position(OpeningBookImpl.STANDARD_BOARD_FEN);
+    assertNotEquals(NOMOVE, book.getBookMove(currentBoard.toFENString()));
+    assertTrue(new OpeningBookImpl(testPath, OpeningBookImpl.Mode.PGN).tryFromCache(testPath));
+  }
+
   /**
      *
      */
@@ -79,7 +79,11 @@ class UCIProtocolHandlerTest {
   }
 
   @AfterEach
-  void tearDown() {
+  void tearDown() throws InterruptedException {
+    // tests which end without quit (e.g. on a failed assertion) would leave the handler thread
+    // and the engine with its hash tables alive for the rest of the test run
+    if (engine.isSearching()) engine.stopSearch();
+    if (handler.isRunning()) commandToEngine("quit");
   }
 
   @Test
@@ -257,12 +261,15 @@ class UCIProtocolHandlerTest {
     waitWhileSearching();
     assertFalse(engine.isSearching());
 
+    clearBuffer();
+    // a depth limited search might end before we can see it running - start with empty
+    // hash tables and wait for the bestmove instead of polling isSearching()
+    commandToEngine("ucinewgame");
+    commandToEngine("isready");
     commandToEngine("go depth 10");
-    waitUntilSearching();
+    assertTrue(waitForBestMove(60000));
     assertFalse(engine.getSearchMode().isTimeControl());
     assertEquals(10, engine.getSearchMode().getDepth());
-    assertTrue(engine.isSearching());
-    commandToEngine("stop");
     waitWhileSearching();
     assertFalse(engine.isSearching());
 
@@ -551,6 +558,17 @@ class UCIProtocolHandlerTest {
     }
   }
 
+  private boolean waitForBestMove(long timeoutInMs) throws InterruptedException, IOException {
+    final long deadline = System.currentTimeMillis() + timeoutInMs;
+    while (System.currentTimeMillis() < deadline) {
+      while (fromHandlerReader.ready()) {
+        if (getResponseFromEngine().startsWith("bestmove")) return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
   private void clearBuffer() throws IOException {
     while (fromHandlerReader.ready()) {
       getResponseFromEngine();